@@ -0,0 +1,153 @@
+package ch.held.personmanagementservice;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import ch.held.personmanagementservice.model.PersonEntity;
+import ch.held.personmanagementservice.parser.ParserResources;
+import ch.held.personmanagementservice.parser.XmlPersonParser;
+import ch.held.personmanagementservice.util.JaxbContextProvider;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import jakarta.validation.Validation;
+
+/**
+ * Wiring for benchmarks that run the CDI beans outside of the application server: fields normally injected by the container are set by reflection, the persistence unit runs
+ * resource-local against an in-process H2.
+ */
+public final class BenchmarkSupport {
+
+	private BenchmarkSupport() {
+		// static access only
+	}
+
+	/**
+	 * Sets a field of a bean the way the container would inject it.
+	 */
+	public static <T> T inject(T target, String fieldName, Object value) {
+		try {
+			Field field = findField(target.getClass(), fieldName);
+			field.setAccessible(true);
+			field.set(target, value);
+			return target;
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Cannot inject " + fieldName + " into " + target.getClass().getName(), e);
+		}
+	}
+
+	/**
+	 * The services log at INFO per call, which would dominate every measurement.
+	 */
+	public static void quietLogging() {
+		LogManager.getLogManager().reset();
+		Logger.getLogger("").setLevel(Level.WARNING);
+	}
+
+	/**
+	 * Creates the "default" persistence unit as resource-local unit on a fresh in-memory H2 database.
+	 */
+	public static EntityManagerFactory h2EntityManagerFactory(String databaseName) {
+		return h2EntityManagerFactory(databaseName, Map.of());
+	}
+
+	/**
+	 * Creates the "default" persistence unit as resource-local unit on a fresh in-memory H2 database. The second-level cache is Caffeine's JCache implementation in place of the
+	 * server's Infinispan, bounded to the same number of entries per region.
+	 *
+	 * @param properties persistence unit properties overriding the defaults.
+	 */
+	public static EntityManagerFactory h2EntityManagerFactory(String databaseName, Map<String, String> properties) {
+		System.setProperty("caffeine.jcache.default.policy.maximum.size", "10000");
+		Map<String, String> unitProperties = new HashMap<>(Map.of(
+				"jakarta.persistence.transactionType", "RESOURCE_LOCAL",
+				"jakarta.persistence.jdbc.url", "jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1",
+				"hibernate.hbm2ddl.auto", "create-drop",
+				"hibernate.cache.region.factory_class", "jcache",
+				"hibernate.javax.cache.missing_cache_strategy", "create",
+				// The JCache caches are shared by the JVM, keep those of each database apart
+				"hibernate.cache.region_prefix", databaseName));
+		unitProperties.putAll(properties);
+		return Persistence.createEntityManagerFactory("default", unitProperties);
+	}
+
+	public static XmlPersonParser xmlPersonParser() {
+		ParserResources parserResources = parserResources();
+		XmlPersonParser parser = new XmlPersonParser();
+		inject(parser, "parserResources", parserResources);
+		inject(parser, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+		return parser;
+	}
+
+	public static ParserResources parserResources() {
+		ParserResources parserResources = new ParserResources();
+		inject(parserResources, "jaxbContextProvider", new JaxbContextProvider());
+		return postConstruct(parserResources);
+	}
+
+	/**
+	 * Calls the package-private {@code @PostConstruct} method {@code init()} of a bean the way the container would.
+	 */
+	public static <T> T postConstruct(T target) {
+		try {
+			var init = target.getClass().getDeclaredMethod("init");
+			init.setAccessible(true);
+			init.invoke(target);
+			return target;
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Cannot initialize " + target.getClass().getName(), e);
+		}
+	}
+
+	/**
+	 * Builds a valid persons document.
+	 */
+	public static String personsXml(int personCount) {
+		StringBuilder xml = new StringBuilder(64 + personCount * 80).append("<persons>");
+		for (int i = 0; i < personCount; i++) {
+			xml.append("<person><name>Person ").append(i).append("</name><gender>").append(i % 2 == 0 ? 'f' : 'm').append("</gender><age>").append(i % 100)
+					.append("</age></person>");
+		}
+		return xml.append("</persons>").toString();
+	}
+
+	/**
+	 * Builds a valid persons document in JSON with the same persons as {@link #personsXml(int)}.
+	 */
+	public static String personsJson(int personCount) {
+		StringBuilder json = new StringBuilder(64 + personCount * 60).append("{\"persons\":[");
+		for (int i = 0; i < personCount; i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append("{\"name\":\"Person ").append(i).append("\",\"gender\":\"").append(i % 2 == 0 ? 'f' : 'm').append("\",\"age\":").append(i % 100).append('}');
+		}
+		return json.append("]}").toString();
+	}
+
+	/**
+	 * Builds a detached person as it would be returned by the database.
+	 */
+	public static PersonEntity personEntity(long id) {
+		PersonEntity person = new PersonEntity();
+		inject(person, "id", id);
+		person.setName("Person " + id);
+		person.setGender(id % 2 == 0 ? "f" : "m");
+		person.setAge((int) (id % 100));
+		return person;
+	}
+
+	private static Field findField(Class<?> type, String fieldName) throws NoSuchFieldException {
+		for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+			try {
+				return current.getDeclaredField(fieldName);
+			} catch (NoSuchFieldException e) {
+				// continue with the superclass
+			}
+		}
+		throw new NoSuchFieldException(fieldName);
+	}
+}
@@ -0,0 +1,76 @@
+package ch.held.personmanagementservice.parser;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.held.personmanagementservice.BenchmarkSupport;
+
+/**
+ * Cost of reading a persons document as JSON against the XML pipeline, for documents with the same persons. {@code xmlValidateAndParse} is what {@code POST /persons/add} does
+ * with XML, {@code xmlStream} what {@code POST /persons/add/stream} does, {@code jsonStream} what {@code POST /persons/add} does with JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonPersonParserBenchmark {
+
+	@Param({ "1", "100", "100000" })
+	private int personCount;
+
+	private XmlPersonParser xmlParser;
+	private JsonPersonParser jsonParser;
+	private String xml;
+	private byte[] xmlBytes;
+	private byte[] jsonBytes;
+
+	@Setup
+	public void setUp() {
+		BenchmarkSupport.quietLogging();
+		xmlParser = BenchmarkSupport.xmlPersonParser();
+		jsonParser = new JsonPersonParser();
+		xml = BenchmarkSupport.personsXml(personCount);
+		xmlBytes = xml.getBytes(StandardCharsets.UTF_8);
+		jsonBytes = BenchmarkSupport.personsJson(personCount).getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public int xmlValidateAndParse() throws Exception {
+		xmlParser.validateXml(xml);
+		return xmlParser.parseXml(xml).getPerson().size();
+	}
+
+	@Benchmark
+	public void xmlStream(Blackhole blackhole) throws Exception {
+		try (PersonStreamReader persons = xmlParser.streamPersons(new ByteArrayInputStream(xmlBytes))) {
+			while (persons.hasNext()) {
+				blackhole.consume(persons.next());
+			}
+		}
+	}
+
+	@Benchmark
+	public void jsonStream(Blackhole blackhole) {
+		try (JsonPersonStreamReader persons = jsonParser.streamPersons(new ByteArrayInputStream(jsonBytes))) {
+			while (persons.hasNext()) {
+				blackhole.consume(persons.next());
+			}
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package ch.held.personmanagementservice.parser;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.held.personmanagementservice.BenchmarkSupport;
+import generated.Persons;
+
+/**
+ * Cost of validating and parsing a persons document, the first part of every add and update request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XmlPersonParserBenchmark {
+
+	@Param({ "1", "100", "100000" })
+	private int personCount;
+
+	private XmlPersonParser parser;
+	private String xml;
+	private byte[] xmlBytes;
+
+	@Setup
+	public void setUp() {
+		BenchmarkSupport.quietLogging();
+		parser = BenchmarkSupport.xmlPersonParser();
+		xml = BenchmarkSupport.personsXml(personCount);
+		xmlBytes = xml.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public void validateXml() throws Exception {
+		parser.validateXml(xml);
+	}
+
+	@Benchmark
+	public Persons parseXml() throws Exception {
+		return parser.parseXml(xml);
+	}
+
+	/**
+	 * Validate plus parse as done by POST /persons/add.
+	 */
+	@Benchmark
+	public Persons validateAndParseXml() throws Exception {
+		parser.validateXml(xml);
+		return parser.parseXml(xml);
+	}
+
+	/**
+	 * Single-pass validate and parse as done by POST /persons/add/stream.
+	 */
+	@Benchmark
+	public void streamPersons(Blackhole blackhole) throws Exception {
+		try (PersonStreamReader persons = parser.streamPersons(new ByteArrayInputStream(xmlBytes))) {
+			while (persons.hasNext()) {
+				blackhole.consume(persons.next());
+			}
+		}
+	}
+}
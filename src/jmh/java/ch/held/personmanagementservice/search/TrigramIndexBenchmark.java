@@ -0,0 +1,113 @@
+package ch.held.personmanagementservice.search;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.held.personmanagementservice.model.NameMatch;
+
+/**
+ * Name lookups in a {@link TrigramIndex} of synthetic names: one of 60 first names and a surname of two or three random syllables, e.g. "Laura Brütztaun". The queries are infixes
+ * of five to eight characters of surnames, fuzzy queries have one character replaced. {@link #frequentSubstring()} looks up a first name that every 60th person has, the cost of a
+ * lookup grows with the number of names containing the query.
+ * <p>
+ * Setup prints the estimated retained size per entry of the index and the heap growth measured while building it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class TrigramIndexBenchmark {
+
+	private static final String[] FIRST_NAMES = { "Anna", "Peter", "Maria", "Thomas", "Sandra", "Michael", "Sabine", "Andreas", "Claudia", "Stefan", "Nicole", "Daniel", "Monika",
+			"Markus", "Petra", "Christian", "Andrea", "Martin", "Barbara", "Lukas", "Julia", "David", "Laura", "Simon", "Lea", "Jonas", "Sarah", "Marco", "Nina", "Fabian", "Elena",
+			"Patrick", "Lisa", "Reto", "Sophie", "Urs", "Chiara", "Beat", "Noemi", "Luca", "Ursula", "Hans", "Ruth", "Walter", "Verena", "Jürg", "Esther", "René", "Céline", "Noah",
+			"Mia", "Elias", "Emma", "Leon", "Lina", "Finn", "Zoe", "Samuel", "Alina", "Matteo" };
+	private static final String[] ONSETS = { "b", "br", "d", "f", "g", "gr", "h", "k", "kl", "l", "m", "n", "p", "r", "s", "sch", "st", "t", "w", "z" };
+	private static final String[] VOWELS = { "a", "e", "i", "o", "u", "ä", "ö", "ü", "ei", "au" };
+	private static final String[] CODAS = { "", "", "n", "r", "l", "s", "ch", "ck", "tz", "nn", "ld", "rt" };
+	private static final int QUERY_COUNT = 1024;
+
+	@Param({ "1000000", "3000000" })
+	private int nameCount;
+
+	private TrigramIndex index;
+	private String[] infixes;
+	private String[] typos;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		System.gc();
+		long heapBefore = usedHeap();
+		index = new TrigramIndex();
+		for (int id = 1; id <= nameCount; id++) {
+			index.put(id, randomName(random));
+		}
+		index.trim();
+		System.gc();
+		long heapAfter = usedHeap();
+		System.out.printf("%n%d names: estimated %d bytes per entry, measured heap growth %d bytes per entry%n", index.size(), index.sizeInBytes() / index.size(),
+				(heapAfter - heapBefore) / index.size());
+
+		infixes = new String[QUERY_COUNT];
+		typos = new String[QUERY_COUNT];
+		Random queries = new Random(7);
+		for (int i = 0; i < QUERY_COUNT; i++) {
+			String name = TrigramIndex.normalize(randomName(queries));
+			String surname = name.substring(name.indexOf(' ') + 1);
+			int length = Math.min(surname.length(), 5 + queries.nextInt(4));
+			int start = queries.nextInt(surname.length() - length + 1);
+			String infix = surname.substring(start, start + length);
+			infixes[i] = infix;
+			char[] typo = infix.toCharArray();
+			typo[queries.nextInt(typo.length)] = (char) ('a' + queries.nextInt(26));
+			typos[i] = new String(typo);
+		}
+	}
+
+	@Benchmark
+	public List<NameMatch> substring() {
+		return index.search(infixes[next++ & (QUERY_COUNT - 1)], 10, false);
+	}
+
+	@Benchmark
+	public List<NameMatch> fuzzy() {
+		return index.search(typos[next++ & (QUERY_COUNT - 1)], 10, true);
+	}
+
+	@Benchmark
+	public List<NameMatch> frequentSubstring() {
+		return index.search("christian", 10, false);
+	}
+
+	private static String randomName(Random random) {
+		StringBuilder surname = new StringBuilder();
+		int syllables = 2 + random.nextInt(2);
+		for (int i = 0; i < syllables; i++) {
+			surname.append(ONSETS[random.nextInt(ONSETS.length)]).append(VOWELS[random.nextInt(VOWELS.length)]).append(CODAS[random.nextInt(CODAS.length)]);
+		}
+		surname.setCharAt(0, Character.toUpperCase(surname.charAt(0)));
+		return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + surname;
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
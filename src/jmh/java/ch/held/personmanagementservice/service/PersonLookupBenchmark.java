@@ -0,0 +1,108 @@
+package ch.held.personmanagementservice.service;
+
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.held.personmanagementservice.BenchmarkSupport;
+import ch.held.personmanagementservice.model.PersonEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Reads of {@link PersonService} with and without the second-level and query cache: lookups by id that mostly hit a small hot set, the first page and a search. Every read opens its
+ * own persistence context, like a request in the container; the second-level cache only serves sessions opened after an entry was stored.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonLookupBenchmark {
+
+	private static final int PERSON_COUNT = 100_000;
+	private static final int LOOKUPS = 1 << 16;
+
+	@Param({ "false", "true" })
+	private boolean cache;
+
+	/**
+	 * Persons that receive 90% of the lookups, the rest is spread over all persons.
+	 */
+	@Param({ "1000" })
+	private int hotSetSize;
+
+	private EntityManagerFactory entityManagerFactory;
+	private EntityManager em;
+	private PersonService personService;
+	private long[] lookupIds;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		BenchmarkSupport.quietLogging();
+		entityManagerFactory = BenchmarkSupport.h2EntityManagerFactory("personlookup", Map.of(
+				"hibernate.cache.use_second_level_cache", Boolean.toString(cache),
+				"hibernate.cache.use_query_cache", Boolean.toString(cache)));
+		em = entityManagerFactory.createEntityManager();
+		personService = BenchmarkSupport.inject(new PersonService(), "em", em);
+		em.getTransaction().begin();
+		em.unwrap(Session.class).doWork(connection -> {
+			try (Statement statement = connection.createStatement()) {
+				statement.executeUpdate("INSERT INTO PersonEntity (id, name, gender, age) SELECT X, CONCAT('Person ', X), CASEWHEN(MOD(X, 2) = 0, 'f', 'm'), MOD(X, 100)"
+						+ " FROM SYSTEM_RANGE(1, " + PERSON_COUNT + ")");
+			}
+		});
+		em.getTransaction().commit();
+
+		Random random = new Random(42);
+		lookupIds = new long[LOOKUPS];
+		for (int i = 0; i < LOOKUPS; i++) {
+			lookupIds[i] = 1 + (random.nextInt(10) < 9 ? random.nextInt(hotSetSize) * (PERSON_COUNT / hotSetSize) : random.nextInt(PERSON_COUNT));
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		em.close();
+		entityManagerFactory.close();
+	}
+
+	@Benchmark
+	public PersonEntity findById() {
+		return request().getPerson(lookupIds[next++ & (LOOKUPS - 1)]);
+	}
+
+	@Benchmark
+	public List<PersonEntity> firstPage() {
+		return request().getPersonsPage(null, 100);
+	}
+
+	@Benchmark
+	public List<PersonEntity> search() {
+		return request().searchPersons(new PersonSearch("f", 30, 39, null, PersonSearch.SortKey.ID, false, 100));
+	}
+
+	private PersonService request() {
+		em.close();
+		em = entityManagerFactory.createEntityManager();
+		return BenchmarkSupport.inject(personService, "em", em);
+	}
+}
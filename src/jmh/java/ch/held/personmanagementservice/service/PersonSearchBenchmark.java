@@ -0,0 +1,102 @@
+package ch.held.personmanagementservice.service;
+
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.held.personmanagementservice.BenchmarkSupport;
+import ch.held.personmanagementservice.model.PersonEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Latency of {@link PersonService#searchPersons(PersonSearch)} on a large table, with and without the indexes declared on {@link PersonEntity}. That the searches are planned
+ * with the indexes is checked by {@code PersonSearchPlanTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonSearchBenchmark {
+
+	private static final PersonSearch GENDER_AND_AGE = new PersonSearch("f", 20, 22, null, PersonSearch.SortKey.AGE, false, 100);
+	private static final PersonSearch AGE = new PersonSearch(null, 30, 30, null, PersonSearch.SortKey.ID, false, 100);
+	private static final PersonSearch NAME_PREFIX = new PersonSearch(null, null, null, "Ab", PersonSearch.SortKey.NAME, false, 100);
+
+	@Param({ "1000000" })
+	private int rows;
+
+	@Param({ "true", "false" })
+	private boolean indexed;
+
+	private EntityManagerFactory entityManagerFactory;
+	private EntityManager em;
+	private PersonService personService;
+
+	@Setup
+	public void setUp() {
+		BenchmarkSupport.quietLogging();
+		entityManagerFactory = BenchmarkSupport.h2EntityManagerFactory("personsearch");
+		em = entityManagerFactory.createEntityManager();
+		personService = BenchmarkSupport.inject(new PersonService(), "em", em);
+
+		em.getTransaction().begin();
+		em.unwrap(Session.class).doWork(connection -> {
+			try (Statement statement = connection.createStatement()) {
+				// Two pseudo-random letters make name prefixes selective, ages are spread evenly over 0 to 99
+				statement.executeUpdate("INSERT INTO PersonEntity (id, name, gender, age) SELECT X, CONCAT(CHAR(65 + MOD(X * 7919, 26)), CHAR(97 + MOD(X * 104729, 26)), ' ', X),"
+						+ " CASEWHEN(MOD(X, 2) = 0, 'f', 'm'), MOD(X, 100) FROM SYSTEM_RANGE(1, " + rows + ")");
+				if (!indexed) {
+					statement.execute("DROP INDEX idx_person_gender_age");
+					statement.execute("DROP INDEX idx_person_age");
+					statement.execute("DROP INDEX idx_person_name");
+				}
+				statement.execute("ANALYZE");
+			}
+		});
+		em.getTransaction().commit();
+	}
+
+	@TearDown
+	public void tearDown() {
+		em.close();
+		entityManagerFactory.close();
+	}
+
+	@Benchmark
+	public List<PersonEntity> genderAndAgeRange() {
+		return search(GENDER_AND_AGE);
+	}
+
+	@Benchmark
+	public List<PersonEntity> ageRange() {
+		return search(AGE);
+	}
+
+	@Benchmark
+	public List<PersonEntity> namePrefix() {
+		return search(NAME_PREFIX);
+	}
+
+	private List<PersonEntity> search(PersonSearch search) {
+		List<PersonEntity> persons = personService.searchPersons(search);
+		em.clear();
+		return persons;
+	}
+}
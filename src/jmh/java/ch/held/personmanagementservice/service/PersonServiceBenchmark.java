@@ -0,0 +1,182 @@
+package ch.held.personmanagementservice.service;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.held.personmanagementservice.BenchmarkSupport;
+import ch.held.personmanagementservice.model.PersonEntity;
+import ch.held.personmanagementservice.model.PersonUpdate;
+import generated.Person;
+import generated.Persons;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Write paths of {@link PersonService} against an in-process H2. Transactions are demarcated by hand where the container would apply {@code @Transactional}. The insert benchmarks
+ * report rows per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonServiceBenchmark {
+
+	private static final int DOCUMENT_SIZE = 1000;
+	private static final int SEED_SIZE = 10_000;
+	private static final int BULK_SIZE = 100;
+
+	private EntityManagerFactory entityManagerFactory;
+	private EntityManager em;
+	private PersonService personService;
+	private Persons document;
+	private PersonEntity updatedPerson;
+	private long[] seededIds;
+	private final ArrayDeque<Long> deletableIds = new ArrayDeque<>();
+
+	@Setup
+	public void setUp() {
+		BenchmarkSupport.quietLogging();
+		entityManagerFactory = BenchmarkSupport.h2EntityManagerFactory("personservice");
+		em = entityManagerFactory.createEntityManager();
+		personService = BenchmarkSupport.inject(new PersonService(), "em", em);
+		document = createDocument(DOCUMENT_SIZE);
+		updatedPerson = personService.convertToEntity(document.getPerson().get(0));
+		seededIds = insertAndFetchIds(SEED_SIZE).stream().mapToLong(Long::longValue).toArray();
+	}
+
+	@TearDown
+	public void tearDown() {
+		em.close();
+		entityManagerFactory.close();
+	}
+
+	/**
+	 * The former POST /persons/add behaviour: one transaction per person.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(DOCUMENT_SIZE)
+	public void insertPerPersonTransaction() {
+		for (Person person : document.getPerson()) {
+			em.getTransaction().begin();
+			personService.addPerson(person);
+			em.getTransaction().commit();
+			em.clear();
+		}
+	}
+
+	/**
+	 * One transaction with JDBC batching and periodic flush/clear.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(DOCUMENT_SIZE)
+	public BulkInsertResult insertBulk() {
+		em.getTransaction().begin();
+		BulkInsertResult result = personService.addPersons(document);
+		em.getTransaction().commit();
+		return result;
+	}
+
+	@Benchmark
+	public boolean updatePerson() {
+		long id = seededIds[ThreadLocalRandom.current().nextInt(seededIds.length)];
+		em.getTransaction().begin();
+		boolean updated = personService.updatePerson(id, updatedPerson);
+		em.getTransaction().commit();
+		em.clear();
+		return updated;
+	}
+
+	/**
+	 * Set-based counterpart of {@link #updatePerson()}: {@value #BULK_SIZE} random persons in one transaction as JDBC batch. Reports persons per second.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(BULK_SIZE)
+	public Map<Long, Boolean> updatePersonsBulk() {
+		List<PersonUpdate> updates = new ArrayList<>(BULK_SIZE);
+		for (int i = 0; i < BULK_SIZE; i++) {
+			updates.add(new PersonUpdate(seededIds[ThreadLocalRandom.current().nextInt(seededIds.length)], "Updated", "f", 42));
+		}
+		em.getTransaction().begin();
+		Map<Long, Boolean> outcomes = personService.updatePersons(updates);
+		em.getTransaction().commit();
+		return outcomes;
+	}
+
+	/**
+	 * Set-based counterpart of {@link #deletePerson()}: {@value #BULK_SIZE} persons by id in one transaction. Reports persons per second.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(BULK_SIZE)
+	public Map<Long, Boolean> deletePersonsBulk() {
+		if (deletableIds.size() < BULK_SIZE) {
+			deletableIds.addAll(insertAndFetchIds(DOCUMENT_SIZE));
+		}
+		List<Long> ids = new ArrayList<>(BULK_SIZE);
+		for (int i = 0; i < BULK_SIZE; i++) {
+			ids.add(deletableIds.poll());
+		}
+		em.getTransaction().begin();
+		Map<Long, Boolean> outcomes = personService.deletePersons(ids);
+		em.getTransaction().commit();
+		return outcomes;
+	}
+
+	/**
+	 * Deletes previously inserted persons; the pool of ids is refilled in bulk when it runs empty, which is included in the measurement but amortized over many deletes.
+	 */
+	@Benchmark
+	public boolean deletePerson() {
+		if (deletableIds.isEmpty()) {
+			deletableIds.addAll(insertAndFetchIds(DOCUMENT_SIZE));
+		}
+		em.getTransaction().begin();
+		boolean deleted = personService.deletePerson(deletableIds.poll());
+		em.getTransaction().commit();
+		em.clear();
+		return deleted;
+	}
+
+	private List<Long> insertAndFetchIds(int count) {
+		em.getTransaction().begin();
+		Long maxId = em.createQuery("SELECT MAX(p.id) FROM PersonEntity p", Long.class).getSingleResult();
+		personService.addPersons(createDocument(count));
+		List<Long> ids = em.createQuery("SELECT p.id FROM PersonEntity p WHERE p.id > :maxId ORDER BY p.id", Long.class)
+				.setParameter("maxId", maxId != null ? maxId : 0L)
+				.getResultList();
+		em.getTransaction().commit();
+		em.clear();
+		return ids;
+	}
+
+	private static Persons createDocument(int size) {
+		Persons persons = new Persons();
+		for (int i = 0; i < size; i++) {
+			Person person = new Person();
+			person.setName("Person " + i);
+			person.setGender(i % 2 == 0 ? "f" : "m");
+			person.setAge(BigInteger.valueOf(i % 100));
+			persons.getPerson().add(person);
+		}
+		return persons;
+	}
+}
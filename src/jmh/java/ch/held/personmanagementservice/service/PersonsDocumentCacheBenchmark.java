@@ -0,0 +1,109 @@
+package ch.held.personmanagementservice.service;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.held.personmanagementservice.BenchmarkSupport;
+import ch.held.personmanagementservice.model.PersonsWrapper;
+import ch.held.personmanagementservice.writer.PersonsMessageBodyWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * {@code GET /persons} without and with the {@link PersonsDocumentCache}: query and marshal on every request, copy the cached bytes, and rebuild the document after a change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonsDocumentCacheBenchmark {
+
+	@Param({ "100", "10000" })
+	private int personCount;
+
+	private EntityManagerFactory entityManagerFactory;
+	private EntityManager em;
+	private PersonService personService;
+	private DataVersion dataVersion;
+	private PersonsDocumentCache personsCache;
+	private PersonsMessageBodyWriter personsWriter;
+	private ByteArrayOutputStream out;
+
+	@Setup
+	public void setUp() {
+		BenchmarkSupport.quietLogging();
+		entityManagerFactory = BenchmarkSupport.h2EntityManagerFactory("personsdocument");
+		em = entityManagerFactory.createEntityManager();
+		personService = BenchmarkSupport.inject(new PersonService(), "em", em);
+		em.getTransaction().begin();
+		em.unwrap(Session.class).doWork(connection -> {
+			try (Statement statement = connection.createStatement()) {
+				statement.executeUpdate("INSERT INTO PersonEntity (id, name, gender, age) SELECT X, CONCAT('Person ', X), CASEWHEN(MOD(X, 2) = 0, 'f', 'm'), MOD(X, 100)"
+						+ " FROM SYSTEM_RANGE(1, " + personCount + ")");
+			}
+		});
+		em.getTransaction().commit();
+
+		dataVersion = new DataVersion();
+		personsCache = BenchmarkSupport.inject(new PersonsDocumentCache(), "personService", personService);
+		BenchmarkSupport.inject(personsCache, "dataVersion", dataVersion);
+		personsWriter = new PersonsMessageBodyWriter();
+		out = new ByteArrayOutputStream(personCount * 100 + 1024);
+	}
+
+	@TearDown
+	public void tearDown() {
+		em.close();
+		entityManagerFactory.close();
+	}
+
+	@Benchmark
+	public int uncached() throws Exception {
+		// A fresh persistence context per request, like the container's
+		em.clear();
+		out.reset();
+		personsWriter.writeTo(new PersonsWrapper(personService.getAllPersons()), PersonsWrapper.class, PersonsWrapper.class, null, null, null, out);
+		return out.size();
+	}
+
+	@Benchmark
+	public int cacheHit() {
+		out.reset();
+		out.writeBytes(personsCache.get().xml());
+		return out.size();
+	}
+
+	@Benchmark
+	public int cacheHitGzip() {
+		out.reset();
+		out.writeBytes(personsCache.get().gzip());
+		return out.size();
+	}
+
+	/**
+	 * The first request after a change: rebuilds the document once, including the gzip encoding.
+	 */
+	@Benchmark
+	public int rebuildAfterChange() {
+		dataVersion.onPersonsChanged(null);
+		em.clear();
+		return personsCache.get().gzip().length;
+	}
+}
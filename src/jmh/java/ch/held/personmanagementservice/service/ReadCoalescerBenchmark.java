@@ -0,0 +1,165 @@
+package ch.held.personmanagementservice.service;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.held.personmanagementservice.BenchmarkSupport;
+import ch.held.personmanagementservice.model.PersonEntity;
+import ch.held.personmanagementservice.statistics.impl.DatasetStatisticsService;
+import ch.held.personmanagementservice.statistics.impl.EndpointLatencyRegistry;
+import ch.held.personmanagementservice.statistics.impl.PhaseStatistics;
+import ch.held.personmanagementservice.statistics.impl.RequestStatisticsService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * A dashboard refresh wave: {@code burst} identical requests for the first persons page or the statistics arrive together at a pool of {@code threads} request
+ * threads. The {@code direct} variant queries and generates once per request, each request thread with its own persistence context; the {@code coalesced} variant goes through the
+ * {@link ReadCoalescer}; with {@code freshMillis} 0 it only shares pages in flight and generates the statistics per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadCoalescerBenchmark {
+
+	@Param({ "direct", "coalesced" })
+	private String mode;
+
+	@Param({ "0", "100" })
+	private int freshMillis;
+
+	@Param({ "16" })
+	private int threads;
+
+	@Param({ "32" })
+	private int burst;
+
+	@Param({ "1000" })
+	private int pageSize;
+
+	private EntityManagerFactory entityManagerFactory;
+	private List<EntityManager> entityManagers;
+	private ThreadLocal<PersonService> personServices;
+	private RequestStatisticsService statisticsService;
+	private ReadCoalescer readCoalescer;
+	private ExecutorService requestThreads;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		BenchmarkSupport.quietLogging();
+		entityManagerFactory = BenchmarkSupport.h2EntityManagerFactory("readcoalescer");
+		entityManagers = new ArrayList<>();
+		PersonService personService = personService();
+		EntityManager em = entityManagers.get(0);
+		em.getTransaction().begin();
+		em.unwrap(Session.class).doWork(connection -> {
+			try (Statement statement = connection.createStatement()) {
+				statement.executeUpdate("INSERT INTO PersonEntity (id, name, gender, age) SELECT X, CONCAT('Person ', X), CASEWHEN(MOD(X, 2) = 0, 'f', 'm'), MOD(X, 100)"
+						+ " FROM SYSTEM_RANGE(1, 10000)");
+			}
+		});
+		em.getTransaction().commit();
+		personServices = ThreadLocal.withInitial(this::personService);
+
+		statisticsService = BenchmarkSupport.inject(new RequestStatisticsService(), "parserResources", BenchmarkSupport.parserResources());
+		BenchmarkSupport.inject(statisticsService, "latencyRegistry", new EndpointLatencyRegistry());
+		BenchmarkSupport.inject(statisticsService, "phaseStatistics", new PhaseStatistics());
+		BenchmarkSupport.inject(statisticsService, "datasetStatistics", new DatasetStatisticsService());
+		BenchmarkSupport.inject(statisticsService, "personsCache", new PersonsDocumentCache());
+		for (int i = 0; i < 1000; i++) {
+			statisticsService.recordValidRequest();
+		}
+
+		System.setProperty("personmanagement.coalescing.freshMillis", Integer.toString(freshMillis));
+		readCoalescer = BenchmarkSupport.inject(new ReadCoalescer(), "personService", personService);
+		BenchmarkSupport.inject(readCoalescer, "dataVersion", new DataVersion());
+		BenchmarkSupport.inject(readCoalescer, "statisticsService", statisticsService);
+		requestThreads = Executors.newFixedThreadPool(threads);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		requestThreads.shutdownNow();
+		synchronized (entityManagers) {
+			entityManagers.forEach(EntityManager::close);
+		}
+		entityManagerFactory.close();
+	}
+
+	/**
+	 * Time until every request of the wave has its page.
+	 */
+	@Benchmark
+	public int personsPageWave() throws Exception {
+		boolean coalesced = "coalesced".equals(mode);
+		return wave(() -> {
+			if (coalesced) {
+				return readCoalescer.getPersonsPage(null, pageSize).size();
+			}
+			return personServices.get().getPersonsPage(null, pageSize).size();
+		});
+	}
+
+	/**
+	 * Time until every request of the wave has its statistics.
+	 */
+	@Benchmark
+	public int statisticsWave() throws Exception {
+		boolean coalesced = "coalesced".equals(mode);
+		return wave(() -> (int) (coalesced ? readCoalescer.generateStatistics(null).statistics().getTotalValidRequests()
+				: statisticsService.generateStatistics(false, null).getTotalValidRequests()));
+	}
+
+	private int wave(Callable<Integer> request) throws Exception {
+		List<Future<Integer>> responses = new ArrayList<>(burst);
+		for (int i = 0; i < burst; i++) {
+			responses.add(requestThreads.submit(request));
+		}
+		int total = 0;
+		for (Future<Integer> response : responses) {
+			total += response.get();
+		}
+		return total;
+	}
+
+	private PersonService personService() {
+		EntityManager em = entityManagerFactory.createEntityManager();
+		synchronized (entityManagers) {
+			entityManagers.add(em);
+		}
+		PersonService personService = new PersonService() {
+
+			@Override
+			public List<PersonEntity> getPersonsPage(Long after, int limit) {
+				// A fresh persistence context per query, like the container's
+				em.clear();
+				return super.getPersonsPage(after, limit);
+			}
+		};
+		return BenchmarkSupport.inject(personService, "em", em);
+	}
+}
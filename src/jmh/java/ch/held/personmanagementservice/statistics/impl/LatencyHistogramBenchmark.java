@@ -0,0 +1,62 @@
+package ch.held.personmanagementservice.statistics.impl;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.held.personmanagementservice.model.EndpointLatency;
+
+/**
+ * Recording cost of {@link LatencyHistogram} under contention and the cost of a summary. Run with {@code -prof gc} to confirm that recording does not allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LatencyHistogramBenchmark {
+
+	private final EndpointLatencyRegistry.Recorder recorder = new EndpointLatencyRegistry().recorder("benchmark");
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	@Benchmark
+	@Threads(1)
+	public void record01Thread() {
+		recorder.record(latency());
+	}
+
+	@Benchmark
+	@Threads(8)
+	public void record08Threads() {
+		recorder.record(latency());
+	}
+
+	@Benchmark
+	@Threads(64)
+	public void record64Threads() {
+		recorder.record(latency());
+	}
+
+	@Benchmark
+	@Threads(1)
+	public EndpointLatency summarize() {
+		histogram.record(latency());
+		return histogram.summarize("benchmark", false);
+	}
+
+	private static long latency() {
+		// 50 us to 50 ms, spread over many buckets
+		return ThreadLocalRandom.current().nextLong(50_000, 50_000_000);
+	}
+}
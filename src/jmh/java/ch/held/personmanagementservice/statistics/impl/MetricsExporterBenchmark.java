@@ -0,0 +1,74 @@
+package ch.held.personmanagementservice.statistics.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.held.personmanagementservice.BenchmarkSupport;
+import ch.held.personmanagementservice.writer.PrometheusTextWriter;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.xml.bind.JAXBException;
+
+/**
+ * One scrape of {@link MetricsExporter} with Hibernate statistics enabled, written to a sink that discards the bytes. Run with {@code -prof gc} to see the allocation per scrape.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsExporterBenchmark {
+
+	private EntityManagerFactory entityManagerFactory;
+	private MetricsExporter metricsExporter;
+	private OutputStream sink;
+
+	@Setup
+	public void setUp(Blackhole blackhole) {
+		BenchmarkSupport.quietLogging();
+		entityManagerFactory = BenchmarkSupport.h2EntityManagerFactory("metrics");
+		RequestStatisticsService statisticsService = BenchmarkSupport.inject(new RequestStatisticsService(), "parserResources", BenchmarkSupport.parserResources());
+		statisticsService.recordAddRequest(true, 10, null);
+		statisticsService.recordAddRequest(false, 0, new JAXBException("Invalid document"));
+		metricsExporter = BenchmarkSupport.inject(new MetricsExporter(), "statisticsService", statisticsService);
+		BenchmarkSupport.inject(metricsExporter, "entityManagerFactory", entityManagerFactory);
+		sink = new OutputStream() {
+
+			@Override
+			public void write(int b) {
+				blackhole.consume(b);
+			}
+
+			@Override
+			public void write(byte[] bytes, int offset, int length) {
+				blackhole.consume(bytes);
+			}
+		};
+	}
+
+	@TearDown
+	public void tearDown() {
+		entityManagerFactory.close();
+	}
+
+	@Benchmark
+	public void scrape() throws IOException {
+		try (PrometheusTextWriter writer = new PrometheusTextWriter(sink)) {
+			metricsExporter.write(writer);
+		}
+	}
+}
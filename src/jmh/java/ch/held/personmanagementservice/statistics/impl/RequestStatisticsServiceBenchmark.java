@@ -0,0 +1,111 @@
+package ch.held.personmanagementservice.statistics.impl;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.held.personmanagementservice.BenchmarkSupport;
+import ch.held.personmanagementservice.model.StatisticsEntity;
+import ch.held.personmanagementservice.service.PersonsDocumentCache;
+import jakarta.xml.bind.JAXBException;
+
+/**
+ * Contention of {@link RequestStatisticsService#recordAddRequest(boolean, int, Exception)} with a growing number of threads. {@code errorPercent} controls the share of invalid
+ * requests; a small set of distinct exceptions is reused like repeated bad payloads would produce.
+ * <p>
+ * The measured threads only publish events; the consumer thread folding them runs alongside and competes for the same cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestStatisticsServiceBenchmark {
+
+	private static final int DISTINCT_ERRORS = 16;
+
+	@Param({ "0", "10", "50" })
+	private int errorPercent;
+
+	private RequestStatisticsService statisticsService;
+	private Exception[] errors;
+
+	@Setup
+	public void setUp() {
+		BenchmarkSupport.quietLogging();
+		statisticsService = BenchmarkSupport.inject(new RequestStatisticsService(), "parserResources", BenchmarkSupport.parserResources());
+		BenchmarkSupport.inject(statisticsService, "latencyRegistry", new EndpointLatencyRegistry());
+		BenchmarkSupport.inject(statisticsService, "phaseStatistics", new PhaseStatistics());
+		BenchmarkSupport.inject(statisticsService, "datasetStatistics", new DatasetStatisticsService());
+		BenchmarkSupport.inject(statisticsService, "personsCache", new PersonsDocumentCache());
+		BenchmarkSupport.postConstruct(statisticsService);
+		errors = new Exception[DISTINCT_ERRORS];
+		for (int i = 0; i < DISTINCT_ERRORS; i++) {
+			errors[i] = new JAXBException("Invalid document " + i, new IllegalArgumentException("cause " + i));
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		statisticsService.shutdown();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public void recordAddRequest01Thread() {
+		record();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void recordAddRequest04Threads() {
+		record();
+	}
+
+	@Benchmark
+	@Threads(16)
+	public void recordAddRequest16Threads() {
+		record();
+	}
+
+	@Benchmark
+	@Threads(64)
+	public void recordAddRequest64Threads() {
+		record();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public StatisticsEntity generateStatistics() {
+		return statisticsService.generateStatistics();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public StatisticsEntity generateWindowStatistics() {
+		return statisticsService.generateStatistics(false, StatisticsWindow.ONE_HOUR);
+	}
+
+	private void record() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		if (random.nextInt(100) < errorPercent) {
+			statisticsService.recordAddRequest(false, 0, errors[random.nextInt(DISTINCT_ERRORS)]);
+		} else {
+			statisticsService.recordAddRequest(true, 1, null);
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package ch.held.personmanagementservice.statistics.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scaling of {@link StripedCounters} against a set of shared {@link AtomicLong}s, the layout previously used by {@link RequestStatisticsService}, and the cost of taking snapshots
+ * while writers are running.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StripedCountersBenchmark {
+
+	private final StripedCounters striped = new StripedCounters(4);
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong valid = new AtomicLong();
+	private final AtomicLong added = new AtomicLong();
+
+	@Benchmark
+	@Threads(1)
+	public void striped01Thread() {
+		striped.add(0, 1, 2, 1, 3, 1);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public void striped08Threads() {
+		striped.add(0, 1, 2, 1, 3, 1);
+	}
+
+	@Benchmark
+	@Threads(64)
+	public void striped64Threads() {
+		striped.add(0, 1, 2, 1, 3, 1);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public void atomic01Thread() {
+		addAtomic();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public void atomic08Threads() {
+		addAtomic();
+	}
+
+	@Benchmark
+	@Threads(64)
+	public void atomic64Threads() {
+		addAtomic();
+	}
+
+	@Benchmark
+	@Group("snapshotUnderLoad")
+	@GroupThreads(7)
+	public void writer() {
+		striped.add(0, 1, 2, 1, 3, 1);
+	}
+
+	@Benchmark
+	@Group("snapshotUnderLoad")
+	@GroupThreads(1)
+	public long[] reader() {
+		return striped.snapshot();
+	}
+
+	private void addAtomic() {
+		total.incrementAndGet();
+		valid.incrementAndGet();
+		added.incrementAndGet();
+	}
+}
@@ -0,0 +1,125 @@
+package ch.held.personmanagementservice.util;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.held.personmanagementservice.BenchmarkSupport;
+import ch.held.personmanagementservice.model.PersonsWrapper;
+import ch.held.personmanagementservice.service.DataVersion;
+import ch.held.personmanagementservice.service.PersonService;
+import ch.held.personmanagementservice.service.PersonsDocumentCache;
+import ch.held.personmanagementservice.statistics.impl.DatasetStatisticsService;
+import ch.held.personmanagementservice.statistics.impl.EndpointLatencyRegistry;
+import ch.held.personmanagementservice.statistics.impl.PhaseStatistics;
+import ch.held.personmanagementservice.statistics.impl.RequestStatisticsService;
+import ch.held.personmanagementservice.writer.PersonsMessageBodyWriter;
+import ch.held.personmanagementservice.writer.StatisticsMessageBodyWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.xml.bind.JAXBException;
+
+/**
+ * A dashboard polling {@code GET /persons} and {@code GET /persons/statistics}: the full poll queries and writes the response, the unchanged poll only compares the
+ * {@code If-None-Match} header with the current tag.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConditionalGetBenchmark {
+
+	@Param({ "100", "10000" })
+	private int personCount;
+
+	private EntityManagerFactory entityManagerFactory;
+	private EntityManager em;
+	private PersonService personService;
+	private DataVersion dataVersion;
+	private RequestStatisticsService statisticsService;
+	private PersonsMessageBodyWriter personsWriter;
+	private StatisticsMessageBodyWriter statisticsWriter;
+	private ByteArrayOutputStream out;
+	private String personsIfNoneMatch;
+	private String statisticsIfNoneMatch;
+
+	@Setup
+	public void setUp() {
+		BenchmarkSupport.quietLogging();
+		entityManagerFactory = BenchmarkSupport.h2EntityManagerFactory("conditionalget");
+		em = entityManagerFactory.createEntityManager();
+		personService = BenchmarkSupport.inject(new PersonService(), "em", em);
+		em.getTransaction().begin();
+		em.unwrap(Session.class).doWork(connection -> {
+			try (Statement statement = connection.createStatement()) {
+				statement.executeUpdate("INSERT INTO PersonEntity (id, name, gender, age) SELECT X, CONCAT('Person ', X), CASEWHEN(MOD(X, 2) = 0, 'f', 'm'), MOD(X, 100)"
+						+ " FROM SYSTEM_RANGE(1, " + personCount + ")");
+			}
+		});
+		em.getTransaction().commit();
+
+		dataVersion = new DataVersion();
+		statisticsService = BenchmarkSupport.inject(new RequestStatisticsService(), "parserResources", BenchmarkSupport.parserResources());
+		BenchmarkSupport.inject(statisticsService, "latencyRegistry", new EndpointLatencyRegistry());
+		BenchmarkSupport.inject(statisticsService, "phaseStatistics", new PhaseStatistics());
+		BenchmarkSupport.inject(statisticsService, "datasetStatistics", new DatasetStatisticsService());
+		BenchmarkSupport.inject(statisticsService, "personsCache", new PersonsDocumentCache());
+		statisticsService.recordAddRequest(true, personCount, null);
+		statisticsService.recordAddRequest(false, 0, new JAXBException("Invalid document"));
+		personsWriter = new PersonsMessageBodyWriter();
+		statisticsWriter = new StatisticsMessageBodyWriter();
+		out = new ByteArrayOutputStream(personCount * 100 + 1024);
+		personsIfNoneMatch = '"' + dataVersion.tag() + '"';
+		statisticsIfNoneMatch = "W/\"" + statisticsService.statisticsTag(null) + '"';
+	}
+
+	@TearDown
+	public void tearDown() {
+		em.close();
+		entityManagerFactory.close();
+	}
+
+	@Benchmark
+	public int personsFullPoll() throws Exception {
+		dataVersion.tag();
+		// A fresh persistence context per request, like the container's
+		em.clear();
+		out.reset();
+		personsWriter.writeTo(new PersonsWrapper(personService.getAllPersons()), PersonsWrapper.class, PersonsWrapper.class, null, null, null, out);
+		return out.size();
+	}
+
+	@Benchmark
+	public boolean personsUnchangedPoll() {
+		return EntityTags.matches(personsIfNoneMatch, dataVersion.tag());
+	}
+
+	@Benchmark
+	public int statisticsFullPoll() throws Exception {
+		statisticsService.statisticsTag(null);
+		out.reset();
+		statisticsWriter.writeTo(statisticsService.generateStatistics(), null, null, null, null, null, out);
+		return out.size();
+	}
+
+	@Benchmark
+	public boolean statisticsUnchangedPoll() {
+		return EntityTags.matches(statisticsIfNoneMatch, statisticsService.statisticsTag(null));
+	}
+}
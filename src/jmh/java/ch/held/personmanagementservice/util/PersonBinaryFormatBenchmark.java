@@ -0,0 +1,117 @@
+package ch.held.personmanagementservice.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.held.personmanagementservice.BenchmarkSupport;
+import ch.held.personmanagementservice.model.PersonEntity;
+import ch.held.personmanagementservice.parser.BinaryPersonStreamReader;
+import ch.held.personmanagementservice.parser.PersonStreamReader;
+import ch.held.personmanagementservice.parser.XmlPersonParser;
+import ch.held.personmanagementservice.writer.PersonBinaryWriter;
+import ch.held.personmanagementservice.writer.PersonXmlWriter;
+
+/**
+ * Bulk import and export in the {@link PersonBinaryFormat} against the XML path, for the same persons. Reading: {@code binaryRecords} decodes without creating objects,
+ * {@code binaryStream} hands out persons as {@code POST /persons/add} does, {@code xmlStream} is {@code POST /persons/add/stream}. Writing: the binary and the StAX writer as used
+ * when streaming all persons. Run with {@code -prof gc} to compare allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonBinaryFormatBenchmark {
+
+	@Param({ "1000", "100000" })
+	private int personCount;
+
+	private XmlPersonParser xmlParser;
+	private List<PersonEntity> persons;
+	private byte[] binary;
+	private byte[] xml;
+	private ByteArrayOutputStream out;
+
+	@Setup
+	public void setUp() throws Exception {
+		BenchmarkSupport.quietLogging();
+		xmlParser = BenchmarkSupport.xmlPersonParser();
+		persons = new ArrayList<>(personCount);
+		for (long id = 1; id <= personCount; id++) {
+			persons.add(BenchmarkSupport.personEntity(id));
+		}
+		out = new ByteArrayOutputStream(personCount * 100 + 128);
+		binaryWriter();
+		binary = out.toByteArray();
+		xml = BenchmarkSupport.personsXml(personCount).getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public long binaryRecords() throws Exception {
+		long ages = 0;
+		try (BinaryPersonStreamReader reader = new BinaryPersonStreamReader(new ByteArrayInputStream(binary))) {
+			while (reader.nextRecord()) {
+				ages += reader.getAge() + reader.getName().length();
+			}
+		}
+		return ages;
+	}
+
+	@Benchmark
+	public void binaryStream(Blackhole blackhole) {
+		try (BinaryPersonStreamReader reader = new BinaryPersonStreamReader(new ByteArrayInputStream(binary))) {
+			while (reader.hasNext()) {
+				blackhole.consume(reader.next());
+			}
+		}
+	}
+
+	@Benchmark
+	public void xmlStream(Blackhole blackhole) throws Exception {
+		try (PersonStreamReader reader = xmlParser.streamPersons(new ByteArrayInputStream(xml))) {
+			while (reader.hasNext()) {
+				blackhole.consume(reader.next());
+			}
+		}
+	}
+
+	@Benchmark
+	public int binaryWriter() throws Exception {
+		out.reset();
+		try (PersonBinaryWriter writer = PersonBinaryWriter.open(out, null)) {
+			for (PersonEntity person : persons) {
+				writer.writePerson(person);
+			}
+		}
+		return out.size();
+	}
+
+	@Benchmark
+	public int xmlWriter() throws Exception {
+		out.reset();
+		try (PersonXmlWriter writer = PersonXmlWriter.open(out, null)) {
+			for (PersonEntity person : persons) {
+				writer.writePerson(person);
+			}
+		}
+		return out.size();
+	}
+}
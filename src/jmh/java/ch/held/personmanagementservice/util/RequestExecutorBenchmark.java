@@ -0,0 +1,171 @@
+package ch.held.personmanagementservice.util;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.held.personmanagementservice.BenchmarkSupport;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.TimeoutHandler;
+
+/**
+ * Load test of the {@link RequestExecutor}: a burst of requests that each block for {@code blockMillis}, like a request waiting for JDBC or a slow upload. Compares a platform pool
+ * the size of a container worker pool with virtual threads. On Java 17 the {@code virtual} variant falls back to platform threads, which the executor logs at startup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestExecutorBenchmark {
+
+	@Param({ "platform", "virtual" })
+	private String threads;
+
+	@Param({ "16" })
+	private int poolSize;
+
+	@Param({ "256" })
+	private int burst;
+
+	@Param({ "5" })
+	private int blockMillis;
+
+	private RequestExecutor requestExecutor;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		BenchmarkSupport.quietLogging();
+		System.setProperty("personmanagement.async.enabled", "true");
+		System.setProperty("personmanagement.async.virtualThreads", Boolean.toString("virtual".equals(threads)));
+		System.setProperty("personmanagement.async.poolSize", Integer.toString(poolSize));
+		System.setProperty("personmanagement.async.queueSize", Integer.toString(burst));
+		requestExecutor = BenchmarkSupport.postConstruct(new RequestExecutor());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		requestExecutor.shutdown();
+	}
+
+	/**
+	 * Time until every request of the burst is answered.
+	 */
+	@Benchmark
+	public void blockingBurst() throws InterruptedException {
+		CountDownLatch done = new CountDownLatch(burst);
+		for (int i = 0; i < burst; i++) {
+			requestExecutor.execute(new LatchResponse(done), () -> {
+				try {
+					Thread.sleep(blockMillis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return null;
+			});
+		}
+		done.await();
+	}
+
+	/**
+	 * Minimal suspended response that counts down a latch when it is resumed.
+	 */
+	private static final class LatchResponse implements AsyncResponse {
+
+		private final CountDownLatch done;
+		private volatile boolean resumed;
+
+		LatchResponse(CountDownLatch done) {
+			this.done = done;
+		}
+
+		@Override
+		public boolean resume(Object response) {
+			resumed = true;
+			done.countDown();
+			return true;
+		}
+
+		@Override
+		public boolean resume(Throwable response) {
+			return resume((Object) response);
+		}
+
+		@Override
+		public boolean cancel() {
+			return false;
+		}
+
+		@Override
+		public boolean cancel(int retryAfter) {
+			return false;
+		}
+
+		@Override
+		public boolean cancel(Date retryAfter) {
+			return false;
+		}
+
+		@Override
+		public boolean isSuspended() {
+			return !resumed;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return false;
+		}
+
+		@Override
+		public boolean isDone() {
+			return resumed;
+		}
+
+		@Override
+		public boolean setTimeout(long time, TimeUnit unit) {
+			return true;
+		}
+
+		@Override
+		public void setTimeoutHandler(TimeoutHandler handler) {
+			// timeouts are not part of the measurement
+		}
+
+		@Override
+		public Collection<Class<?>> register(Class<?> callback) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Map<Class<?>, Collection<Class<?>>> register(Class<?> callback, Class<?>... callbacks) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Collection<Class<?>> register(Object callback) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Map<Class<?>, Collection<Class<?>>> register(Object callback, Object... callbacks) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
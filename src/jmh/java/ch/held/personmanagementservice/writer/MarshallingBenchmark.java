@@ -0,0 +1,80 @@
+package ch.held.personmanagementservice.writer;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.held.personmanagementservice.BenchmarkSupport;
+import ch.held.personmanagementservice.model.PersonEntity;
+import ch.held.personmanagementservice.model.PersonsWrapper;
+import ch.held.personmanagementservice.parser.ParserResources;
+
+/**
+ * Response marshalling of {@link PersonsWrapper}: the reflective JAXB path against the hand-written StAX {@link PersonsMessageBodyWriter} and the JSON-P
+ * {@link PersonsJsonMessageBodyWriter}. Run with {@code -prof gc} to compare allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MarshallingBenchmark {
+
+	@Param({ "1", "100", "10000" })
+	private int personCount;
+
+	private ParserResources parserResources;
+	private PersonsMessageBodyWriter messageBodyWriter;
+	private PersonsJsonMessageBodyWriter jsonMessageBodyWriter;
+	private PersonsWrapper wrapper;
+	private ByteArrayOutputStream out;
+
+	@Setup
+	public void setUp() {
+		BenchmarkSupport.quietLogging();
+		parserResources = BenchmarkSupport.parserResources();
+		messageBodyWriter = new PersonsMessageBodyWriter();
+		jsonMessageBodyWriter = new PersonsJsonMessageBodyWriter();
+		List<PersonEntity> persons = new ArrayList<>(personCount);
+		for (long id = 1; id <= personCount; id++) {
+			persons.add(BenchmarkSupport.personEntity(id));
+		}
+		wrapper = new PersonsWrapper(persons);
+		out = new ByteArrayOutputStream(personCount * 100 + 128);
+	}
+
+	@Benchmark
+	public int jaxbMarshaller() throws Exception {
+		out.reset();
+		parserResources.marshal(wrapper, out);
+		return out.size();
+	}
+
+	@Benchmark
+	public int staxMessageBodyWriter() throws Exception {
+		out.reset();
+		messageBodyWriter.writeTo(wrapper, PersonsWrapper.class, PersonsWrapper.class, null, null, null, out);
+		return out.size();
+	}
+
+	@Benchmark
+	public int jsonMessageBodyWriter() throws Exception {
+		out.reset();
+		jsonMessageBodyWriter.writeTo(wrapper, PersonsWrapper.class, PersonsWrapper.class, null, null, null, out);
+		return out.size();
+	}
+}
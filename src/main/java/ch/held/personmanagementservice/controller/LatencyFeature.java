@@ -0,0 +1,33 @@
+package ch.held.personmanagementservice.controller;
+
+import ch.held.personmanagementservice.statistics.impl.EndpointLatencyRegistry;
+import ch.held.personmanagementservice.statistics.impl.PhaseStatistics;
+import ch.held.personmanagementservice.util.ServiceConfiguration;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.DynamicFeature;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.FeatureContext;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Registers a {@link LatencyFilter} and a {@link PhaseTimingFilter} for every method of {@link PersonController}. The endpoint is named after the resource method.
+ */
+@Provider
+@ApplicationScoped
+public class LatencyFeature implements DynamicFeature {
+
+	@Inject
+	private EndpointLatencyRegistry latencyRegistry;
+
+	@Inject
+	private PhaseStatistics phaseStatistics;
+
+	@Override
+	public void configure(ResourceInfo resourceInfo, FeatureContext context) {
+		if (resourceInfo.getResourceClass() == PersonController.class) {
+			context.register(new LatencyFilter(latencyRegistry.recorder(resourceInfo.getResourceMethod().getName())));
+			context.register(new PhaseTimingFilter(phaseStatistics, ServiceConfiguration.serverTiming()));
+		}
+	}
+}
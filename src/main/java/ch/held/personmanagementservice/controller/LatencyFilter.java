@@ -0,0 +1,53 @@
+package ch.held.personmanagementservice.controller;
+
+import java.io.IOException;
+
+import ch.held.personmanagementservice.statistics.impl.EndpointLatencyRegistry;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Measures the latency of one resource method, from the start of request filtering until the response entity is written. Responses without entity are recorded by the response
+ * filter, all others by the writer interceptor, so marshalling and streamed bodies are part of the measurement.
+ */
+class LatencyFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+	private static final String START_PROPERTY = LatencyFilter.class.getName() + ".start";
+
+	private final EndpointLatencyRegistry.Recorder recorder;
+
+	LatencyFilter(EndpointLatencyRegistry.Recorder recorder) {
+		this.recorder = recorder;
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext) {
+		requestContext.setProperty(START_PROPERTY, System.nanoTime());
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+		if (!responseContext.hasEntity()) {
+			record(requestContext.getProperty(START_PROPERTY));
+		}
+	}
+
+	@Override
+	public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+		try {
+			context.proceed();
+		} finally {
+			record(context.getProperty(START_PROPERTY));
+		}
+	}
+
+	private void record(Object start) {
+		if (start instanceof Long startNanos) {
+			recorder.record(System.nanoTime() - startNanos);
+		}
+	}
+}
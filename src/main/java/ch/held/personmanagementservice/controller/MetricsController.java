@@ -0,0 +1,36 @@
+package ch.held.personmanagementservice.controller;
+
+import ch.held.personmanagementservice.statistics.impl.MetricsExporter;
+import ch.held.personmanagementservice.writer.PrometheusTextWriter;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+/**
+ * Prometheus scrape endpoint. Scrapes are neither counted as requests nor timed, so they do not show up in the metrics they read.
+ */
+@Path("/metrics")
+@RequestScoped
+public class MetricsController {
+
+	@Inject
+	private MetricsExporter metricsExporter;
+
+	/**
+	 * @return all metrics in the Prometheus text exposition format, written directly to the response stream.
+	 */
+	@GET
+	@Produces(PrometheusTextWriter.CONTENT_TYPE)
+	public Response getMetrics() {
+		StreamingOutput metrics = output -> {
+			try (PrometheusTextWriter writer = new PrometheusTextWriter(output)) {
+				metricsExporter.write(writer);
+			}
+		};
+		return Response.ok(metrics).build();
+	}
+}
@@ -1,35 +1,81 @@
 package ch.held.personmanagementservice.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.xml.stream.XMLStreamException;
+
+import ch.held.personmanagementservice.model.BulkOperationResult;
+import ch.held.personmanagementservice.model.DatasetCheck;
+import ch.held.personmanagementservice.model.IngestJobStatus;
+import ch.held.personmanagementservice.model.NameMatches;
 import ch.held.personmanagementservice.model.PersonEntity;
+import ch.held.personmanagementservice.model.PersonUpdates;
 import ch.held.personmanagementservice.model.PersonsWrapper;
 import ch.held.personmanagementservice.model.StatisticsEntity;
+import ch.held.personmanagementservice.parser.BinaryPersonStreamReader;
+import ch.held.personmanagementservice.parser.JsonPersonParser;
+import ch.held.personmanagementservice.parser.JsonPersonStreamReader;
+import ch.held.personmanagementservice.parser.PersonStreamException;
+import ch.held.personmanagementservice.parser.PersonStreamReader;
 import ch.held.personmanagementservice.parser.XmlPersonParser;
+import ch.held.personmanagementservice.search.NameIndex;
+import ch.held.personmanagementservice.service.DataVersion;
+import ch.held.personmanagementservice.service.IngestJob;
+import ch.held.personmanagementservice.service.IngestQueue;
+import ch.held.personmanagementservice.service.PersonSearch;
 import ch.held.personmanagementservice.service.PersonService;
+import ch.held.personmanagementservice.service.PersonsDocumentCache;
+import ch.held.personmanagementservice.service.ReadCoalescer;
+import ch.held.personmanagementservice.statistics.impl.DatasetStatisticsService;
+import ch.held.personmanagementservice.statistics.impl.Phase;
+import ch.held.personmanagementservice.statistics.impl.PhaseTimer;
 import ch.held.personmanagementservice.statistics.impl.RequestStatisticsService;
+import ch.held.personmanagementservice.statistics.impl.StatisticsWindow;
+import ch.held.personmanagementservice.util.EntityTags;
+import ch.held.personmanagementservice.util.PersonBinaryFormat;
+import ch.held.personmanagementservice.util.RequestExecutor;
+import ch.held.personmanagementservice.util.ServiceConfiguration;
+import ch.held.personmanagementservice.writer.PersonBinaryWriter;
+import ch.held.personmanagementservice.writer.PersonJsonWriter;
+import ch.held.personmanagementservice.writer.PersonXmlWriter;
 import generated.Person;
 import generated.Persons;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
+import jakarta.json.JsonException;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.xml.bind.JAXBException;
 
 /**
- * REST controller for managing persons and the statistic.
+ * REST controller for managing persons and the statistic. Endpoints that block on XML processing or the database suspend the request and run on the {@link RequestExecutor}.
  */
 @Path("/persons")
 @RequestScoped
@@ -38,6 +84,11 @@ public class PersonController {
 
 	private static final Logger LOGGER = Logger.getLogger(PersonController.class.getName());
 
+	// The JSON and binary documents are different representations of the persons and get their own tags
+	private static final String JSON_TAG_SUFFIX = "-json";
+	private static final String BINARY_TAG_SUFFIX = "-bin";
+	private static final MediaType BINARY_TYPE = MediaType.valueOf(PersonBinaryFormat.MEDIA_TYPE);
+
 	@Inject
 	private PersonService personService;
 
@@ -47,36 +98,323 @@ public class PersonController {
 	@Inject
 	private XmlPersonParser xmlPersonParser;
 
+	@Inject
+	private JsonPersonParser jsonPersonParser;
+
+	@Inject
+	private RequestExecutor requestExecutor;
+
+	@Inject
+	private IngestQueue ingestQueue;
+
+	@Inject
+	private NameIndex nameIndex;
+
+	@Inject
+	private DatasetStatisticsService datasetStatistics;
+
+	@Inject
+	private DataVersion dataVersion;
+
+	@Inject
+	private PersonsDocumentCache personsCache;
+
+	@Inject
+	private ReadCoalescer readCoalescer;
+
+	/**
+	 * Retrieves all persons, or a single page of persons if {@code after} or {@code limit} is given. Pages are ordered by id; the {@code nextCursor} attribute of a page is the
+	 * {@code after} value for the next one and is missing on the last page.
+	 * <p>
+	 * Responses carry the {@link DataVersion} as ETag; a request with a matching {@code If-None-Match} is answered with {@code 304} without querying the persons. All persons are
+	 * served from the {@link PersonsDocumentCache}, gzip-encoded if the client accepts it, or streamed if the document is too large to cache. Concurrent requests for the same page
+	 * share one query through the {@link ReadCoalescer}.
+	 *
+	 * @param after          The id after which the page starts (exclusive), optional.
+	 * @param limit          The maximum number of persons in the page, optional.
+	 * @param ifNoneMatch    The ETags the client holds, optional.
+	 * @param acceptEncoding The content codings the client accepts, optional.
+	 * @param asyncResponse  Resumed with a response containing all persons or the requested page.
+	 */
+	@GET
+	@Produces(MediaType.APPLICATION_XML)
+	public void getAllPersons(@QueryParam("after") Long after, @QueryParam("limit") Integer limit, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+			@HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding, @Suspended AsyncResponse asyncResponse) {
+		boolean gzip = after == null && limit == null && acceptsGzip(acceptEncoding);
+		// Read before the query, a change committed in between only makes the next request miss
+		String tag = personsTag(dataVersion.current(), gzip);
+		if (EntityTags.matches(ifNoneMatch, tag)) {
+			statisticsService.recordValidRequest();
+			asyncResponse.resume(Response.notModified(new EntityTag(tag)).build());
+			return;
+		}
+		requestExecutor.execute(asyncResponse, () -> getAllPersonsBlocking(after, limit, tag, gzip));
+	}
+
+	private Response getAllPersonsBlocking(Long after, Integer limit, String tag, boolean gzip) {
+		if (after == null && limit == null) {
+			LOGGER.info("Retrieving all persons.");
+			PersonsDocumentCache.Document document = personsCache.get();
+			if (document == null) {
+				return streamAllPersonsBlocking();
+			}
+			statisticsService.recordValidRequest();
+			Response.ResponseBuilder response = gzip ? Response.ok(document.gzip()).encoding("gzip") : Response.ok(document.xml());
+			return response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+					.tag(new EntityTag(personsTag(document.version(), gzip))).build();
+		}
+		return getPersonsPage(after, limit, tag, MediaType.APPLICATION_XML_TYPE);
+	}
+
+	/**
+	 * Retrieves all persons or a page of persons as JSON, {@code {"nextCursor": ..., "persons": [...]}}. All persons are streamed from the database while the response is written,
+	 * pages are read like their XML form. Clients that accept XML and JSON alike get XML.
+	 *
+	 * @param after         The id after which the page starts (exclusive), optional.
+	 * @param limit         The maximum number of persons in the page, optional.
+	 * @param ifNoneMatch   The ETags the client holds, optional.
+	 * @param asyncResponse Resumed with a response containing all persons or the requested page.
+	 */
+	@GET
+	@Produces(MediaType.APPLICATION_JSON + ";qs=0.9")
+	public void getAllPersonsJson(@QueryParam("after") Long after, @QueryParam("limit") Integer limit, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+			@Suspended AsyncResponse asyncResponse) {
+		String tag = personsTag(dataVersion.current(), false) + JSON_TAG_SUFFIX;
+		if (EntityTags.matches(ifNoneMatch, tag)) {
+			statisticsService.recordValidRequest();
+			asyncResponse.resume(Response.notModified(new EntityTag(tag)).build());
+			return;
+		}
+		requestExecutor.execute(asyncResponse, () -> getAllPersonsJsonBlocking(after, limit, tag));
+	}
+
+	private Response getAllPersonsJsonBlocking(Long after, Integer limit, String tag) {
+		if (after != null || limit != null) {
+			return getPersonsPage(after, limit, tag, MediaType.APPLICATION_JSON_TYPE);
+		}
+		LOGGER.info("Streaming all persons as JSON.");
+		StreamingOutput stream = output -> {
+			try (PersonJsonWriter writer = PersonJsonWriter.open(output, null)) {
+				writer.flush();
+				personService.streamAllPersons(writer::writePerson);
+			} catch (JsonException e) {
+				throw new IOException(e);
+			}
+		};
+		statisticsService.recordValidRequest();
+		return Response.ok(stream, MediaType.APPLICATION_JSON_TYPE).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).tag(new EntityTag(tag)).build();
+	}
+
+	/**
+	 * Retrieves all persons or a page of persons in the compact {@link PersonBinaryFormat}, for bulk export. All persons are streamed from the database while the response is
+	 * written. Only clients that ask for the format get it.
+	 *
+	 * @param after         The id after which the page starts (exclusive), optional.
+	 * @param limit         The maximum number of persons in the page, optional.
+	 * @param ifNoneMatch   The ETags the client holds, optional.
+	 * @param asyncResponse Resumed with a response containing all persons or the requested page.
+	 */
+	@GET
+	@Produces(PersonBinaryFormat.MEDIA_TYPE + ";qs=0.5")
+	public void getAllPersonsBinary(@QueryParam("after") Long after, @QueryParam("limit") Integer limit, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+			@Suspended AsyncResponse asyncResponse) {
+		String tag = personsTag(dataVersion.current(), false) + BINARY_TAG_SUFFIX;
+		if (EntityTags.matches(ifNoneMatch, tag)) {
+			statisticsService.recordValidRequest();
+			asyncResponse.resume(Response.notModified(new EntityTag(tag)).build());
+			return;
+		}
+		requestExecutor.execute(asyncResponse, () -> getAllPersonsBinaryBlocking(after, limit, tag));
+	}
+
+	private Response getAllPersonsBinaryBlocking(Long after, Integer limit, String tag) {
+		if (after != null || limit != null) {
+			return getPersonsPage(after, limit, tag, BINARY_TYPE);
+		}
+		LOGGER.info("Streaming all persons in the binary format.");
+		StreamingOutput stream = output -> {
+			PersonBinaryWriter writer = PersonBinaryWriter.open(output, null);
+			writer.flush();
+			try {
+				personService.streamAllPersons(person -> {
+					try {
+						writer.writePerson(person);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			// Only a complete export gets the end marker, a failed one stays recognizably truncated
+			writer.close();
+		};
+		statisticsService.recordValidRequest();
+		return Response.ok(stream, BINARY_TYPE).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).tag(new EntityTag(tag)).build();
+	}
+
+	/**
+	 * @return a page of persons in the given representation; the media type is set explicitly since the JSON method's server quality is no part of it.
+	 */
+	private Response getPersonsPage(Long after, Integer limit, String tag, MediaType type) {
+		int pageSize = limit != null ? limit : ServiceConfiguration.defaultPageSize();
+		if (pageSize < 1 || pageSize > ServiceConfiguration.maxPageSize()) {
+			return badRequest("limit must be between 1 and " + ServiceConfiguration.maxPageSize());
+		}
+		LOGGER.log(Level.INFO, "Retrieving persons page after ID {0}.", after);
+		List<PersonEntity> personList = readCoalescer.getPersonsPage(after, pageSize);
+		PersonsWrapper wrapper;
+		if (personList.size() > pageSize) {
+			wrapper = new PersonsWrapper(personList.subList(0, pageSize));
+			wrapper.setNextCursor(personList.get(pageSize - 1).getId());
+		} else {
+			wrapper = new PersonsWrapper(personList);
+		}
+		statisticsService.recordValidRequest();
+		return Response.ok(wrapper, type).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).tag(new EntityTag(tag)).build();
+	}
+
 	/**
-	 * Retrieves all persons.
+	 * Searches persons by gender, age range and name prefix. Filters that are not given are not applied; the query is served by database indexes.
 	 *
-	 * @return A response containing all persons.
+	 * @param gender        The gender, {@code f} or {@code m}, optional.
+	 * @param minAge        The minimum age (inclusive), optional.
+	 * @param maxAge        The maximum age (inclusive), optional.
+	 * @param namePrefix    The start of the name (case-sensitive), optional.
+	 * @param sort          The sort key: {@code id} (default), {@code name} or {@code age}.
+	 * @param order         The sort order: {@code asc} (default) or {@code desc}.
+	 * @param limit         The maximum number of persons, optional.
+	 * @param asyncResponse Resumed with the matching persons.
 	 */
 	@GET
+	@Path("/search")
 	@Produces(MediaType.APPLICATION_XML)
-	public Response getAllPersons() {
-		LOGGER.info("Retrieving all persons.");
-		List<PersonEntity> personList = personService.getAllPersons();
-		PersonsWrapper wrapper = new PersonsWrapper(personList);
+	public void searchPersons(@QueryParam("gender") String gender, @QueryParam("minAge") Integer minAge, @QueryParam("maxAge") Integer maxAge,
+			@QueryParam("namePrefix") String namePrefix, @QueryParam("sort") @DefaultValue("id") String sort, @QueryParam("order") @DefaultValue("asc") String order,
+			@QueryParam("limit") Integer limit, @Suspended AsyncResponse asyncResponse) {
+		requestExecutor.execute(asyncResponse, () -> searchPersonsBlocking(gender, minAge, maxAge, namePrefix, sort, order, limit));
+	}
+
+	private Response searchPersonsBlocking(String gender, Integer minAge, Integer maxAge, String namePrefix, String sort, String order, Integer limit) {
+		if (gender != null && !gender.matches("[fm]")) {
+			return badRequest("gender must be 'f' or 'm'");
+		}
+		PersonSearch.SortKey sortKey;
+		try {
+			sortKey = PersonSearch.SortKey.valueOf(sort.toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			return badRequest("sort must be one of id, name, age");
+		}
+		if (!order.equals("asc") && !order.equals("desc")) {
+			return badRequest("order must be asc or desc");
+		}
+		int maxResults = limit != null ? limit : ServiceConfiguration.defaultPageSize();
+		if (maxResults < 1 || maxResults > ServiceConfiguration.maxPageSize()) {
+			return badRequest("limit must be between 1 and " + ServiceConfiguration.maxPageSize());
+		}
+
+		LOGGER.info("Searching persons.");
+		List<PersonEntity> personList = personService.searchPersons(new PersonSearch(gender, minAge, maxAge, namePrefix, sortKey, order.equals("desc"), maxResults));
 		statisticsService.recordValidRequest();
-		return Response.ok(wrapper).build();
+		return Response.ok(new PersonsWrapper(personList)).build();
 	}
 
+	/**
+	 * Looks persons up by a part of their name in the in-memory {@link NameIndex}. Case and diacritics are ignored; unless {@code fuzzy} is false, names with typos are found as
+	 * well. Names containing the query are ranked first.
+	 *
+	 * @param query         At least three letters or digits of the name.
+	 * @param fuzzy         Whether names that do not contain the query but are similar to it match, default {@code true}.
+	 * @param limit         The maximum number of matches, optional.
+	 * @param asyncResponse Resumed with the ranked matches, or 503 while the index is built after startup.
+	 */
+	@GET
+	@Path("/names")
+	@Produces(MediaType.APPLICATION_XML)
+	public void findPersonsByName(@QueryParam("q") String query, @QueryParam("fuzzy") @DefaultValue("true") boolean fuzzy, @QueryParam("limit") Integer limit,
+			@Suspended AsyncResponse asyncResponse) {
+		requestExecutor.execute(asyncResponse, () -> findPersonsByNameBlocking(query, fuzzy, limit));
+	}
+
+	private Response findPersonsByNameBlocking(String query, boolean fuzzy, Integer limit) {
+		int maxResults = limit != null ? limit : ServiceConfiguration.defaultPageSize();
+		if (maxResults < 1 || maxResults > ServiceConfiguration.maxPageSize()) {
+			return badRequest("limit must be between 1 and " + ServiceConfiguration.maxPageSize());
+		}
+		if (query == null) {
+			return badRequest("q is required");
+		}
+		if (!nameIndex.isReady()) {
+			return Response.status(Response.Status.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, 1).entity("Name index is being built").build();
+		}
+
+		LOGGER.log(Level.INFO, "Looking up persons by name {0}.", query);
+		try {
+			NameMatches matches = new NameMatches(nameIndex.search(query, maxResults, fuzzy));
+			statisticsService.recordValidRequest();
+			return Response.ok(matches).build();
+		} catch (IllegalArgumentException e) {
+			return badRequest(e.getMessage());
+		}
+	}
+
+	/**
+	 * Streams all persons as XML while they are read from the database. The response is written incrementally, so the first bytes are sent right away and memory use does not depend
+	 * on the number of persons.
+	 *
+	 * @param asyncResponse Resumed with a response streaming all persons.
+	 */
+	@GET
+	@Path("/stream")
+	@Produces(MediaType.APPLICATION_XML)
+	public void streamAllPersons(@Suspended AsyncResponse asyncResponse) {
+		requestExecutor.execute(asyncResponse, this::streamAllPersonsBlocking);
+	}
+
+	private Response streamAllPersonsBlocking() {
+		LOGGER.info("Streaming all persons.");
+		StreamingOutput stream = output -> {
+			try (PersonXmlWriter writer = PersonXmlWriter.open(output, null)) {
+				writer.flush();
+				personService.streamAllPersons(person -> {
+					try {
+						writer.writePerson(person);
+					} catch (XMLStreamException e) {
+						throw new UncheckedIOException(new IOException(e));
+					}
+				});
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		};
+		statisticsService.recordValidRequest();
+		return Response.ok(stream).build();
+	}
+
+	/**
+	 * Adds the persons of an XML document in one transaction.
+	 *
+	 * @param personXml     The persons document in XML format.
+	 * @param asyncResponse Resumed with a response indicating how many persons were created.
+	 */
 	@POST
 	@Path("/add")
 	@Consumes(MediaType.TEXT_PLAIN)
 	@Produces(MediaType.TEXT_PLAIN)
-	public Response addPerson(String personXml) {
+	public void addPerson(String personXml, @Suspended AsyncResponse asyncResponse) {
+		requestExecutor.execute(asyncResponse, () -> addPersonBlocking(personXml));
+	}
+
+	private Response addPersonBlocking(String personXml) {
 		LOGGER.log(Level.INFO, "Attempting to add person with provided XML: {0}", personXml);
 		try {
 			xmlPersonParser.validateXml(personXml);
 			Persons personsToAdd = xmlPersonParser.parseXml(personXml);
 
-			int personsAddedCount = 0;
-			for (Person person : personsToAdd.getPerson()) {
-				personService.addPerson(person);
-				personsAddedCount++;
-			}
+			// Timed outside of the transactional service call so the commit is included
+			int personsAddedCount = PhaseTimer.time(Phase.PERSIST, () -> personService.addPersons(personsToAdd)).getTotalPersisted();
 
 			statisticsService.recordAddRequest(true, personsAddedCount, null);
 			return Response.status(Response.Status.CREATED).entity(personsAddedCount + " person/s created").build();
@@ -92,18 +430,221 @@ public class PersonController {
 		}
 	}
 
+	/**
+	 * Adds persons from an XML document that is read as a stream. Persons are validated and persisted batch by batch while the request body is read, so heap usage does not depend on
+	 * the upload size. The whole document is added in one transaction.
+	 *
+	 * @param personXml     The persons document in XML format.
+	 * @param asyncResponse Resumed with a response indicating how many persons were created.
+	 */
+	@POST
+	@Path("/add/stream")
+	@Consumes({ MediaType.TEXT_PLAIN, MediaType.APPLICATION_XML })
+	@Produces(MediaType.TEXT_PLAIN)
+	public void addPersonsStreaming(InputStream personXml, @Suspended AsyncResponse asyncResponse) {
+		requestExecutor.execute(asyncResponse, () -> addPersonsStreamingBlocking(personXml));
+	}
+
+	private Response addPersonsStreamingBlocking(InputStream personXml) {
+		LOGGER.info("Attempting to add persons from streamed XML.");
+		try (PersonStreamReader personsToAdd = xmlPersonParser.streamPersons(personXml)) {
+			int personsAddedCount = PhaseTimer.time(Phase.PERSIST, () -> personService.addPersons(personsToAdd)).getTotalPersisted();
+
+			statisticsService.recordAddRequest(true, personsAddedCount, null);
+			return Response.status(Response.Status.CREATED).entity(personsAddedCount + " person/s created").build();
+		} catch (PersonStreamException e) {
+			statisticsService.recordAddRequest(false, 0, e.getOriginalException());
+			return createErrorResponse(e.getOriginalException(), Response.Status.BAD_REQUEST, "XML Streaming Exception");
+		} catch (JAXBException | XMLStreamException e) {
+			statisticsService.recordAddRequest(false, 0, e);
+			return createErrorResponse(e, Response.Status.BAD_REQUEST, "XML Streaming Exception");
+		} catch (ConstraintViolationException e) {
+			statisticsService.recordAddRequest(false, 0, e);
+			return createErrorResponse(e, Response.Status.BAD_REQUEST, "Constraint Violation Exception");
+		} catch (Exception e) {
+			statisticsService.recordAddRequest(false, 0, e);
+			return createErrorResponse(e, Response.Status.INTERNAL_SERVER_ERROR, "Internal Server Error");
+		}
+	}
+
+	/**
+	 * Adds the persons of a JSON document, {@code {"persons": [{"name": ..., "gender": ..., "age": ...}, ...]}}, in one transaction. The document is read as a stream: persons are
+	 * validated with the rules of the XSD and persisted batch by batch while the request body is read.
+	 *
+	 * @param personJson    The persons document in JSON format.
+	 * @param asyncResponse Resumed with a response indicating how many persons were created.
+	 */
+	@POST
+	@Path("/add")
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.TEXT_PLAIN)
+	public void addPersonsJson(InputStream personJson, @Suspended AsyncResponse asyncResponse) {
+		requestExecutor.execute(asyncResponse, () -> addPersonsJsonBlocking(personJson));
+	}
+
+	private Response addPersonsJsonBlocking(InputStream personJson) {
+		LOGGER.info("Attempting to add persons from streamed JSON.");
+		try (JsonPersonStreamReader personsToAdd = jsonPersonParser.streamPersons(personJson)) {
+			int personsAddedCount = PhaseTimer.time(Phase.PERSIST, () -> personService.addPersons(personsToAdd)).getTotalPersisted();
+
+			statisticsService.recordAddRequest(true, personsAddedCount, null);
+			return Response.status(Response.Status.CREATED).entity(personsAddedCount + " person/s created").build();
+		} catch (PersonStreamException e) {
+			statisticsService.recordAddRequest(false, 0, e.getOriginalException());
+			return createErrorResponse(e.getOriginalException(), Response.Status.BAD_REQUEST, "JSON Parsing Exception");
+		} catch (ConstraintViolationException e) {
+			statisticsService.recordAddRequest(false, 0, e);
+			return createErrorResponse(e, Response.Status.BAD_REQUEST, "Constraint Violation Exception");
+		} catch (Exception e) {
+			statisticsService.recordAddRequest(false, 0, e);
+			return createErrorResponse(e, Response.Status.INTERNAL_SERVER_ERROR, "Internal Server Error");
+		}
+	}
+
+	/**
+	 * Adds the persons of a document in the compact {@link PersonBinaryFormat} in one transaction, for bulk import. The document is decoded as a stream: persons are validated like
+	 * XML persons and persisted batch by batch while the request body is read. Ids in the document are ignored.
+	 *
+	 * @param personData    The persons document in the binary format.
+	 * @param asyncResponse Resumed with a response indicating how many persons were created.
+	 */
+	@POST
+	@Path("/add")
+	@Consumes(PersonBinaryFormat.MEDIA_TYPE)
+	@Produces(MediaType.TEXT_PLAIN)
+	public void addPersonsBinary(InputStream personData, @Suspended AsyncResponse asyncResponse) {
+		requestExecutor.execute(asyncResponse, () -> addPersonsBinaryBlocking(personData));
+	}
+
+	private Response addPersonsBinaryBlocking(InputStream personData) {
+		LOGGER.info("Attempting to add persons from a binary document.");
+		try (BinaryPersonStreamReader personsToAdd = new BinaryPersonStreamReader(personData)) {
+			int personsAddedCount = PhaseTimer.time(Phase.PERSIST, () -> personService.addPersons(personsToAdd)).getTotalPersisted();
+
+			statisticsService.recordAddRequest(true, personsAddedCount, null);
+			return Response.status(Response.Status.CREATED).entity(personsAddedCount + " person/s created").build();
+		} catch (PersonStreamException e) {
+			statisticsService.recordAddRequest(false, 0, e.getOriginalException());
+			return createErrorResponse(e, Response.Status.BAD_REQUEST, "Binary Format Exception");
+		} catch (ConstraintViolationException e) {
+			statisticsService.recordAddRequest(false, 0, e);
+			return createErrorResponse(e, Response.Status.BAD_REQUEST, "Constraint Violation Exception");
+		} catch (Exception e) {
+			statisticsService.recordAddRequest(false, 0, e);
+			return createErrorResponse(e, Response.Status.INTERNAL_SERVER_ERROR, "Internal Server Error");
+		}
+	}
+
+	/**
+	 * Validates an XML document and queues its persons for persisting in the background. The response is sent as soon as the document is validated; the progress of the job can be
+	 * followed at the returned {@code Location}. The add request is counted in the statistics once the job has finished.
+	 *
+	 * @param personXml     The persons document in XML format.
+	 * @param asyncResponse Resumed with 202 and the job id, 400 for an invalid document or 503 if the ingest queue is full.
+	 */
+	@POST
+	@Path("/add/async")
+	@Consumes(MediaType.TEXT_PLAIN)
+	@Produces(MediaType.TEXT_PLAIN)
+	public void addPersonAsync(String personXml, @Suspended AsyncResponse asyncResponse) {
+		requestExecutor.execute(asyncResponse, () -> addPersonAsyncBlocking(personXml));
+	}
+
+	private Response addPersonAsyncBlocking(String personXml) {
+		LOGGER.info("Attempting to queue persons for background ingest.");
+		try {
+			xmlPersonParser.validateXml(personXml);
+			Persons personsToAdd = xmlPersonParser.parseXml(personXml);
+
+			return ingestQueue.submit(personsToAdd.getPerson(), this::recordIngestJob)
+					.map(job -> Response.accepted(job.getId() + " job accepted").location(URI.create("persons/jobs/" + job.getId())).build())
+					.orElseGet(() -> Response.status(Response.Status.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, ServiceConfiguration.ingestRetryAfterSeconds())
+							.entity("Ingest queue is full").build());
+		} catch (JAXBException e) {
+			statisticsService.recordAddRequest(false, 0, e);
+			return createErrorResponse(e, Response.Status.BAD_REQUEST, "JAXB Parsing Exception");
+		} catch (ConstraintViolationException e) {
+			statisticsService.recordAddRequest(false, 0, e);
+			return createErrorResponse(e, Response.Status.BAD_REQUEST, "Constraint Violation Exception");
+		} catch (Exception e) {
+			statisticsService.recordAddRequest(false, 0, e);
+			return createErrorResponse(e, Response.Status.INTERNAL_SERVER_ERROR, "Internal Server Error");
+		}
+	}
+
+	/**
+	 * Reports the progress of a background ingest job.
+	 *
+	 * @param id The job id returned by {@code POST /persons/add/async}.
+	 * @return The job status, or 404 if the job is unknown or finished too long ago.
+	 */
+	@GET
+	@Path("/jobs/{id}")
+	@Produces(MediaType.APPLICATION_XML)
+	public Response getIngestJob(@PathParam("id") long id) {
+		statisticsService.recordValidRequest();
+		return ingestQueue.getJob(id)
+				.map(job -> Response.ok(new IngestJobStatus(job.getId(), job.getState().name(), job.getTotalPersons(), job.getPersistedPersons(),
+						job.getFailure() != null ? String.valueOf(job.getFailure().getMessage()) : null)).build())
+				.orElseGet(() -> Response.status(Response.Status.NOT_FOUND).entity("Job not found").build());
+	}
+
+	private void recordIngestJob(IngestJob job) {
+		if (job.getState() == IngestJob.State.COMPLETED) {
+			statisticsService.recordAddRequest(true, job.getPersistedPersons(), null);
+		} else {
+			// Transactions committed before the failure stay
+			statisticsService.recordAddRequest(false, job.getPersistedPersons(), job.getFailure());
+		}
+	}
+
+	/**
+	 * Retrieves a person by ID. Lookups are served from the second-level cache, if enabled, while it holds the person.
+	 * <p>
+	 * Responses carry the {@link DataVersion} as ETag; a request with a matching {@code If-None-Match} is answered with {@code 304} without looking the person up.
+	 *
+	 * @param id            The ID of the person.
+	 * @param ifNoneMatch   The ETags the client holds, optional.
+	 * @param asyncResponse Resumed with the person, or 404 if there is none with that ID.
+	 */
+	@GET
+	@Path("/{id}")
+	@Produces(MediaType.APPLICATION_XML)
+	public void getPerson(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch, @Suspended AsyncResponse asyncResponse) {
+		String tag = dataVersion.tag();
+		if (EntityTags.matches(ifNoneMatch, tag)) {
+			statisticsService.recordValidRequest();
+			asyncResponse.resume(Response.notModified(new EntityTag(tag)).build());
+			return;
+		}
+		requestExecutor.execute(asyncResponse, () -> getPersonBlocking(id, tag));
+	}
+
+	private Response getPersonBlocking(Long id, String tag) {
+		PersonEntity person = personService.getPerson(id);
+		statisticsService.recordValidRequest();
+		if (person == null) {
+			return Response.status(Response.Status.NOT_FOUND).entity("Person not found").build();
+		}
+		return Response.ok(person).tag(new EntityTag(tag)).build();
+	}
+
 	/**
 	 * Updates an existing person with XML data.
 	 *
-	 * @param id        The ID of the person to update.
-	 * @param personXml The person data in XML format.
-	 * @return A response indicating the result of the update operation.
+	 * @param id            The ID of the person to update.
+	 * @param personXml     The person data in XML format.
+	 * @param asyncResponse Resumed with a response indicating the result of the update operation.
 	 */
 	@PUT
 	@Path("/{id}")
 	@Consumes(MediaType.TEXT_PLAIN)
 	@Produces(MediaType.TEXT_PLAIN)
-	public Response updatePerson(@PathParam("id") Long id, String personXml) {
+	public void updatePerson(@PathParam("id") Long id, String personXml, @Suspended AsyncResponse asyncResponse) {
+		requestExecutor.execute(asyncResponse, () -> updatePersonBlocking(id, personXml));
+	}
+
+	private Response updatePersonBlocking(Long id, String personXml) {
 		LOGGER.log(Level.INFO, "Attempting to update person with ID {0}.", id);
 
 		try {
@@ -116,7 +657,7 @@ public class PersonController {
 			int personsUpdatedCount = 0;
 			for (Person person : personsToUpdate.getPerson()) {
 				PersonEntity personEntity = personService.convertToEntity(person);
-				updateResult = personService.updatePerson(id, personEntity);
+				updateResult = PhaseTimer.time(Phase.PERSIST, () -> personService.updatePerson(id, personEntity));
 				personsUpdatedCount++;
 			}
 
@@ -135,17 +676,138 @@ public class PersonController {
 		}
 	}
 
+	/**
+	 * Updates an existing person with JSON data, a single person object {@code {"name": ..., "gender": ..., "age": ...}} validated like the persons of
+	 * {@code POST /persons/add}.
+	 *
+	 * @param id            The ID of the person to update.
+	 * @param personJson    The person data in JSON format.
+	 * @param asyncResponse Resumed with a response indicating the result of the update operation.
+	 */
+	@PUT
+	@Path("/{id}")
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.TEXT_PLAIN)
+	public void updatePersonJson(@PathParam("id") Long id, InputStream personJson, @Suspended AsyncResponse asyncResponse) {
+		requestExecutor.execute(asyncResponse, () -> updatePersonJsonBlocking(id, personJson));
+	}
+
+	private Response updatePersonJsonBlocking(Long id, InputStream personJson) {
+		LOGGER.log(Level.INFO, "Attempting to update person with ID {0} from JSON.", id);
+		try {
+			PersonEntity personEntity = personService.convertToEntity(jsonPersonParser.parsePerson(personJson));
+			boolean updateResult = PhaseTimer.time(Phase.PERSIST, () -> personService.updatePerson(id, personEntity));
+
+			statisticsService.recordValidRequest();
+			if (updateResult) {
+				return Response.status(Response.Status.OK).entity("1 person/s updated").build();
+			} else {
+				return Response.status(Response.Status.NOT_FOUND).entity("Person not found for update").build();
+			}
+		} catch (PersonStreamException e) {
+			return createErrorResponse(e, Response.Status.BAD_REQUEST, "JSON Parsing Exception");
+		} catch (ConstraintViolationException e) {
+			return createErrorResponse(e, Response.Status.BAD_REQUEST, "Constraint Violation Exception");
+		} catch (Exception e) {
+			return createErrorResponse(e, Response.Status.INTERNAL_SERVER_ERROR, "Internal Server Error");
+		}
+	}
+
+	/**
+	 * Updates many persons in one transaction. The body lists the new values per id, see {@link PersonUpdates}; the updates are executed as JDBC batches without loading the persons.
+	 *
+	 * @param updatesXml    The updates in XML format.
+	 * @param asyncResponse Resumed with the outcome ({@code UPDATED} or {@code NOT_FOUND}) per id.
+	 */
+	@PUT
+	@Consumes({ MediaType.TEXT_PLAIN, MediaType.APPLICATION_XML })
+	@Produces(MediaType.APPLICATION_XML)
+	public void updatePersons(String updatesXml, @Suspended AsyncResponse asyncResponse) {
+		requestExecutor.execute(asyncResponse, () -> updatePersonsBlocking(updatesXml));
+	}
+
+	private Response updatePersonsBlocking(String updatesXml) {
+		LOGGER.info("Attempting to update persons in bulk.");
+		try {
+			PersonUpdates updates = xmlPersonParser.parseUpdates(updatesXml);
+			Map<Long, Boolean> outcomes = PhaseTimer.time(Phase.PERSIST, () -> personService.updatePersons(updates.getUpdates()));
+
+			statisticsService.recordValidRequest();
+			return Response.ok(toBulkResult(outcomes, "UPDATED")).build();
+		} catch (JAXBException e) {
+			return createErrorResponse(e, Response.Status.BAD_REQUEST, "JAXB Parsing Exception");
+		} catch (ConstraintViolationException e) {
+			return createErrorResponse(e, Response.Status.BAD_REQUEST, "Constraint Violation Exception");
+		} catch (Exception e) {
+			return createErrorResponse(e, Response.Status.INTERNAL_SERVER_ERROR, "Internal Server Error");
+		}
+	}
+
+	/**
+	 * Deletes many persons in one transaction, either by id or by criteria. Ids can be repeated ({@code ?ids=1&ids=2}) or comma separated ({@code ?ids=1,2}); criteria are combined
+	 * with AND. Persons are deleted with bulk statements and not loaded.
+	 *
+	 * @param ids           The ids to delete.
+	 * @param minAge        The minimum age (inclusive) of the persons to delete.
+	 * @param maxAge        The maximum age (inclusive) of the persons to delete.
+	 * @param gender        The gender of the persons to delete.
+	 * @param asyncResponse Resumed with the outcome ({@code DELETED} or {@code NOT_FOUND}) per id, or only the number of deleted persons when deleting by criteria.
+	 */
+	@DELETE
+	@Produces(MediaType.APPLICATION_XML)
+	public void deletePersons(@QueryParam("ids") List<String> ids, @QueryParam("minAge") Integer minAge, @QueryParam("maxAge") Integer maxAge,
+			@QueryParam("gender") String gender, @Suspended AsyncResponse asyncResponse) {
+		requestExecutor.execute(asyncResponse, () -> deletePersonsBlocking(ids, minAge, maxAge, gender));
+	}
+
+	private Response deletePersonsBlocking(List<String> ids, Integer minAge, Integer maxAge, String gender) {
+		boolean byIds = ids != null && !ids.isEmpty();
+		boolean byCriteria = minAge != null || maxAge != null || gender != null;
+		if (byIds == byCriteria) {
+			return badRequest("Either ids or at least one of minAge, maxAge and gender is required");
+		}
+
+		BulkOperationResult result;
+		if (byIds) {
+			List<Long> idsToDelete = new ArrayList<>();
+			try {
+				for (String idList : ids) {
+					for (String id : idList.split(",")) {
+						idsToDelete.add(Long.valueOf(id.trim()));
+					}
+				}
+			} catch (NumberFormatException e) {
+				return badRequest("ids must be numbers");
+			}
+			LOGGER.log(Level.INFO, "Attempting to delete {0} persons by ID.", idsToDelete.size());
+			result = toBulkResult(PhaseTimer.time(Phase.PERSIST, () -> personService.deletePersons(idsToDelete)), "DELETED");
+		} else {
+			if (gender != null && !gender.matches("[fm]")) {
+				return badRequest("gender must be 'f' or 'm'");
+			}
+			LOGGER.info("Attempting to delete persons by criteria.");
+			result = new BulkOperationResult(PhaseTimer.time(Phase.PERSIST, () -> personService.deletePersonsMatching(minAge, maxAge, gender)));
+		}
+
+		statisticsService.recordValidRequest();
+		return Response.ok(result).build();
+	}
+
 	/**
 	 * Deletes a person by ID.
 	 *
-	 * @param id The ID of the person to delete.
-	 * @return A response indicating the result of the delete operation.
+	 * @param id            The ID of the person to delete.
+	 * @param asyncResponse Resumed with a response indicating the result of the delete operation.
 	 */
 	@DELETE
 	@Path("/{id}")
-	public Response deletePerson(@PathParam("id") Long id) {
+	public void deletePerson(@PathParam("id") Long id, @Suspended AsyncResponse asyncResponse) {
+		requestExecutor.execute(asyncResponse, () -> deletePersonBlocking(id));
+	}
+
+	private Response deletePersonBlocking(Long id) {
 		LOGGER.log(Level.INFO, "Attempting to delete person with ID {0}.", id);
-		boolean deleteResult = personService.deletePerson(id);
+		boolean deleteResult = PhaseTimer.time(Phase.PERSIST, () -> personService.deletePerson(id));
 
 		statisticsService.recordValidRequest();
 		if (deleteResult) {
@@ -157,22 +819,125 @@ public class PersonController {
 
 	/**
 	 * Generates statistic about valid and invalid add requests in XML format with error details and stacktrace
+	 * <p>
+	 * Responses carry a weak ETag; a request with a matching {@code If-None-Match} is answered with {@code 304} without generating the statistics. Within the coalescing
+	 * freshness window requests share one report through the {@link ReadCoalescer}. Interval requests start a new interval and are always answered in full.
 	 *
+	 * @param interval    If {@code true}, the endpoint latencies cover the time since the previous interval request instead of since startup.
+	 * @param window      {@code 1m}, {@code 5m} or {@code 1h} to also report the request counters within that sliding window, optional.
+	 * @param ifNoneMatch The ETags the client holds, optional.
 	 * @return response in XML format wir all add request details and error details for the add requests
 	 */
 	@GET
 	@Produces(MediaType.APPLICATION_XML)
 	@Path("/statistics")
-	public Response getStatistics() {
-		StatisticsEntity statistics = statisticsService.generateStatistics();
-		statisticsService.recordValidRequest();
-		return Response.ok(statistics).build();
+	public Response getStatistics(@QueryParam("interval") boolean interval, @QueryParam("window") String window, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+		StatisticsWindow statisticsWindow;
+		try {
+			statisticsWindow = window != null ? StatisticsWindow.fromLabel(window) : null;
+		} catch (IllegalArgumentException e) {
+			return badRequest(e.getMessage());
+		}
+		EntityTag tag = interval ? null : new EntityTag(statisticsService.statisticsTag(statisticsWindow), true);
+		if (tag != null && EntityTags.matches(ifNoneMatch, tag.getValue())) {
+			statisticsService.recordStatisticsRequest();
+			return Response.notModified(tag).build();
+		}
+		if (interval) {
+			StatisticsEntity statistics = statisticsService.generateStatistics(true, statisticsWindow);
+			statisticsService.recordStatisticsRequest();
+			return Response.ok(statistics).build();
+		}
+		ReadCoalescer.TaggedStatistics statistics = readCoalescer.generateStatistics(statisticsWindow);
+		statisticsService.recordStatisticsRequest();
+		return Response.ok(statistics.statistics()).tag(new EntityTag(statistics.tag(), true)).build();
+	}
+
+	/**
+	 * Compares the incrementally maintained dataset statistics with a {@code GROUP BY} query over the persons and repairs them if they differ. A POST, as the repair replaces the
+	 * maintained counts.
+	 *
+	 * @param asyncResponse Resumed with the differences found, or {@code 503} while the statistics are being loaded.
+	 */
+	@POST
+	@Produces(MediaType.APPLICATION_XML)
+	@Path("/statistics/check")
+	public void checkStatistics(@Suspended AsyncResponse asyncResponse) {
+		requestExecutor.execute(asyncResponse, this::checkStatisticsBlocking);
+	}
+
+	private Response checkStatisticsBlocking() {
+		if (!datasetStatistics.isReady()) {
+			return Response.status(Response.Status.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, 1).entity("Dataset statistics are being loaded").build();
+		}
+		try {
+			DatasetCheck check = datasetStatistics.check();
+			statisticsService.recordValidRequest();
+			return Response.ok(check).build();
+		} catch (IllegalStateException e) {
+			return Response.status(Response.Status.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, 1).entity(e.getMessage()).build();
+		}
+	}
+
+	/**
+	 * @return the ETag value of the persons at a data version; the gzip-encoded document is a different representation and gets its own tag.
+	 */
+	private String personsTag(long version, boolean gzip) {
+		String tag = dataVersion.tag(version);
+		return gzip ? tag + "-gzip" : tag;
+	}
+
+	/**
+	 * @return true if the {@code Accept-Encoding} header lists gzip without {@code q=0}.
+	 */
+	private static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parameters = coding.split(";");
+			if (!parameters[0].trim().equalsIgnoreCase("gzip")) {
+				continue;
+			}
+			for (int i = 1; i < parameters.length; i++) {
+				String parameter = parameters[i].trim();
+				if (parameter.startsWith("q=")) {
+					try {
+						return Double.parseDouble(parameter.substring(2)) > 0;
+					} catch (NumberFormatException e) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private static BulkOperationResult toBulkResult(Map<Long, Boolean> outcomes, String successOutcome) {
+		BulkOperationResult result = new BulkOperationResult();
+		int affected = 0;
+		for (Map.Entry<Long, Boolean> outcome : outcomes.entrySet()) {
+			result.addResult(outcome.getKey(), outcome.getValue() ? successOutcome : "NOT_FOUND");
+			if (outcome.getValue()) {
+				affected++;
+			}
+		}
+		result.setAffected(affected);
+		return result;
+	}
+
+	private static Response badRequest(String message) {
+		return Response.status(Response.Status.BAD_REQUEST).type(MediaType.APPLICATION_JSON).entity(Map.of("error", message)).build();
 	}
 
 	private Response createErrorResponse(Exception e, Response.Status status, String logMessage) {
 		try {
+			// Parse errors such as JsonParsingException carry their details in the message rather than in a cause
+			Object details = e.getCause() != null ? e.getCause() : Objects.requireNonNullElse(e.getMessage(), e.toString());
+
 			// Log the exception
-			LOGGER.log(Level.WARNING, logMessage + ": {0}", e.getCause());
+			LOGGER.log(Level.WARNING, logMessage + ": {0}", details);
 
 			// Prepare the error response based on exception type
 			Map<String, Object> errorResponse;
@@ -182,11 +947,11 @@ public class PersonController {
 				errorResponse = Map.of("errors", errors, "totalErrors", errors.size());
 			} else {
 				// Generic error handling for JAXBException and other Exceptions
-				errorResponse = Map.of("error", status.getReasonPhrase(), "details", e.getCause());
+				errorResponse = Map.of("error", status.getReasonPhrase(), "details", details);
 			}
 
 			// Create and return the response
-			return Response.status(status).entity(errorResponse).build();
+			return Response.status(status).type(MediaType.APPLICATION_JSON).entity(errorResponse).build();
 		} catch (Exception ex) {
 			ex.printStackTrace();
 			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
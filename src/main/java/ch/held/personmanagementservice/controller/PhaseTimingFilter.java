@@ -0,0 +1,63 @@
+package ch.held.personmanagementservice.controller;
+
+import java.io.IOException;
+
+import ch.held.personmanagementservice.statistics.impl.Phase;
+import ch.held.personmanagementservice.statistics.impl.PhaseStatistics;
+import ch.held.personmanagementservice.statistics.impl.PhaseTimer;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Binds a {@link PhaseTimer} to the request thread while the resource method runs and adds the phases to the {@link PhaseStatistics} once the response is written. The optional
+ * {@code Server-Timing} header is set before the entity is written and therefore contains the response phase only up to that point.
+ */
+class PhaseTimingFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+	private static final String TIMER_PROPERTY = PhaseTimingFilter.class.getName() + ".timer";
+
+	private final PhaseStatistics phaseStatistics;
+	private final boolean serverTiming;
+
+	PhaseTimingFilter(PhaseStatistics phaseStatistics, boolean serverTiming) {
+		this.phaseStatistics = phaseStatistics;
+		this.serverTiming = serverTiming;
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext) {
+		requestContext.setProperty(TIMER_PROPERTY, PhaseTimer.begin());
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+		PhaseTimer.unbind();
+		if (!(requestContext.getProperty(TIMER_PROPERTY) instanceof PhaseTimer timer)) {
+			return;
+		}
+		timer.switchTo(Phase.RESPONSE);
+		if (serverTiming) {
+			responseContext.getHeaders().putSingle("Server-Timing", timer.toServerTiming());
+		}
+		if (!responseContext.hasEntity()) {
+			requestContext.removeProperty(TIMER_PROPERTY);
+			phaseStatistics.record(timer);
+		}
+	}
+
+	@Override
+	public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+		try {
+			context.proceed();
+		} finally {
+			if (context.getProperty(TIMER_PROPERTY) instanceof PhaseTimer timer) {
+				context.removeProperty(TIMER_PROPERTY);
+				phaseStatistics.record(timer);
+			}
+		}
+	}
+}
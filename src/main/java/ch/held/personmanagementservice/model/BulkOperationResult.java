@@ -0,0 +1,78 @@
+package ch.held.personmanagementservice.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Response of the bulk update and delete endpoints: the number of affected persons and, for requests by id, the outcome per id in request order.
+ */
+@XmlRootElement(name = "bulkResult")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class BulkOperationResult {
+
+	@XmlAttribute(name = "affected")
+	private int affected;
+
+	@XmlElement(name = "result")
+	private List<IdOutcome> results = new ArrayList<>();
+
+	public BulkOperationResult() {
+		// JAXB requires a no-arg constructor
+	}
+
+	public BulkOperationResult(int affected) {
+		this.affected = affected;
+	}
+
+	public void addResult(long id, String outcome) {
+		results.add(new IdOutcome(id, outcome));
+	}
+
+	public void setAffected(int affected) {
+		this.affected = affected;
+	}
+
+	public int getAffected() {
+		return affected;
+	}
+
+	public List<IdOutcome> getResults() {
+		return results;
+	}
+
+	/**
+	 * Outcome for a single id, e.g. {@code UPDATED}, {@code DELETED} or {@code NOT_FOUND}.
+	 */
+	@XmlAccessorType(XmlAccessType.FIELD)
+	public static class IdOutcome {
+
+		@XmlAttribute(name = "id")
+		private long id;
+
+		@XmlAttribute(name = "outcome")
+		private String outcome;
+
+		public IdOutcome() {
+			// JAXB requires a no-arg constructor
+		}
+
+		public IdOutcome(long id, String outcome) {
+			this.id = id;
+			this.outcome = outcome;
+		}
+
+		public long getId() {
+			return id;
+		}
+
+		public String getOutcome() {
+			return outcome;
+		}
+	}
+}
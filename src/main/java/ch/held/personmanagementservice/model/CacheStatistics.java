@@ -0,0 +1,110 @@
+package ch.held.personmanagementservice.model;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+
+/**
+ * Usage figures of a cached response document: requests served from the cache, requests that waited for another request to rebuild it, requests that rebuilt it and requests
+ * that were streamed because it exceeded the size limit.
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(propOrder = { "hits", "coalesced", "misses", "fallbacks", "hitRate", "lastRebuildMillis", "totalRebuildMillis", "bytes", "gzipBytes" })
+public class CacheStatistics {
+
+	@XmlElement(name = "hits")
+	private long hits;
+
+	@XmlElement(name = "coalesced")
+	private long coalesced;
+
+	@XmlElement(name = "misses")
+	private long misses;
+
+	@XmlElement(name = "fallbacks")
+	private long fallbacks;
+
+	@XmlElement(name = "hitRate")
+	private double hitRate;
+
+	@XmlElement(name = "lastRebuildMillis")
+	private long lastRebuildMillis;
+
+	@XmlElement(name = "totalRebuildMillis")
+	private long totalRebuildMillis;
+
+	@XmlElement(name = "bytes")
+	private long bytes;
+
+	@XmlElement(name = "gzipBytes")
+	private long gzipBytes;
+
+	public CacheStatistics() {
+		// JAXB requires a no-arg constructor
+	}
+
+	public CacheStatistics(long hits, long coalesced, long misses, long fallbacks, long lastRebuildMillis, long totalRebuildMillis, long bytes, long gzipBytes) {
+		this.hits = hits;
+		this.coalesced = coalesced;
+		this.misses = misses;
+		this.fallbacks = fallbacks;
+		long requests = hits + coalesced + misses + fallbacks;
+		this.hitRate = requests > 0 ? Math.round((hits + coalesced) * 1000.0 / requests) / 1000.0 : 0;
+		this.lastRebuildMillis = lastRebuildMillis;
+		this.totalRebuildMillis = totalRebuildMillis;
+		this.bytes = bytes;
+		this.gzipBytes = gzipBytes;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the requests that waited for a rebuild started by another request.
+	 */
+	public long getCoalesced() {
+		return coalesced;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the requests answered without the cache because the document exceeded the size limit.
+	 */
+	public long getFallbacks() {
+		return fallbacks;
+	}
+
+	/**
+	 * @return requests served without their own rebuild per request, rounded to three decimals.
+	 */
+	public double getHitRate() {
+		return hitRate;
+	}
+
+	public long getLastRebuildMillis() {
+		return lastRebuildMillis;
+	}
+
+	public long getTotalRebuildMillis() {
+		return totalRebuildMillis;
+	}
+
+	/**
+	 * @return the size of the cached document, 0 if none is cached.
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return the size of the gzip-encoded cached document, 0 until a client asked for it.
+	 */
+	public long getGzipBytes() {
+		return gzipBytes;
+	}
+}
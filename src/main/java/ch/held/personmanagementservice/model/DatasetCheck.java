@@ -0,0 +1,44 @@
+package ch.held.personmanagementservice.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Result of comparing the incrementally maintained {@link DatasetStatistics} with counts queried from the database. Differing statistics are replaced by the queried ones.
+ */
+@XmlRootElement(name = "datasetCheck")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class DatasetCheck {
+
+	@XmlAttribute(name = "consistent")
+	private boolean consistent;
+
+	@XmlElement(name = "difference")
+	private List<String> differences = new ArrayList<>();
+
+	public DatasetCheck() {
+		// JAXB requires a no-arg constructor
+	}
+
+	public DatasetCheck(List<String> differences) {
+		this.consistent = differences.isEmpty();
+		this.differences = differences;
+	}
+
+	public boolean isConsistent() {
+		return consistent;
+	}
+
+	/**
+	 * @return one entry per differing count, e.g. {@code gender f: maintained 10, database 11}.
+	 */
+	public List<String> getDifferences() {
+		return differences;
+	}
+}
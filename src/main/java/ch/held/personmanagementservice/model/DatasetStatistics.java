@@ -0,0 +1,163 @@
+package ch.held.personmanagementservice.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlElementWrapper;
+import jakarta.xml.bind.annotation.XmlType;
+import jakarta.xml.bind.annotation.XmlValue;
+
+/**
+ * Aggregates over the stored persons: their number, the count per gender and the age distribution. The age figures are absent while no person is stored.
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(propOrder = { "persons", "genders", "minAge", "maxAge", "meanAge", "ageHistogram" })
+public class DatasetStatistics {
+
+	@XmlElement(name = "persons")
+	private long persons;
+
+	@XmlElementWrapper(name = "genders")
+	@XmlElement(name = "gender")
+	private List<GenderCount> genders = new ArrayList<>();
+
+	@XmlElement(name = "minAge")
+	private Integer minAge;
+
+	@XmlElement(name = "maxAge")
+	private Integer maxAge;
+
+	@XmlElement(name = "meanAge")
+	private Double meanAge;
+
+	@XmlElementWrapper(name = "ageHistogram")
+	@XmlElement(name = "bin")
+	private List<AgeBin> ageHistogram = new ArrayList<>();
+
+	public DatasetStatistics() {
+		// JAXB requires a no-arg constructor
+	}
+
+	public long getPersons() {
+		return persons;
+	}
+
+	public void setPersons(long persons) {
+		this.persons = persons;
+	}
+
+	public List<GenderCount> getGenders() {
+		return genders;
+	}
+
+	public void addGender(String gender, long count) {
+		genders.add(new GenderCount(gender, count));
+	}
+
+	public Integer getMinAge() {
+		return minAge;
+	}
+
+	public void setMinAge(Integer minAge) {
+		this.minAge = minAge;
+	}
+
+	public Integer getMaxAge() {
+		return maxAge;
+	}
+
+	public void setMaxAge(Integer maxAge) {
+		this.maxAge = maxAge;
+	}
+
+	public Double getMeanAge() {
+		return meanAge;
+	}
+
+	public void setMeanAge(Double meanAge) {
+		this.meanAge = meanAge;
+	}
+
+	/**
+	 * @return the number of persons per age range, ascending and without gaps up to the oldest person.
+	 */
+	public List<AgeBin> getAgeHistogram() {
+		return ageHistogram;
+	}
+
+	public void addAgeBin(int from, Integer to, long count) {
+		ageHistogram.add(new AgeBin(from, to, count));
+	}
+
+	/**
+	 * Number of persons with one gender, the gender is absent for persons stored without one.
+	 */
+	@XmlAccessorType(XmlAccessType.FIELD)
+	public static class GenderCount {
+
+		@XmlAttribute(name = "code")
+		private String code;
+
+		@XmlValue
+		private long count;
+
+		public GenderCount() {
+			// JAXB requires a no-arg constructor
+		}
+
+		public GenderCount(String code, long count) {
+			this.code = code;
+			this.count = count;
+		}
+
+		public String getCode() {
+			return code;
+		}
+
+		public long getCount() {
+			return count;
+		}
+	}
+
+	/**
+	 * Number of persons with an age from {@code from} to {@code to}, both inclusive; the last bin has no upper end.
+	 */
+	@XmlAccessorType(XmlAccessType.FIELD)
+	public static class AgeBin {
+
+		@XmlAttribute(name = "from")
+		private int from;
+
+		@XmlAttribute(name = "to")
+		private Integer to;
+
+		@XmlValue
+		private long count;
+
+		public AgeBin() {
+			// JAXB requires a no-arg constructor
+		}
+
+		public AgeBin(int from, Integer to, long count) {
+			this.from = from;
+			this.to = to;
+			this.count = count;
+		}
+
+		public int getFrom() {
+			return from;
+		}
+
+		public Integer getTo() {
+			return to;
+		}
+
+		public long getCount() {
+			return count;
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package ch.held.personmanagementservice.model;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+
+/**
+ * Latency distribution of a single endpoint, all values in microseconds.
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(propOrder = { "endpoint", "count", "p50", "p90", "p99", "p999", "max" })
+public class EndpointLatency {
+
+	@XmlElement(name = "endpoint")
+	private String endpoint;
+
+	@XmlElement(name = "count")
+	private long count;
+
+	@XmlElement(name = "p50")
+	private double p50;
+
+	@XmlElement(name = "p90")
+	private double p90;
+
+	@XmlElement(name = "p99")
+	private double p99;
+
+	@XmlElement(name = "p999")
+	private double p999;
+
+	@XmlElement(name = "max")
+	private double max;
+
+	public EndpointLatency() {
+		// JAXB requires a no-arg constructor
+	}
+
+	public EndpointLatency(String endpoint, long count, double p50, double p90, double p99, double p999, double max) {
+		this.endpoint = endpoint;
+		this.count = count;
+		this.p50 = p50;
+		this.p90 = p90;
+		this.p99 = p99;
+		this.p999 = p999;
+		this.max = max;
+	}
+
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getP50() {
+		return p50;
+	}
+
+	public double getP90() {
+		return p90;
+	}
+
+	public double getP99() {
+		return p99;
+	}
+
+	public double getP999() {
+		return p999;
+	}
+
+	public double getMax() {
+		return max;
+	}
+}
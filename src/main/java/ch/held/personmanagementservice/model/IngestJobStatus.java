@@ -0,0 +1,66 @@
+package ch.held.personmanagementservice.model;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlType;
+
+/**
+ * Progress of a background ingest job as returned by {@code GET /persons/jobs/{id}}.
+ */
+@XmlRootElement(name = "job")
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(propOrder = { "id", "state", "totalPersons", "persistedPersons", "error" })
+public class IngestJobStatus {
+
+	@XmlElement(name = "id")
+	private long id;
+
+	@XmlElement(name = "state")
+	private String state;
+
+	@XmlElement(name = "totalPersons")
+	private int totalPersons;
+
+	@XmlElement(name = "persistedPersons")
+	private int persistedPersons;
+
+	@XmlElement(name = "error")
+	private String error;
+
+	public IngestJobStatus() {
+		// JAXB requires a no-arg constructor
+	}
+
+	public IngestJobStatus(long id, String state, int totalPersons, int persistedPersons, String error) {
+		this.id = id;
+		this.state = state;
+		this.totalPersons = totalPersons;
+		this.persistedPersons = persistedPersons;
+		this.error = error;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getState() {
+		return state;
+	}
+
+	public int getTotalPersons() {
+		return totalPersons;
+	}
+
+	public int getPersistedPersons() {
+		return persistedPersons;
+	}
+
+	/**
+	 * @return the failure message of a failed job, otherwise null.
+	 */
+	public String getError() {
+		return error;
+	}
+}
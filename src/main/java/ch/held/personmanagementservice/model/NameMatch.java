@@ -0,0 +1,44 @@
+package ch.held.personmanagementservice.model;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlValue;
+
+/**
+ * A person found by name, one entry of {@link NameMatches}. The score is above 1 if the name contains the query, the fraction is the trigram similarity of query and name.
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class NameMatch {
+
+	@XmlAttribute(name = "id")
+	private long id;
+
+	@XmlAttribute(name = "score")
+	private double score;
+
+	@XmlValue
+	private String name;
+
+	public NameMatch() {
+		// JAXB requires a no-arg constructor
+	}
+
+	public NameMatch(long id, String name, double score) {
+		this.id = id;
+		this.name = name;
+		this.score = score;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public double getScore() {
+		return score;
+	}
+}
@@ -0,0 +1,32 @@
+package ch.held.personmanagementservice.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Response of the name lookup: the matching persons, best match first.
+ */
+@XmlRootElement(name = "nameMatches")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class NameMatches {
+
+	@XmlElement(name = "match")
+	private List<NameMatch> matches = new ArrayList<>();
+
+	public NameMatches() {
+		// JAXB requires a no-arg constructor
+	}
+
+	public NameMatches(List<NameMatch> matches) {
+		this.matches = matches;
+	}
+
+	public List<NameMatch> getMatches() {
+		return matches;
+	}
+}
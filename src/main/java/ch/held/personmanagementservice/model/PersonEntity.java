@@ -1,9 +1,12 @@
 package ch.held.personmanagementservice.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
@@ -13,6 +16,11 @@ import jakarta.xml.bind.annotation.XmlRootElement;
 import jakarta.xml.bind.annotation.XmlType;
 
 @Entity
+// Held in the second-level cache when it is enabled in persistence.xml, so lookups by id of the hot persons need no query
+@Cacheable
+// Backing indexes of GET /persons/search: gender with age range, age range alone and name prefix
+@Table(indexes = { @Index(name = "idx_person_gender_age", columnList = "gender, age"), @Index(name = "idx_person_age", columnList = "age"),
+		@Index(name = "idx_person_name", columnList = "name") })
 @XmlRootElement
 @XmlAccessorType(XmlAccessType.FIELD) //hint: This line makes JAXB use fields directly ... no use for @XmlElement at getter methods
 @XmlType(propOrder = { "id", "name", "gender", "age" })
@@ -53,11 +61,11 @@ public class PersonEntity {
 		this.gender = gender;
 	}
 
-	public int getAge() {
+	public Integer getAge() {
 		return age;
 	}
 
-	public void setAge(int age) {
+	public void setAge(Integer age) {
 		this.age = age;
 	}
 }
@@ -0,0 +1,64 @@
+package ch.held.personmanagementservice.model;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+
+/**
+ * New values for the person with the given id, one entry of {@link PersonUpdates}.
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(propOrder = { "name", "gender", "age" })
+public class PersonUpdate {
+
+	@XmlAttribute(name = "id", required = true)
+	@NotNull(message = "Id is required")
+	private Long id;
+
+	@XmlElement(name = "name", required = true)
+	@NotBlank(message = "Name cannot be blank")
+	private String name;
+
+	@XmlElement(name = "gender", required = true)
+	@NotNull(message = "Gender is required")
+	@Pattern(regexp = "[fm]", message = "Gender must be 'f' or 'm'")
+	private String gender;
+
+	@XmlElement(name = "age", required = true)
+	@NotNull(message = "Age is required")
+	@Min(value = 0, message = "Age cannot be negative")
+	private Integer age;
+
+	public PersonUpdate() {
+		// JAXB requires a no-arg constructor
+	}
+
+	public PersonUpdate(Long id, String name, String gender, Integer age) {
+		this.id = id;
+		this.name = name;
+		this.gender = gender;
+		this.age = age;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getGender() {
+		return gender;
+	}
+
+	public Integer getAge() {
+		return age;
+	}
+}
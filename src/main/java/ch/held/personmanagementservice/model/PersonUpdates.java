@@ -0,0 +1,36 @@
+package ch.held.personmanagementservice.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Request body of {@code PUT /persons}:
+ * <pre>
+ * &lt;updates&gt;
+ *   &lt;update id="1"&gt;&lt;name&gt;Anna&lt;/name&gt;&lt;gender&gt;f&lt;/gender&gt;&lt;age&gt;31&lt;/age&gt;&lt;/update&gt;
+ * &lt;/updates&gt;
+ * </pre>
+ */
+@XmlRootElement(name = "updates")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class PersonUpdates {
+
+	@XmlElement(name = "update")
+	@NotEmpty(message = "At least one update is required")
+	private List<@Valid PersonUpdate> updates = new ArrayList<>();
+
+	public PersonUpdates() {
+		// JAXB requires a no-arg constructor
+	}
+
+	public List<PersonUpdate> getUpdates() {
+		return updates;
+	}
+}
@@ -2,6 +2,7 @@ package ch.held.personmanagementservice.model;
 
 import java.util.List;
 
+import jakarta.xml.bind.annotation.XmlAttribute;
 import jakarta.xml.bind.annotation.XmlElement;
 import jakarta.xml.bind.annotation.XmlRootElement;
 
@@ -10,6 +11,8 @@ public class PersonsWrapper {
 
 	private List<PersonEntity> persons;
 
+	private Long nextCursor;
+
 	public PersonsWrapper() {
 	} // JAXB needs a no-arg constructor
 
@@ -25,5 +28,17 @@ public class PersonsWrapper {
 	public void setPersons(List<PersonEntity> persons) {
 		this.persons = persons;
 	}
+
+	/**
+	 * @return the id to pass as {@code after} to fetch the next page, or null if this is the last (or only) page.
+	 */
+	@XmlAttribute(name = "nextCursor")
+	public Long getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(Long nextCursor) {
+		this.nextCursor = nextCursor;
+	}
 }
 
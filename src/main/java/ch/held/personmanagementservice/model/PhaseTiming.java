@@ -0,0 +1,64 @@
+package ch.held.personmanagementservice.model;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+
+/**
+ * Cumulative time spent in one phase of request processing, all durations in microseconds.
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(propOrder = { "name", "requests", "total", "mean", "max" })
+public class PhaseTiming {
+
+	@XmlElement(name = "name")
+	private String name;
+
+	@XmlElement(name = "requests")
+	private long requests;
+
+	@XmlElement(name = "total")
+	private double total;
+
+	@XmlElement(name = "mean")
+	private double mean;
+
+	@XmlElement(name = "max")
+	private double max;
+
+	public PhaseTiming() {
+		// JAXB requires a no-arg constructor
+	}
+
+	public PhaseTiming(String name, long requests, double total, double mean, double max) {
+		this.name = name;
+		this.requests = requests;
+		this.total = total;
+		this.mean = mean;
+		this.max = max;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the number of requests that went through the phase.
+	 */
+	public long getRequests() {
+		return requests;
+	}
+
+	public double getTotal() {
+		return total;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	public double getMax() {
+		return max;
+	}
+}
@@ -0,0 +1,61 @@
+package ch.held.personmanagementservice.model;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+
+/**
+ * Usage figures of an object pool, e.g. the pooled JAXB unmarshallers.
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(propOrder = { "name", "hits", "misses", "discarded", "idle" })
+public class PoolStatistics {
+
+	@XmlElement(name = "name")
+	private String name;
+
+	@XmlElement(name = "hits")
+	private long hits;
+
+	@XmlElement(name = "misses")
+	private long misses;
+
+	@XmlElement(name = "discarded")
+	private long discarded;
+
+	@XmlElement(name = "idle")
+	private int idle;
+
+	public PoolStatistics() {
+		// JAXB requires a no-arg constructor
+	}
+
+	public PoolStatistics(String name, long hits, long misses, long discarded, int idle) {
+		this.name = name;
+		this.hits = hits;
+		this.misses = misses;
+		this.discarded = discarded;
+		this.idle = idle;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public long getDiscarded() {
+		return discarded;
+	}
+
+	public int getIdle() {
+		return idle;
+	}
+}
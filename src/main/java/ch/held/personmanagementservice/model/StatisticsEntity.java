@@ -16,24 +16,48 @@ import jakarta.xml.bind.annotation.XmlType;
  */
 @XmlRootElement(name = "statistics")
 @XmlAccessorType(XmlAccessType.FIELD)
-@XmlType(propOrder = { "totalAddRequests", "totalValidRequests", "totalAddedPersons", "totalInvalidAddRequests", "detailedErrors" })
+@XmlType(propOrder = { "totalAddRequests", "totalValidRequests", "totalAddedPersons", "totalInvalidAddRequests", "detailedErrors", "droppedErrorDetails", "parserPools", "latencies", "phases", "dataset", "window", "personsCache" })
 public class StatisticsEntity {
 
 	@XmlElement(name = "totalAddRequests")
-	private int totalAddRequests;
+	private long totalAddRequests;
 
 	@XmlElement(name = "totalInvalidAddRequests")
-	private int totalInvalidAddRequests;
+	private long totalInvalidAddRequests;
 
 	@XmlElementWrapper(name = "detailedErrors")
 	@XmlElement(name = "error")
 	private List<ErrorDetail> detailedErrors = new ArrayList<>();
 
+	@XmlElement(name = "droppedErrorDetails")
+	private long droppedErrorDetails;
+
 	@XmlElement(name = "totalValidRequests")
-	private int totalValidRequests;
+	private long totalValidRequests;
 
 	@XmlElement(name = "totalAddedPersons")
-	private int totalAddedPersons;
+	private long totalAddedPersons;
+
+	@XmlElementWrapper(name = "parserPools")
+	@XmlElement(name = "pool")
+	private List<PoolStatistics> parserPools = new ArrayList<>();
+
+	@XmlElementWrapper(name = "latencies")
+	@XmlElement(name = "latency")
+	private List<EndpointLatency> latencies = new ArrayList<>();
+
+	@XmlElementWrapper(name = "phases")
+	@XmlElement(name = "phase")
+	private List<PhaseTiming> phases = new ArrayList<>();
+
+	@XmlElement(name = "dataset")
+	private DatasetStatistics dataset;
+
+	@XmlElement(name = "window")
+	private WindowStatistics window;
+
+	@XmlElement(name = "personsCache")
+	private CacheStatistics personsCache;
 
 	public StatisticsEntity() {
 		// No-arg constructor for instantiation and potential JPA or serialization/deserialization use cases.
@@ -44,19 +68,19 @@ public class StatisticsEntity {
 		this.detailedErrors.add(errorDetail);
 	}
 
-	public int getTotalAddRequests() {
+	public long getTotalAddRequests() {
 		return totalAddRequests;
 	}
 
-	public void setTotalAddRequests(int totalAddRequests) {
+	public void setTotalAddRequests(long totalAddRequests) {
 		this.totalAddRequests = totalAddRequests;
 	}
 
-	public int getTotalInvalidAddRequests() {
+	public long getTotalInvalidAddRequests() {
 		return totalInvalidAddRequests;
 	}
 
-	public void setTotalInvalidAddRequests(int totalInvalidAddRequests) {
+	public void setTotalInvalidAddRequests(long totalInvalidAddRequests) {
 		this.totalInvalidAddRequests = totalInvalidAddRequests;
 	}
 
@@ -68,19 +92,93 @@ public class StatisticsEntity {
 		this.detailedErrors = detailedErrors;
 	}
 
-	public int getTotalValidRequests() {
+	/**
+	 * @return the number of error details evicted from the bounded error store.
+	 */
+	public long getDroppedErrorDetails() {
+		return droppedErrorDetails;
+	}
+
+	public void setDroppedErrorDetails(long droppedErrorDetails) {
+		this.droppedErrorDetails = droppedErrorDetails;
+	}
+
+	public long getTotalValidRequests() {
 		return totalValidRequests;
 	}
 
-	public void setTotalValidRequests(int totalValidRequests) {
+	public void setTotalValidRequests(long totalValidRequests) {
 		this.totalValidRequests = totalValidRequests;
 	}
 
-	public int getTotalAddedPersons() {
+	public long getTotalAddedPersons() {
 		return totalAddedPersons;
 	}
 
-	public void setTotalAddedPersons(int totalAddedPersons) {
+	public void setTotalAddedPersons(long totalAddedPersons) {
 		this.totalAddedPersons = totalAddedPersons;
 	}
+
+	public List<PoolStatistics> getParserPools() {
+		return parserPools;
+	}
+
+	public void setParserPools(List<PoolStatistics> parserPools) {
+		this.parserPools = parserPools;
+	}
+
+	/**
+	 * @return the latency percentiles per endpoint, in microseconds.
+	 */
+	public List<EndpointLatency> getLatencies() {
+		return latencies;
+	}
+
+	public void setLatencies(List<EndpointLatency> latencies) {
+		this.latencies = latencies;
+	}
+
+	/**
+	 * @return the cumulative time per request processing phase, in microseconds.
+	 */
+	public List<PhaseTiming> getPhases() {
+		return phases;
+	}
+
+	public void setPhases(List<PhaseTiming> phases) {
+		this.phases = phases;
+	}
+
+	/**
+	 * @return the aggregates over the stored persons, null while they are being loaded.
+	 */
+	public DatasetStatistics getDataset() {
+		return dataset;
+	}
+
+	public void setDataset(DatasetStatistics dataset) {
+		this.dataset = dataset;
+	}
+
+	/**
+	 * @return the request counters within the requested sliding window, null if none was requested.
+	 */
+	public WindowStatistics getWindow() {
+		return window;
+	}
+
+	public void setWindow(WindowStatistics window) {
+		this.window = window;
+	}
+
+	/**
+	 * @return the usage of the cached {@code GET /persons} document.
+	 */
+	public CacheStatistics getPersonsCache() {
+		return personsCache;
+	}
+
+	public void setPersonsCache(CacheStatistics personsCache) {
+		this.personsCache = personsCache;
+	}
 }
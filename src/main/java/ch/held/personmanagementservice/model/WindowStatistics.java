@@ -0,0 +1,108 @@
+package ch.held.personmanagementservice.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlType;
+
+/**
+ * The request counters within a sliding window, e.g. the last five minutes, as totals and rates per second. {@code seconds} is the time actually covered, which is shorter than
+ * the window shortly after startup.
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(propOrder = { "counters", "errors" })
+public class WindowStatistics {
+
+	@XmlAttribute(name = "length")
+	private String length;
+
+	@XmlAttribute(name = "seconds")
+	private double seconds;
+
+	@XmlElement(name = "counter")
+	private List<Rate> counters = new ArrayList<>();
+
+	@XmlElement(name = "error")
+	private List<Rate> errors = new ArrayList<>();
+
+	public WindowStatistics() {
+		// JAXB requires a no-arg constructor
+	}
+
+	public WindowStatistics(String length, double seconds) {
+		this.length = length;
+		this.seconds = seconds;
+	}
+
+	/**
+	 * @return the label of the window, e.g. {@code 5m}.
+	 */
+	public String getLength() {
+		return length;
+	}
+
+	public double getSeconds() {
+		return seconds;
+	}
+
+	public List<Rate> getCounters() {
+		return counters;
+	}
+
+	public void addCounter(String name, long total) {
+		counters.add(new Rate(name, total, seconds));
+	}
+
+	/**
+	 * @return the invalid add requests per error type, e.g. {@code JAXBException}.
+	 */
+	public List<Rate> getErrors() {
+		return errors;
+	}
+
+	public void addError(String type, long total) {
+		errors.add(new Rate(type, total, seconds));
+	}
+
+	/**
+	 * Total of one counter within the window and its average per second.
+	 */
+	@XmlAccessorType(XmlAccessType.FIELD)
+	public static class Rate {
+
+		@XmlAttribute(name = "name")
+		private String name;
+
+		@XmlAttribute(name = "total")
+		private long total;
+
+		@XmlAttribute(name = "perSecond")
+		private double perSecond;
+
+		public Rate() {
+			// JAXB requires a no-arg constructor
+		}
+
+		public Rate(String name, long total, double seconds) {
+			this.name = name;
+			this.total = total;
+			this.perSecond = seconds > 0 ? Math.round(total * 1000 / seconds) / 1000.0 : 0;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getTotal() {
+			return total;
+		}
+
+		public double getPerSecond() {
+			return perSecond;
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package ch.held.personmanagementservice.parser;
+
+import java.io.IOException;
+
+/**
+ * A document in the {@link ch.held.personmanagementservice.util.PersonBinaryFormat} is malformed or a person in it is invalid.
+ */
+public class BinaryFormatException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	public BinaryFormatException(String message, long offset) {
+		super(message + " at byte " + offset);
+	}
+}
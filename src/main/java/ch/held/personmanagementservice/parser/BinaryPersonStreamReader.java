@@ -0,0 +1,294 @@
+package ch.held.personmanagementservice.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import ch.held.personmanagementservice.statistics.impl.Phase;
+import ch.held.personmanagementservice.statistics.impl.PhaseTimer;
+import ch.held.personmanagementservice.util.PersonBinaryFormat;
+import generated.Person;
+
+/**
+ * Pull-based reader over a document in the {@link PersonBinaryFormat}. The stream is read into one buffer that is reused for all records, names are decoded into one reused
+ * character buffer; {@link #nextRecord()} and the record accessors allocate nothing but the name string. As iterator, the reader hands out a {@link Person} per record for the batch
+ * insert.
+ * <p>
+ * Persons are validated like the XSD and the entity constraints validate an XML person: the name is valid UTF-8 and not blank, the gender {@code f} or {@code m} and the age within
+ * the int range. As iterator, like an XML document, the document must contain at least one person. Errors are thrown as {@link BinaryFormatException}, wrapped in a
+ * {@link PersonStreamException} by the iterator. Not thread-safe.
+ */
+public class BinaryPersonStreamReader implements Iterator<Person>, AutoCloseable {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final InputStream in;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+	private final CharsetDecoder utf8 = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT).onUnmappableCharacter(CodingErrorAction.REPORT);
+	private final CharBuffer name = CharBuffer.allocate(PersonBinaryFormat.MAX_RECORD_LENGTH);
+
+	// Bytes of the stream before the start of the buffer
+	private long bufferOffset;
+	private long nextCursor;
+	private long id;
+	private int age;
+	private char gender;
+
+	private Person next;
+	private boolean started;
+	private boolean finished;
+	private boolean closed;
+	private int personsRead;
+
+	/**
+	 * @param in the stream to read, it is closed with the reader.
+	 */
+	public BinaryPersonStreamReader(InputStream in) {
+		this.in = in;
+	}
+
+	/**
+	 * Reads the next record, its values are available through the accessors until the next call.
+	 *
+	 * @return false at the end of the document.
+	 * @throws BinaryFormatException if the document is malformed or the person invalid.
+	 * @throws IOException           if the stream cannot be read.
+	 */
+	public boolean nextRecord() throws IOException {
+		if (!started) {
+			started = true;
+			readHeader();
+		}
+		if (finished) {
+			return false;
+		}
+		long length = readVarint();
+		if (length == 0) {
+			finished = true;
+			if (fill(1)) {
+				throw new BinaryFormatException("Unexpected content after the end of the document", position());
+			}
+			return false;
+		}
+		long recordStart = position();
+		if (length > PersonBinaryFormat.MAX_RECORD_LENGTH) {
+			throw new BinaryFormatException("Record longer than " + PersonBinaryFormat.MAX_RECORD_LENGTH + " bytes", recordStart);
+		}
+		if (!fill((int) length)) {
+			throw new BinaryFormatException("Unexpected end of document", recordStart);
+		}
+		int end = buffer.position() + (int) length;
+		int limit = buffer.limit();
+		buffer.limit(end);
+		try {
+			readRecord(recordStart);
+		} catch (BufferUnderflowException e) {
+			throw new BinaryFormatException("Record shorter than its fields", recordStart);
+		} finally {
+			buffer.limit(limit).position(end);
+		}
+		personsRead++;
+		return true;
+	}
+
+	/**
+	 * @return the id of the current record, 0 if it has none.
+	 */
+	public long getId() {
+		return id;
+	}
+
+	public int getAge() {
+		return age;
+	}
+
+	/**
+	 * @return {@code f} or {@code m}.
+	 */
+	public char getGender() {
+		return gender;
+	}
+
+	/**
+	 * @return the name of the current record, a view that is overwritten by the next record.
+	 */
+	public CharSequence getName() {
+		return name;
+	}
+
+	/**
+	 * @return the {@code after} value of the next page, or null if there is none or the header was not read yet.
+	 */
+	public Long getNextCursor() {
+		return nextCursor != 0 ? nextCursor : null;
+	}
+
+	/**
+	 * @return the number of persons read so far.
+	 */
+	public int getPersonsRead() {
+		return personsRead;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null && !finished) {
+			Phase previous = PhaseTimer.enter(Phase.PARSE_BINARY);
+			try {
+				if (nextRecord()) {
+					next = new Person();
+					next.setName(name.toString());
+					next.setGender(gender == 'f' ? "f" : "m");
+					next.setAge(BigInteger.valueOf(age));
+				} else if (personsRead == 0) {
+					throw new BinaryFormatException("Document must contain at least one person", position());
+				}
+			} catch (IOException e) {
+				finished = true;
+				throw new PersonStreamException("Invalid person at index " + personsRead, e);
+			} finally {
+				PhaseTimer.exit(previous);
+			}
+		}
+		return next != null;
+	}
+
+	@Override
+	public Person next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Person person = next;
+		next = null;
+		return person;
+	}
+
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			in.close();
+		} catch (IOException e) {
+			throw new PersonStreamException("Failed to close binary stream", e);
+		}
+	}
+
+	private void readHeader() throws IOException {
+		int headerLength = PersonBinaryFormat.MAGIC.length + 1;
+		if (!fill(headerLength)) {
+			throw new BinaryFormatException("Document too short", 0);
+		}
+		byte[] magic = new byte[PersonBinaryFormat.MAGIC.length];
+		buffer.get(magic);
+		if (!Arrays.equals(magic, PersonBinaryFormat.MAGIC)) {
+			throw new BinaryFormatException("Not a persons document", 0);
+		}
+		byte version = buffer.get();
+		if (version != PersonBinaryFormat.VERSION) {
+			throw new BinaryFormatException("Unsupported version " + version, PersonBinaryFormat.MAGIC.length);
+		}
+		nextCursor = readVarint();
+	}
+
+	/**
+	 * Reads a varint outside of a record, where the buffer may end within it.
+	 */
+	private long readVarint() throws IOException {
+		long start = position();
+		// A varint of up to 63 bits takes at most 9 bytes
+		fill(9);
+		if (!buffer.hasRemaining()) {
+			throw new BinaryFormatException("Unexpected end of document", start);
+		}
+		try {
+			long value = PersonBinaryFormat.getVarint(buffer);
+			if (value < 0) {
+				throw new BinaryFormatException("Varint out of range", start);
+			}
+			return value;
+		} catch (BufferUnderflowException e) {
+			throw new BinaryFormatException("Unexpected end of document", start);
+		}
+	}
+
+	private void readRecord(long recordStart) throws BinaryFormatException {
+		id = PersonBinaryFormat.getVarint(buffer);
+		if (id < 0) {
+			throw new BinaryFormatException("Id out of range", recordStart);
+		}
+		long age = PersonBinaryFormat.getVarint(buffer);
+		if (age < 0 || age > Integer.MAX_VALUE) {
+			throw new BinaryFormatException("Age is out of range", recordStart);
+		}
+		this.age = (int) age;
+		byte gender = buffer.get();
+		if (gender != 'f' && gender != 'm') {
+			throw new BinaryFormatException("Gender must be 'f' or 'm'", recordStart);
+		}
+		this.gender = (char) gender;
+		long nameLength = PersonBinaryFormat.getVarint(buffer);
+		if (nameLength != buffer.remaining()) {
+			throw new BinaryFormatException("Name length does not match the record length", recordStart);
+		}
+		name.clear();
+		utf8.reset();
+		// The name buffer holds as many chars as a record has bytes, anything but underflow is malformed input
+		if (!utf8.decode(buffer, name, true).isUnderflow() || !utf8.flush(name).isUnderflow()) {
+			throw new BinaryFormatException("Name is not valid UTF-8", recordStart);
+		}
+		name.flip();
+		if (isBlank(name)) {
+			throw new BinaryFormatException("Name cannot be blank", recordStart);
+		}
+	}
+
+	/**
+	 * Makes sure that at least {@code needed} bytes are buffered, as far as the stream has them.
+	 *
+	 * @return false if the stream ended before.
+	 */
+	private boolean fill(int needed) throws IOException {
+		if (buffer.remaining() >= needed) {
+			return true;
+		}
+		bufferOffset += buffer.position();
+		buffer.compact();
+		try {
+			while (buffer.position() < needed) {
+				int read = in.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+				if (read < 0) {
+					return false;
+				}
+				buffer.position(buffer.position() + read);
+			}
+			return true;
+		} finally {
+			buffer.flip();
+		}
+	}
+
+	private long position() {
+		return bufferOffset + buffer.position();
+	}
+
+	private static boolean isBlank(CharSequence value) {
+		for (int i = 0; i < value.length(); i++) {
+			if (!Character.isWhitespace(value.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,48 @@
+package ch.held.personmanagementservice.parser;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import generated.Person;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.json.Json;
+import jakarta.json.stream.JsonParserFactory;
+
+/**
+ * Service class for reading persons from JSON documents. The documents are read with a streaming JSON-P parser and validated while they are read, with the rules of the XSD and
+ * the entity constraints; there is no tree or object mapping step.
+ */
+@ApplicationScoped
+public class JsonPersonParser {
+
+	private static final Logger LOGGER = Logger.getLogger(JsonPersonParser.class.getName());
+
+	private static final JsonParserFactory JSON_PARSER_FACTORY = Json.createParserFactory(Map.of());
+
+	/**
+	 * Opens a streaming reader over a {@code {"persons": [...]}} document. Every person is validated and converted while the returned reader is iterated, so the caller can hand the
+	 * persons on in batches as they arrive.
+	 *
+	 * @param personJson the JSON data as stream, in UTF-8, UTF-16 or UTF-32; it is closed with the reader
+	 * @return a reader that yields the persons of the document one at a time
+	 */
+	public JsonPersonStreamReader streamPersons(final InputStream personJson) {
+		LOGGER.info("Streaming JSON to Person objects.");
+		return new JsonPersonStreamReader(JSON_PARSER_FACTORY.createParser(personJson));
+	}
+
+	/**
+	 * Parses a document that is a single person object, as sent to update a person.
+	 *
+	 * @param personJson the JSON data as stream, it is closed before this method returns
+	 * @return the validated person
+	 * @throws PersonStreamException if the document is not a valid person
+	 */
+	public Person parsePerson(final InputStream personJson) {
+		LOGGER.info("Parsing JSON to Person object.");
+		try (JsonPersonStreamReader reader = new JsonPersonStreamReader(JSON_PARSER_FACTORY.createParser(personJson))) {
+			return reader.readSinglePerson();
+		}
+	}
+}
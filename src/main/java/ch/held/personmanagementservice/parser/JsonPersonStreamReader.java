@@ -0,0 +1,229 @@
+package ch.held.personmanagementservice.parser;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import ch.held.personmanagementservice.statistics.impl.Phase;
+import ch.held.personmanagementservice.statistics.impl.PhaseTimer;
+import generated.Person;
+import jakarta.json.JsonException;
+import jakarta.json.stream.JsonParser;
+import jakarta.json.stream.JsonParsingException;
+
+/**
+ * Pull-based reader over a {@code {"persons": [...]}} document. Each person is parsed and validated only when it is requested, so at most one person is held in memory by the
+ * reader regardless of the document size.
+ * <p>
+ * The document is validated like the XSD and the entity constraints validate an XML document: a person has exactly the properties {@code name} (not blank), {@code gender}
+ * ({@code f} or {@code m}) and {@code age} (an integer from 0), and the document has at least one person. Errors found while iterating are thrown as {@link PersonStreamException}.
+ * Not thread-safe.
+ */
+public class JsonPersonStreamReader implements Iterator<Person>, AutoCloseable {
+
+	private static final String PERSONS_PROPERTY = "persons";
+	private static final BigDecimal MAX_AGE = BigDecimal.valueOf(Integer.MAX_VALUE);
+
+	private final JsonParser parser;
+
+	private Person next;
+	private boolean started;
+	private boolean finished;
+	private boolean closed;
+	private int personsRead;
+
+	JsonPersonStreamReader(JsonParser parser) {
+		this.parser = parser;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null && !finished) {
+			Phase previous = PhaseTimer.enter(Phase.PARSE_JSON);
+			try {
+				next = readNext();
+			} finally {
+				PhaseTimer.exit(previous);
+			}
+		}
+		return next != null;
+	}
+
+	@Override
+	public Person next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Person person = next;
+		next = null;
+		return person;
+	}
+
+	/**
+	 * @return the number of persons read so far.
+	 */
+	public int getPersonsRead() {
+		return personsRead;
+	}
+
+	/**
+	 * Closes the parser and with it the underlying stream.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			parser.close();
+		} catch (JsonException e) {
+			throw new PersonStreamException("Failed to close JSON stream", e);
+		}
+	}
+
+	private Person readNext() {
+		try {
+			if (!started) {
+				started = true;
+				expect(nextEvent(), JsonParser.Event.START_OBJECT, "Expected an object with the property '" + PERSONS_PROPERTY + "'");
+				if (nextEvent() != JsonParser.Event.KEY_NAME || !PERSONS_PROPERTY.equals(parser.getString())) {
+					throw error("Expected the property '" + PERSONS_PROPERTY + "'");
+				}
+				expect(nextEvent(), JsonParser.Event.START_ARRAY, "Property '" + PERSONS_PROPERTY + "' must be an array");
+			}
+			JsonParser.Event event = nextEvent();
+			if (event == JsonParser.Event.END_ARRAY) {
+				finished = true;
+				if (personsRead == 0) {
+					throw error("Property '" + PERSONS_PROPERTY + "' must contain at least one person");
+				}
+				expect(nextEvent(), JsonParser.Event.END_OBJECT, "Unexpected property after '" + PERSONS_PROPERTY + "'");
+				if (parser.hasNext()) {
+					throw error("Unexpected content after the document");
+				}
+				return null;
+			}
+			expect(event, JsonParser.Event.START_OBJECT, "Expected a person object");
+			Person person = readPerson();
+			personsRead++;
+			return person;
+		} catch (JsonException e) {
+			finished = true;
+			throw new PersonStreamException("Invalid person at index " + personsRead, e);
+		}
+	}
+
+	/**
+	 * Reads a document that consists of a single person object instead of a persons document.
+	 *
+	 * @return the validated person.
+	 * @throws PersonStreamException if the document is not a valid person.
+	 */
+	Person readSinglePerson() {
+		Phase previous = PhaseTimer.enter(Phase.PARSE_JSON);
+		try {
+			started = true;
+			finished = true;
+			expect(nextEvent(), JsonParser.Event.START_OBJECT, "Expected a person object");
+			Person person = readPerson();
+			if (parser.hasNext()) {
+				throw error("Unexpected content after the person");
+			}
+			personsRead++;
+			return person;
+		} catch (JsonException e) {
+			throw new PersonStreamException("Invalid person", e);
+		} finally {
+			PhaseTimer.exit(previous);
+		}
+	}
+
+	/**
+	 * Reads the properties of a person, the parser is positioned after its start.
+	 */
+	private Person readPerson() {
+		Person person = new Person();
+		JsonParser.Event event;
+		while ((event = nextEvent()) == JsonParser.Event.KEY_NAME) {
+			String property = parser.getString();
+			switch (property) {
+			case "name" -> {
+				checkUnset(person.getName(), property);
+				String name = readString(property);
+				if (name.isBlank()) {
+					throw error("Name cannot be blank");
+				}
+				person.setName(name);
+			}
+			case "gender" -> {
+				checkUnset(person.getGender(), property);
+				String gender = readString(property);
+				if (!"f".equals(gender) && !"m".equals(gender)) {
+					throw error("Gender must be 'f' or 'm'");
+				}
+				person.setGender(gender);
+			}
+			case "age" -> {
+				checkUnset(person.getAge(), property);
+				person.setAge(readAge());
+			}
+			default -> throw error("Unexpected property '" + property + "'");
+			}
+		}
+		expect(event, JsonParser.Event.END_OBJECT, "Expected a property name");
+		if (person.getName() == null) {
+			throw error("Property 'name' is required");
+		}
+		if (person.getGender() == null) {
+			throw error("Property 'gender' is required");
+		}
+		if (person.getAge() == null) {
+			throw error("Property 'age' is required");
+		}
+		return person;
+	}
+
+	private String readString(String property) {
+		expect(nextEvent(), JsonParser.Event.VALUE_STRING, "Property '" + property + "' must be a string");
+		return parser.getString();
+	}
+
+	private BigInteger readAge() {
+		if (nextEvent() != JsonParser.Event.VALUE_NUMBER || !parser.isIntegralNumber()) {
+			throw error("Property 'age' must be an integer");
+		}
+		BigDecimal age = parser.getBigDecimal();
+		if (age.signum() < 0) {
+			throw error("Age cannot be negative");
+		}
+		if (age.compareTo(MAX_AGE) > 0) {
+			throw error("Age is out of range");
+		}
+		return age.toBigIntegerExact();
+	}
+
+	private void checkUnset(Object value, String property) {
+		if (value != null) {
+			throw error("Duplicate property '" + property + "'");
+		}
+	}
+
+	private JsonParser.Event nextEvent() {
+		if (!parser.hasNext()) {
+			throw error("Unexpected end of document");
+		}
+		return parser.next();
+	}
+
+	private void expect(JsonParser.Event actual, JsonParser.Event expected, String message) {
+		if (actual != expected) {
+			throw error(message);
+		}
+	}
+
+	private JsonParsingException error(String message) {
+		return new JsonParsingException(message, parser.getLocation());
+	}
+}
@@ -0,0 +1,138 @@
+package ch.held.personmanagementservice.parser;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.XMLConstants;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.xml.sax.SAXException;
+
+import ch.held.personmanagementservice.model.PersonUpdates;
+import ch.held.personmanagementservice.model.PersonsWrapper;
+import ch.held.personmanagementservice.model.PoolStatistics;
+import ch.held.personmanagementservice.model.StatisticsEntity;
+import ch.held.personmanagementservice.util.JaxbContextProvider;
+import ch.held.personmanagementservice.util.JaxbPool;
+import ch.held.personmanagementservice.util.ServiceConfiguration;
+import generated.Persons;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+
+/**
+ * Holds the XML processing resources that are expensive to build: the compiled XSD {@link Schema}, which is thread-safe and loaded once, and pools of the non thread-safe JAXB
+ * {@link Unmarshaller}s and {@link Marshaller}s.
+ */
+@ApplicationScoped
+public class ParserResources {
+
+	private static final Logger LOGGER = Logger.getLogger(ParserResources.class.getName());
+
+	private static final String XSD_LOCATION = "/xsd/fullstack-backend-challenge.xsd";
+
+	@Inject
+	private JaxbContextProvider jaxbContextProvider;
+
+	private volatile Schema schema;
+
+	private JaxbPool<Unmarshaller> validatingUnmarshallers;
+	private JaxbPool<Unmarshaller> unmarshallers;
+	private JaxbPool<Unmarshaller> updateUnmarshallers;
+	private JaxbPool<Marshaller> marshallers;
+
+	public ParserResources() {
+		// public or package-private constructor
+	}
+
+	@PostConstruct
+	void init() {
+		int poolSize = ServiceConfiguration.parserPoolSize();
+		validatingUnmarshallers = new JaxbPool<>("validatingUnmarshaller", poolSize, () -> {
+			Unmarshaller unmarshaller = jaxbContextProvider.getJaxbContext(Persons.class).createUnmarshaller();
+			unmarshaller.setSchema(getSchema());
+			return unmarshaller;
+		});
+		unmarshallers = new JaxbPool<>("unmarshaller", poolSize, () -> jaxbContextProvider.getJaxbContext(Persons.class).createUnmarshaller());
+		updateUnmarshallers = new JaxbPool<>("updateUnmarshaller", poolSize, () -> jaxbContextProvider.getJaxbContext(PersonUpdates.class).createUnmarshaller());
+		marshallers = new JaxbPool<>("marshaller", poolSize, () -> jaxbContextProvider.getJaxbContext(PersonsWrapper.class, StatisticsEntity.class).createMarshaller());
+	}
+
+	/**
+	 * @return the compiled XSD of the persons document, loaded on first use.
+	 * @throws JAXBException if the XSD cannot be loaded or compiled.
+	 */
+	public Schema getSchema() throws JAXBException {
+		Schema loaded = schema;
+		if (loaded == null) {
+			synchronized (this) {
+				loaded = schema;
+				if (loaded == null) { // Double-check locking pattern
+					loaded = loadSchema();
+					schema = loaded;
+				}
+			}
+		}
+		return loaded;
+	}
+
+	/**
+	 * @return the pool of unmarshallers for {@link Persons} that validate against the XSD.
+	 */
+	public JaxbPool<Unmarshaller> getValidatingUnmarshallers() {
+		return validatingUnmarshallers;
+	}
+
+	/**
+	 * @return the pool of unmarshallers for {@link Persons} without schema validation.
+	 */
+	public JaxbPool<Unmarshaller> getUnmarshallers() {
+		return unmarshallers;
+	}
+
+	/**
+	 * @return the pool of unmarshallers for {@link PersonUpdates}, which have no XSD and are checked by bean validation only.
+	 */
+	public JaxbPool<Unmarshaller> getUpdateUnmarshallers() {
+		return updateUnmarshallers;
+	}
+
+	/**
+	 * Marshals a response model object such as {@link PersonsWrapper} or {@link StatisticsEntity} with a pooled marshaller.
+	 *
+	 * @param jaxbElement the object to marshal.
+	 * @param out         the stream to write to.
+	 * @throws JAXBException if marshalling fails.
+	 */
+	public void marshal(Object jaxbElement, OutputStream out) throws JAXBException {
+		Marshaller marshaller = marshallers.borrow();
+		try {
+			marshaller.marshal(jaxbElement, out);
+		} finally {
+			marshallers.release(marshaller);
+		}
+	}
+
+	/**
+	 * @return hit and miss figures of all pools.
+	 */
+	public List<PoolStatistics> getPoolStatistics() {
+		return List.of(validatingUnmarshallers.getStatistics(), unmarshallers.getStatistics(), updateUnmarshallers.getStatistics(), marshallers.getStatistics());
+	}
+
+	private static Schema loadSchema() throws JAXBException {
+		try {
+			SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+			return schemaFactory.newSchema(ParserResources.class.getResource(XSD_LOCATION));
+		} catch (SAXException e) {
+			LOGGER.log(Level.SEVERE, "Failed to load XSD schema", e);
+			throw new JAXBException("Failed to load XSD schema " + XSD_LOCATION, e);
+		}
+	}
+}
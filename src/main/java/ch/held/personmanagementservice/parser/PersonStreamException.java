@@ -0,0 +1,22 @@
+package ch.held.personmanagementservice.parser;
+
+/**
+ * Unchecked wrapper for parsing and validation errors raised while a {@link PersonStreamReader}, {@link JsonPersonStreamReader} or {@link BinaryPersonStreamReader} is
+ * iterated. The cause is the original {@link jakarta.xml.bind.JAXBException}, {@link javax.xml.stream.XMLStreamException}, {@link jakarta.json.stream.JsonParsingException} or
+ * {@link BinaryFormatException}.
+ */
+public class PersonStreamException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public PersonStreamException(String message, Exception cause) {
+		super(message, cause);
+	}
+
+	/**
+	 * @return the checked exception that caused the streaming to fail.
+	 */
+	public Exception getOriginalException() {
+		return (Exception) getCause();
+	}
+}
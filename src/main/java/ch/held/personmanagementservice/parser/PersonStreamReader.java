@@ -0,0 +1,147 @@
+package ch.held.personmanagementservice.parser;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import ch.held.personmanagementservice.statistics.impl.Phase;
+import ch.held.personmanagementservice.statistics.impl.PhaseTimer;
+import generated.Person;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+
+/**
+ * Pull-based reader over a {@code <persons>} document. Each {@code <person>} element is unmarshalled and validated only when it is requested, so at most one person is held in
+ * memory by the reader regardless of the document size. Schema validation is left to the {@link XMLStreamReader}, see {@link ValidatingStreamReader}.
+ * <p>
+ * Errors found while iterating are thrown as {@link PersonStreamException}. Not thread-safe.
+ */
+public class PersonStreamReader implements Iterator<Person>, AutoCloseable {
+
+	private static final String PERSONS_ELEMENT = "persons";
+	private static final String PERSON_ELEMENT = "person";
+
+	private final XMLStreamReader reader;
+	private final Unmarshaller unmarshaller;
+	private final Consumer<Person> personValidator;
+	private final Runnable onClose;
+
+	private Person next;
+	private boolean started;
+	private boolean finished;
+	private boolean closed;
+	private int personsRead;
+
+	PersonStreamReader(XMLStreamReader reader, Unmarshaller unmarshaller, Consumer<Person> personValidator, Runnable onClose) {
+		this.reader = reader;
+		this.unmarshaller = unmarshaller;
+		this.personValidator = personValidator;
+		this.onClose = onClose;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null && !finished) {
+			Phase previous = PhaseTimer.enter(Phase.PARSE_XML);
+			try {
+				next = readNext();
+			} finally {
+				PhaseTimer.exit(previous);
+			}
+		}
+		return next != null;
+	}
+
+	@Override
+	public Person next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Person person = next;
+		next = null;
+		return person;
+	}
+
+	/**
+	 * @return the number of persons read so far.
+	 */
+	public int getPersonsRead() {
+		return personsRead;
+	}
+
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			reader.close();
+		} catch (XMLStreamException e) {
+			throw new PersonStreamException("Failed to close XML stream", e);
+		} finally {
+			onClose.run();
+		}
+	}
+
+	private Person readNext() {
+		try {
+			if (!started) {
+				started = true;
+				reader.nextTag();
+				expectStartElement(PERSONS_ELEMENT);
+				reader.next();
+			}
+			skipToTag();
+			if (reader.getEventType() == XMLStreamConstants.END_ELEMENT) {
+				finished = true;
+				if (personsRead == 0) {
+					throw new XMLStreamException("Element 'persons' must contain at least one 'person'", reader.getLocation());
+				}
+				// Moves past the end tag, which completes the validation of the document
+				reader.next();
+				return null;
+			}
+			expectStartElement(PERSON_ELEMENT);
+			Person person = unmarshaller.unmarshal(reader, Person.class).getValue();
+			personValidator.accept(person);
+			personsRead++;
+			return person;
+		} catch (JAXBException | XMLStreamException e) {
+			finished = true;
+			throw new PersonStreamException("Invalid person at index " + personsRead, e);
+		}
+	}
+
+	/**
+	 * Moves the reader to the next start or end tag, skipping whitespace, comments and processing instructions. Does not move if the reader is already on a tag.
+	 */
+	private void skipToTag() throws XMLStreamException {
+		while (true) {
+			switch (reader.getEventType()) {
+			case XMLStreamConstants.START_ELEMENT, XMLStreamConstants.END_ELEMENT:
+				return;
+			case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA:
+				if (!reader.isWhiteSpace()) {
+					throw new XMLStreamException("Unexpected text content in 'persons'", reader.getLocation());
+				}
+				break;
+			case XMLStreamConstants.SPACE, XMLStreamConstants.COMMENT, XMLStreamConstants.PROCESSING_INSTRUCTION:
+				break;
+			default:
+				throw new XMLStreamException("Unexpected end of document", reader.getLocation());
+			}
+			reader.next();
+		}
+	}
+
+	private void expectStartElement(String localName) throws XMLStreamException {
+		if (reader.getEventType() != XMLStreamConstants.START_ELEMENT || !localName.equals(reader.getLocalName())) {
+			throw new XMLStreamException("Expected element '" + localName + "'", reader.getLocation());
+		}
+	}
+}
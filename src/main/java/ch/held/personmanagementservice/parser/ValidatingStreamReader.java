@@ -0,0 +1,168 @@
+package ch.held.personmanagementservice.parser;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import javax.xml.validation.Schema;
+import javax.xml.validation.ValidatorHandler;
+
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Validates a document against an XSD while it is read. Every event the reader moves past is passed on to one {@link ValidatorHandler} for the whole document, so consumers such as
+ * a JAXB unmarshaller can read from this reader without validating themselves. A schema violation is thrown as {@link XMLStreamException} from the call that leaves the invalid
+ * event; an event is validated when it is left rather than when it is reached, so that a consumer that stops on the start tag of the next element, as JAXB does, does not see its
+ * errors.
+ * <p>
+ * Not thread-safe.
+ */
+class ValidatingStreamReader extends StreamReaderDelegate {
+
+	private final ValidatorHandler validatorHandler;
+	private final AttributesImpl attributes = new AttributesImpl();
+
+	/**
+	 * @param reader the reader to validate, positioned at the start of the document.
+	 * @param schema the schema to validate against.
+	 * @throws XMLStreamException if the reader is not at the start of the document.
+	 */
+	ValidatingStreamReader(XMLStreamReader reader, Schema schema) throws XMLStreamException {
+		super(reader);
+		if (reader.getEventType() != XMLStreamConstants.START_DOCUMENT) {
+			throw new XMLStreamException("Reader must be at the start of the document", reader.getLocation());
+		}
+		validatorHandler = schema.newValidatorHandler();
+		validatorHandler.setDocumentLocator(new StreamLocator());
+		try {
+			validatorHandler.startDocument();
+		} catch (SAXException e) {
+			throw validationError(e);
+		}
+	}
+
+	@Override
+	public int next() throws XMLStreamException {
+		try {
+			validate(getEventType());
+			int eventType = super.next();
+			if (eventType == XMLStreamConstants.END_DOCUMENT) {
+				// There is no moving past the end of the document
+				validatorHandler.endDocument();
+			}
+			return eventType;
+		} catch (SAXException e) {
+			throw validationError(e);
+		}
+	}
+
+	/**
+	 * Goes through {@link #next()} so that the skipped events are validated as well.
+	 */
+	@Override
+	public int nextTag() throws XMLStreamException {
+		int eventType = next();
+		while (eventType == XMLStreamConstants.SPACE || eventType == XMLStreamConstants.COMMENT || eventType == XMLStreamConstants.PROCESSING_INSTRUCTION
+				|| (eventType == XMLStreamConstants.CHARACTERS || eventType == XMLStreamConstants.CDATA) && isWhiteSpace()) {
+			eventType = next();
+		}
+		if (eventType != XMLStreamConstants.START_ELEMENT && eventType != XMLStreamConstants.END_ELEMENT) {
+			throw new XMLStreamException("Expected a start or end tag", getLocation());
+		}
+		return eventType;
+	}
+
+	/**
+	 * Goes through {@link #next()} so that the text is validated as well.
+	 */
+	@Override
+	public String getElementText() throws XMLStreamException {
+		if (getEventType() != XMLStreamConstants.START_ELEMENT) {
+			throw new XMLStreamException("Expected a start tag", getLocation());
+		}
+		StringBuilder text = new StringBuilder();
+		int eventType = next();
+		while (eventType != XMLStreamConstants.END_ELEMENT) {
+			if (eventType == XMLStreamConstants.CHARACTERS || eventType == XMLStreamConstants.CDATA || eventType == XMLStreamConstants.SPACE) {
+				text.append(getTextCharacters(), getTextStart(), getTextLength());
+			} else if (eventType != XMLStreamConstants.COMMENT && eventType != XMLStreamConstants.PROCESSING_INSTRUCTION) {
+				throw new XMLStreamException("Unexpected content in a text-only element", getLocation());
+			}
+			eventType = next();
+		}
+		return text.toString();
+	}
+
+	private void validate(int eventType) throws SAXException {
+		switch (eventType) {
+		case XMLStreamConstants.START_ELEMENT:
+			for (int i = 0; i < getNamespaceCount(); i++) {
+				validatorHandler.startPrefixMapping(nullToEmpty(getNamespacePrefix(i)), nullToEmpty(getNamespaceURI(i)));
+			}
+			attributes.clear();
+			for (int i = 0; i < getAttributeCount(); i++) {
+				attributes.addAttribute(nullToEmpty(getAttributeNamespace(i)), getAttributeLocalName(i), qualifiedName(getAttributePrefix(i), getAttributeLocalName(i)),
+						getAttributeType(i), getAttributeValue(i));
+			}
+			validatorHandler.startElement(nullToEmpty(getNamespaceURI()), getLocalName(), qualifiedName(getPrefix(), getLocalName()), attributes);
+			break;
+		case XMLStreamConstants.END_ELEMENT:
+			validatorHandler.endElement(nullToEmpty(getNamespaceURI()), getLocalName(), qualifiedName(getPrefix(), getLocalName()));
+			for (int i = getNamespaceCount() - 1; i >= 0; i--) {
+				validatorHandler.endPrefixMapping(nullToEmpty(getNamespacePrefix(i)));
+			}
+			break;
+		case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE:
+			validatorHandler.characters(getTextCharacters(), getTextStart(), getTextLength());
+			break;
+		default:
+			// The start of the document is passed on by the constructor, comments and processing instructions do not take part in validation
+			break;
+		}
+	}
+
+	private XMLStreamException validationError(SAXException e) {
+		return new XMLStreamException(e.getMessage(), getLocation(), e);
+	}
+
+	private static String qualifiedName(String prefix, String localName) {
+		return prefix == null || prefix.isEmpty() ? localName : prefix + ':' + localName;
+	}
+
+	private static String nullToEmpty(String value) {
+		return value != null ? value : "";
+	}
+
+	/**
+	 * Reports the position of the reader, so validation errors point into the document.
+	 */
+	private class StreamLocator implements Locator {
+
+		@Override
+		public String getPublicId() {
+			Location location = getLocation();
+			return location != null ? location.getPublicId() : null;
+		}
+
+		@Override
+		public String getSystemId() {
+			Location location = getLocation();
+			return location != null ? location.getSystemId() : null;
+		}
+
+		@Override
+		public int getLineNumber() {
+			Location location = getLocation();
+			return location != null ? location.getLineNumber() : -1;
+		}
+
+		@Override
+		public int getColumnNumber() {
+			Location location = getLocation();
+			return location != null ? location.getColumnNumber() : -1;
+		}
+	}
+}
@@ -1,38 +1,43 @@
 package ch.held.personmanagementservice.parser;
 
+import java.io.InputStream;
 import java.io.StringReader;
 import java.util.Set;
-import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.stream.StreamSource;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 
-import org.xml.sax.SAXException;
-
-import ch.held.personmanagementservice.util.JaxbContextProvider;
+import ch.held.personmanagementservice.model.PersonUpdates;
+import ch.held.personmanagementservice.statistics.impl.Phase;
+import ch.held.personmanagementservice.statistics.impl.PhaseTimer;
 import generated.Persons;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
-import jakarta.validation.Validation;
 import jakarta.validation.Validator;
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.Unmarshaller;
 
 /**
- * Service class for parsing XML data into {@link Persons} objects and validating XML against an XSD.
+ * Service class for parsing XML data into {@link Persons} objects and validating XML against an XSD. The compiled schema and the unmarshallers are shared through
+ * {@link ParserResources}.
  */
 @ApplicationScoped
 public class XmlPersonParser {
 
 	private static final Logger LOGGER = Logger.getLogger(XmlPersonParser.class.getName());
 
+	private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+	@Inject
+	private ParserResources parserResources;
+
 	@Inject
-	private JaxbContextProvider jaxbContextProvider;
+	private Validator validator;
 
 	public XmlPersonParser() {
 		// public or package-private constructor
@@ -47,9 +52,15 @@ public class XmlPersonParser {
 	 */
 	public Persons parseXml(final String personXml) throws JAXBException {
 		LOGGER.info("Parsing XML to Persons object.");
-		JAXBContext jaxbContext = jaxbContextProvider.getJaxbContext(Persons.class);
-		Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-		Persons persons = (Persons) unmarshaller.unmarshal(new StringReader(personXml));
+		Phase previous = PhaseTimer.enter(Phase.PARSE_XML);
+		Unmarshaller unmarshaller = parserResources.getUnmarshallers().borrow();
+		Persons persons;
+		try {
+			persons = (Persons) unmarshaller.unmarshal(new StringReader(personXml));
+		} finally {
+			parserResources.getUnmarshallers().release(unmarshaller);
+			PhaseTimer.exit(previous);
+		}
 
 		// Validate the unmarshalled object
 		validateJavaObject(persons);
@@ -58,35 +69,80 @@ public class XmlPersonParser {
 
 	}
 
+	/**
+	 * Parses the request body of a bulk update into a {@link PersonUpdates} object and validates it with bean validation.
+	 *
+	 * @param updatesXml the XML data as String
+	 * @return the parsed updates
+	 * @throws JAXBException if the XML cannot be unmarshalled
+	 */
+	public PersonUpdates parseUpdates(final String updatesXml) throws JAXBException {
+		LOGGER.info("Parsing XML to PersonUpdates object.");
+		Phase previous = PhaseTimer.enter(Phase.PARSE_XML);
+		Unmarshaller unmarshaller = parserResources.getUpdateUnmarshallers().borrow();
+		PersonUpdates updates;
+		try {
+			updates = (PersonUpdates) unmarshaller.unmarshal(new StringReader(updatesXml));
+		} finally {
+			parserResources.getUpdateUnmarshallers().release(unmarshaller);
+			PhaseTimer.exit(previous);
+		}
+
+		validateJavaObject(updates);
+
+		return updates;
+	}
+
 	/**
 	 * Validates XML data against an XSD schema.
 	 *
 	 * @param xmlData the XML data as String to be validated
-	 * @throws JAXBException if an error occurs during the unmarshalling process
-	 * @throws SAXException  if an error occurs during XML schema loading or validation
+	 * @throws JAXBException if an error occurs during XML schema loading, unmarshalling or validation
 	 */
-	public void validateXml(final String xmlData) throws JAXBException, SAXException {
+	public void validateXml(final String xmlData) throws JAXBException {
 		LOGGER.info("Validating XML against XSD schema.");
-		JAXBContext jaxbContext = JAXBContext.newInstance(Persons.class);
-		Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-		Schema schema = loadSchema();
-		unmarshaller.setSchema(schema);
-		unmarshaller.unmarshal(new StreamSource(new StringReader(xmlData))); // Perform validation
-	}
-
-	private Schema loadSchema() throws SAXException {
+		Phase previous = PhaseTimer.enter(Phase.VALIDATE_XML);
+		Unmarshaller unmarshaller = parserResources.getValidatingUnmarshallers().borrow();
 		try {
-			SchemaFactory schemaFactory = SchemaFactory.newInstance(javax.xml.XMLConstants.W3C_XML_SCHEMA_NS_URI);
-			return schemaFactory.newSchema(XmlPersonParser.class.getResource("/xsd/fullstack-backend-challenge.xsd"));
-		} catch (SAXException e) {
-			LOGGER.log(Level.SEVERE, "Failed to load XSD schema", e);
-			throw e;
+			unmarshaller.unmarshal(new StreamSource(new StringReader(xmlData))); // Perform validation
+		} finally {
+			parserResources.getValidatingUnmarshallers().release(unmarshaller);
+			PhaseTimer.exit(previous);
 		}
 	}
 
-	private void validateJavaObject(Persons persons) {
-		Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
-		Set<ConstraintViolation<Persons>> violations = validator.validate(persons);
+	/**
+	 * Opens a streaming reader over a persons document. The document is neither loaded into memory nor unmarshalled up front: every {@code <person>} is validated against the XSD and
+	 * unmarshalled while the returned reader is iterated, so the caller can hand the persons on in batches as they arrive.
+	 *
+	 * @param personXml the XML data as stream, the caller remains responsible for closing it
+	 * @return a reader that yields the persons of the document one at a time, must be closed to return its unmarshaller to the pool
+	 * @throws JAXBException      if an error occurs during XML schema loading or unmarshaller creation
+	 * @throws XMLStreamException if the stream cannot be opened as XML
+	 */
+	public PersonStreamReader streamPersons(final InputStream personXml) throws JAXBException, XMLStreamException {
+		LOGGER.info("Streaming XML to Person objects.");
+		// One validator for the whole document, the persons are unmarshalled from the validated events
+		XMLStreamReader reader = new ValidatingStreamReader(XML_INPUT_FACTORY.createXMLStreamReader(personXml), parserResources.getSchema());
+		Unmarshaller unmarshaller = parserResources.getUnmarshallers().borrow();
+		return new PersonStreamReader(reader, unmarshaller, this::validateJavaObject, () -> parserResources.getUnmarshallers().release(unmarshaller));
+	}
+
+	private static XMLInputFactory createXmlInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+
+	private <T> void validateJavaObject(T object) {
+		Set<ConstraintViolation<T>> violations;
+		Phase previous = PhaseTimer.enter(Phase.VALIDATE_OBJECT);
+		try {
+			violations = validator.validate(object);
+		} finally {
+			PhaseTimer.exit(previous);
+		}
 
 		if (!violations.isEmpty()) {
 			LOGGER.warning("XML validation errors: " + violations.toString());
@@ -0,0 +1,192 @@
+package ch.held.personmanagementservice.search;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import ch.held.personmanagementservice.model.NameMatch;
+import ch.held.personmanagementservice.service.PersonChangeEvent;
+import ch.held.personmanagementservice.service.PersonService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+
+/**
+ * In-memory trigram index over all person names for substring and typo-tolerant lookups, which a {@code LIKE '%x%'} query can only answer with a table scan.
+ * <p>
+ * The index is built from the table in the background when the application starts and follows committed changes through {@link PersonChangeEvent}s. Changes the event does not
+ * list, e.g. a delete by criteria, trigger a rebuild; the previous index keeps serving lookups until the new one is complete.
+ */
+@ApplicationScoped
+public class NameIndex {
+
+	private static final Logger LOGGER = Logger.getLogger(NameIndex.class.getName());
+
+	@Inject
+	private PersonService personService;
+
+	@Resource
+	private ManagedThreadFactory managedThreadFactory;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+	private ExecutorService rebuilder;
+
+	// Guarded by lock
+	private TrigramIndex index = new TrigramIndex();
+	private TrigramIndex rebuilding;
+	private Set<Long> changedDuringRebuild;
+	private boolean ready;
+
+	@PostConstruct
+	void init() {
+		ThreadFactory threadFactory = managedThreadFactory != null ? managedThreadFactory : Executors.defaultThreadFactory();
+		rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = threadFactory.newThread(runnable);
+			thread.setName("person-name-index");
+			return thread;
+		});
+	}
+
+	@PreDestroy
+	void shutdown() {
+		rebuilder.shutdownNow();
+	}
+
+	void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+		requestRebuild();
+	}
+
+	void onPersonsChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) PersonChangeEvent event) {
+		if (!event.isComplete()) {
+			requestRebuild();
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			for (PersonChangeEvent.Change change : event.getChanges()) {
+				apply(index, change);
+				if (rebuilding != null) {
+					// The rebuild may already have read the old row, the change wins over what it reads later
+					apply(rebuilding, change);
+					changedDuringRebuild.add(change.id());
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @return false until the index has been built after startup.
+	 */
+	public boolean isReady() {
+		lock.readLock().lock();
+		try {
+			return ready;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds persons by name, see {@link TrigramIndex#search(String, int, boolean)}.
+	 *
+	 * @param query at least three letters or digits, case and diacritics are ignored.
+	 * @param limit the maximum number of matches.
+	 * @param fuzzy whether names that do not contain the query but share at least half of its trigrams match.
+	 * @return the best matches, best first.
+	 * @throws IllegalArgumentException if the query is too short.
+	 */
+	public List<NameMatch> search(String query, int limit, boolean fuzzy) {
+		lock.readLock().lock();
+		try {
+			return index.search(query, limit, fuzzy);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Schedules a rebuild from the table; requests arriving while a rebuild is queued are coalesced.
+	 */
+	public void requestRebuild() {
+		if (rebuildQueued.compareAndSet(false, true)) {
+			rebuilder.execute(this::rebuild);
+		}
+	}
+
+	private void rebuild() {
+		rebuildQueued.set(false);
+		TrigramIndex fresh = new TrigramIndex();
+		lock.writeLock().lock();
+		try {
+			rebuilding = fresh;
+			changedDuringRebuild = new HashSet<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		long start = System.nanoTime();
+		try {
+			personService.streamAllPersons(person -> {
+				lock.writeLock().lock();
+				try {
+					if (!changedDuringRebuild.contains(person.getId())) {
+						fresh.put(person.getId(), person.getName());
+					}
+				} finally {
+					lock.writeLock().unlock();
+				}
+			});
+		} catch (RuntimeException e) {
+			LOGGER.log(Level.WARNING, "Rebuilding the name index failed, keeping the previous index", e);
+			lock.writeLock().lock();
+			try {
+				rebuilding = null;
+				changedDuringRebuild = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+			return;
+		}
+
+		int size;
+		long sizeInBytes;
+		lock.writeLock().lock();
+		try {
+			fresh.trim();
+			index = fresh;
+			rebuilding = null;
+			changedDuringRebuild = null;
+			ready = true;
+			size = fresh.size();
+			sizeInBytes = fresh.sizeInBytes();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		LOGGER.info(() -> "Name index built with " + size + " names (" + sizeInBytes / 1024 + " KiB) in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+	}
+
+	private static void apply(TrigramIndex target, PersonChangeEvent.Change change) {
+		if (change.kind() == PersonChangeEvent.Kind.DELETED) {
+			target.remove(change.id());
+		} else {
+			target.put(change.id(), change.name());
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package ch.held.personmanagementservice.search;
+
+import java.util.Arrays;
+
+/**
+ * Names and their number of distinct trigrams by person id, in an open addressing hash table with linear probing on primitive keys, so an entry costs three array slots instead of
+ * a map entry and a boxed id.
+ * <p>
+ * Ids come from a sequence and are dense, so the id itself is the hash: neighbouring ids land in neighbouring slots without collisions, which keeps the lookups of ascending
+ * candidate ids during a search cache friendly.
+ * <p>
+ * Not thread-safe, see {@link TrigramIndex}.
+ */
+final class NameTable {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private long[] ids = new long[INITIAL_CAPACITY];
+	// A null name marks a free slot
+	private String[] names = new String[INITIAL_CAPACITY];
+	// Saturated at 255, which keeps the score bound of TrigramIndex an upper bound
+	private byte[] trigramCounts = new byte[INITIAL_CAPACITY];
+	private int size;
+
+	String get(long id) {
+		int mask = ids.length - 1;
+		for (int slot = slot(id, mask); names[slot] != null; slot = (slot + 1) & mask) {
+			if (ids[slot] == id) {
+				return names[slot];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the number of distinct trigrams of the name, at most 255, or -1 if the id is not present.
+	 */
+	int trigramCount(long id) {
+		int mask = ids.length - 1;
+		for (int slot = slot(id, mask); names[slot] != null; slot = (slot + 1) & mask) {
+			if (ids[slot] == id) {
+				return trigramCounts[slot] & 0xFF;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the previous name of the id, or null.
+	 */
+	String put(long id, String name, int trigramCount) {
+		byte count = (byte) Math.min(trigramCount, 255);
+		int mask = ids.length - 1;
+		int slot = slot(id, mask);
+		for (; names[slot] != null; slot = (slot + 1) & mask) {
+			if (ids[slot] == id) {
+				String previous = names[slot];
+				names[slot] = name;
+				trigramCounts[slot] = count;
+				return previous;
+			}
+		}
+		ids[slot] = id;
+		names[slot] = name;
+		trigramCounts[slot] = count;
+		// Load factor 0.5 keeps probe sequences short
+		if (++size * 2 > ids.length) {
+			resize(ids.length * 2);
+		}
+		return null;
+	}
+
+	/**
+	 * @return the removed name, or null if the id was not present.
+	 */
+	String remove(long id) {
+		int mask = ids.length - 1;
+		int slot = slot(id, mask);
+		for (; names[slot] != null; slot = (slot + 1) & mask) {
+			if (ids[slot] == id) {
+				String removed = names[slot];
+				shiftBack(slot, mask);
+				size--;
+				return removed;
+			}
+		}
+		return null;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return all ids in ascending order.
+	 */
+	long[] sortedIds() {
+		long[] sorted = new long[size];
+		int count = 0;
+		for (int slot = 0; slot < names.length; slot++) {
+			if (names[slot] != null) {
+				sorted[count++] = ids[slot];
+			}
+		}
+		Arrays.sort(sorted);
+		return sorted;
+	}
+
+	/**
+	 * @return the retained heap size including the names, approximated for compressed references and Latin-1 strings.
+	 */
+	long sizeInBytes() {
+		long size = 32 + 16 + 8L * ids.length + 16 + 4L * names.length + 16 + trigramCounts.length;
+		for (String name : names) {
+			if (name != null) {
+				size += 24 + align(16 + name.length());
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Closes the gap left by a removed entry by moving later entries of the probe sequence back, so lookups never need tombstones.
+	 */
+	private void shiftBack(int gap, int mask) {
+		int slot = gap;
+		while (true) {
+			slot = (slot + 1) & mask;
+			if (names[slot] == null) {
+				break;
+			}
+			int home = slot(ids[slot], mask);
+			// Move the entry unless its home lies cyclically between the gap (exclusive) and its slot (inclusive)
+			if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+				ids[gap] = ids[slot];
+				names[gap] = names[slot];
+				trigramCounts[gap] = trigramCounts[slot];
+				gap = slot;
+			}
+		}
+		names[gap] = null;
+	}
+
+	private void resize(int capacity) {
+		long[] oldIds = ids;
+		String[] oldNames = names;
+		byte[] oldTrigramCounts = trigramCounts;
+		ids = new long[capacity];
+		names = new String[capacity];
+		trigramCounts = new byte[capacity];
+		int mask = capacity - 1;
+		for (int i = 0; i < oldNames.length; i++) {
+			if (oldNames[i] != null) {
+				int slot = slot(oldIds[i], mask);
+				while (names[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				ids[slot] = oldIds[i];
+				names[slot] = oldNames[i];
+				trigramCounts[slot] = oldTrigramCounts[i];
+			}
+		}
+	}
+
+	private static int slot(long id, int mask) {
+		return (int) (id ^ (id >>> 32)) & mask;
+	}
+
+	private static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+}
@@ -0,0 +1,235 @@
+package ch.held.personmanagementservice.search;
+
+import java.util.Arrays;
+
+/**
+ * The ids of all names containing one trigram. Ids are kept ascending and stored as variable-length deltas, so the posting of a densely allocated id mostly takes a single byte.
+ * Every {@value #SKIP_INTERVAL} postings a skip entry records the preceding id and the byte offset, so a {@link Cursor} can jump close to an id without decoding everything before
+ * it. Ids arriving out of order, e.g. of a renamed person, wait in a small sorted buffer until it is merged into the encoded ids.
+ * <p>
+ * Not thread-safe, see {@link TrigramIndex}.
+ */
+final class PostingList {
+
+	static final long NO_MORE_IDS = Long.MAX_VALUE;
+
+	private static final int SKIP_INTERVAL = 64;
+	private static final int MAX_PENDING = 32;
+
+	private byte[] data = new byte[4];
+	private int length;
+	private int encodedCount;
+	private long lastId;
+	// Skip entry k describes posting (k + 1) * SKIP_INTERVAL: the id before it and its byte offset
+	private long[] skipIds;
+	private int[] skipOffsets;
+	private int skipCount;
+	private long[] pending;
+	private int pendingCount;
+
+	/**
+	 * Adds an id, an id that is already in the list may be added again.
+	 */
+	void add(long id) {
+		if (id > lastId) {
+			if (encodedCount > 0 && encodedCount % SKIP_INTERVAL == 0) {
+				addSkip();
+			}
+			writeVarLong(id - lastId);
+			lastId = id;
+			encodedCount++;
+		} else if (id != lastId) {
+			addPending(id);
+		}
+	}
+
+	/**
+	 * @return the number of ids, an upper bound when ids were added more than once.
+	 */
+	int size() {
+		return encodedCount + pendingCount;
+	}
+
+	Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * Releases the spare capacity of the encoded ids, called once a bulk load is done.
+	 */
+	void trim() {
+		if (pendingCount > 0) {
+			mergePending();
+		}
+		if (data.length > length) {
+			data = Arrays.copyOf(data, length);
+		}
+		if (skipIds != null && skipIds.length > skipCount) {
+			skipIds = Arrays.copyOf(skipIds, skipCount);
+			skipOffsets = Arrays.copyOf(skipOffsets, skipCount);
+		}
+		pending = null;
+	}
+
+	/**
+	 * @return the retained heap size, approximated for compressed references.
+	 */
+	long sizeInBytes() {
+		long size = 48 + 16 + data.length;
+		if (skipIds != null) {
+			size += 16 + 8L * skipIds.length + 16 + 4L * skipOffsets.length;
+		}
+		if (pending != null) {
+			size += 16 + 8L * pending.length;
+		}
+		return size;
+	}
+
+	private void addSkip() {
+		if (skipIds == null) {
+			skipIds = new long[4];
+			skipOffsets = new int[4];
+		} else if (skipCount == skipIds.length) {
+			skipIds = Arrays.copyOf(skipIds, skipCount * 2);
+			skipOffsets = Arrays.copyOf(skipOffsets, skipCount * 2);
+		}
+		skipIds[skipCount] = lastId;
+		skipOffsets[skipCount] = length;
+		skipCount++;
+	}
+
+	private void addPending(long id) {
+		if (pending == null) {
+			pending = new long[MAX_PENDING];
+		}
+		int position = Arrays.binarySearch(pending, 0, pendingCount, id);
+		if (position >= 0) {
+			return;
+		}
+		position = -position - 1;
+		System.arraycopy(pending, position, pending, position + 1, pendingCount - position);
+		pending[position] = id;
+		if (++pendingCount == MAX_PENDING) {
+			mergePending();
+		}
+	}
+
+	private void mergePending() {
+		long[] merged = new long[size()];
+		int count = 0;
+		Cursor cursor = new Cursor();
+		for (long id = cursor.id(); id != NO_MORE_IDS; id = cursor.next()) {
+			merged[count++] = id;
+		}
+		length = 0;
+		encodedCount = 0;
+		lastId = 0;
+		skipCount = 0;
+		pendingCount = 0;
+		for (int i = 0; i < count; i++) {
+			add(merged[i]);
+		}
+	}
+
+	private void writeVarLong(long value) {
+		if (length + 10 > data.length) {
+			data = Arrays.copyOf(data, Math.max(data.length * 2, length + 10));
+		}
+		while ((value & ~0x7FL) != 0) {
+			data[length++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		data[length++] = (byte) value;
+	}
+
+	/**
+	 * Iterates the distinct ids of the list in ascending order, merging the encoded ids with the buffered ones. Invalidated by changes to the list.
+	 */
+	final class Cursor {
+
+		private int position;
+		// Number of encoded ids read, including the current one
+		private int decoded;
+		private long encodedId;
+		private int pendingIndex;
+
+		private Cursor() {
+			stepEncoded();
+		}
+
+		/**
+		 * @return the current id, or {@link #NO_MORE_IDS} when the list is exhausted.
+		 */
+		long id() {
+			long pendingId = pendingIndex < pendingCount ? pending[pendingIndex] : NO_MORE_IDS;
+			return Math.min(encodedId, pendingId);
+		}
+
+		/**
+		 * Moves to the next id.
+		 *
+		 * @return the new current id, or {@link #NO_MORE_IDS}.
+		 */
+		long next() {
+			long current = id();
+			if (encodedId == current) {
+				stepEncoded();
+			}
+			if (pendingIndex < pendingCount && pending[pendingIndex] == current) {
+				pendingIndex++;
+			}
+			return id();
+		}
+
+		/**
+		 * Moves to the first id that is not smaller than the target, never backwards.
+		 *
+		 * @return the new current id, or {@link #NO_MORE_IDS}.
+		 */
+		long advance(long target) {
+			if (encodedId < target) {
+				skipTo(target);
+				while (encodedId < target) {
+					stepEncoded();
+				}
+			}
+			while (pendingIndex < pendingCount && pending[pendingIndex] < target) {
+				pendingIndex++;
+			}
+			return id();
+		}
+
+		/**
+		 * Jumps to the last skip entry before the target if it lies ahead of the current position.
+		 */
+		private void skipTo(long target) {
+			int from = decoded / SKIP_INTERVAL;
+			if (from >= skipCount || skipIds[from] >= target) {
+				return;
+			}
+			int entry = Arrays.binarySearch(skipIds, from, skipCount, target);
+			entry = (entry >= 0 ? entry : -entry - 1) - 1;
+			position = skipOffsets[entry];
+			encodedId = skipIds[entry];
+			decoded = (entry + 1) * SKIP_INTERVAL;
+			stepEncoded();
+		}
+
+		private void stepEncoded() {
+			if (position >= length) {
+				encodedId = NO_MORE_IDS;
+				return;
+			}
+			long delta = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = data[position++];
+				delta |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			encodedId += delta;
+			decoded++;
+		}
+	}
+}
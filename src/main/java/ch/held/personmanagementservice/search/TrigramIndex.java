@@ -0,0 +1,373 @@
+package ch.held.personmanagementservice.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import ch.held.personmanagementservice.model.NameMatch;
+
+/**
+ * Inverted index from the trigrams of normalized person names to the ids of the persons, plus the current name per id.
+ * <p>
+ * The posting lists of a trigram are split by the number of trigrams of the names, in buckets of {@value #BUCKET_WIDTH}. The score of a name is bounded by its trigram count, so
+ * a lookup visits the buckets from the best to the worst bound and stops as soon as no name of the remaining buckets can make it into the result. Frequent queries therefore
+ * rarely read all names containing them.
+ * <p>
+ * Every candidate is scored against its current name, so postings left behind by renamed or deleted persons are skipped instead of being removed eagerly. They are dropped when
+ * the posting lists are rebuilt, which happens once they make up half of all postings.
+ * <p>
+ * Names are normalized by lower-casing, removing diacritics and replacing everything but letters and digits by a single space.
+ * <p>
+ * Not thread-safe, {@link NameIndex} guards it with a read-write lock.
+ */
+final class TrigramIndex {
+
+	static final int MIN_QUERY_LENGTH = 3;
+
+	private static final int BUCKET_WIDTH = 4;
+	// The trigram count of the name table saturates at 255
+	private static final int MAX_BUCKET = 255 / BUCKET_WIDTH;
+
+	private static final PostingList EMPTY = new PostingList();
+
+	// Ascending from the worst match: lower score, then higher id
+	private static final Comparator<NameMatch> RANKING = Comparator.comparingDouble(NameMatch::getScore).thenComparing(Comparator.comparingLong(NameMatch::getId).reversed());
+
+	private final NameTable names = new NameTable();
+	// Keyed by trigram and bucket, see postingKey
+	private Map<Long, PostingList> postings = new HashMap<>();
+	private int maxBucket;
+	private long postingCount;
+	private long stalePostings;
+
+	/**
+	 * Adds a person or replaces its name.
+	 */
+	void put(long id, String name) {
+		long[] trigrams = trigrams(normalize(name));
+		int previousCount = names.trigramCount(id);
+		String previous = names.put(id, name, trigrams.length);
+		if (previous != null) {
+			if (previous.equals(name)) {
+				return;
+			}
+			stalePostings += previousCount;
+		}
+		addPostings(id, trigrams);
+		compactIfStale();
+	}
+
+	void remove(long id) {
+		int previousCount = names.trigramCount(id);
+		if (names.remove(id) != null) {
+			stalePostings += previousCount;
+			compactIfStale();
+		}
+	}
+
+	int size() {
+		return names.size();
+	}
+
+	/**
+	 * Releases spare capacity of the posting lists, called once a bulk load is done.
+	 */
+	void trim() {
+		postings.values().forEach(PostingList::trim);
+	}
+
+	/**
+	 * Finds the names containing the query or, if {@code fuzzy}, sharing at least half of its trigrams. Matches are ranked by the Jaccard similarity of the trigram sets; names
+	 * containing the query rank above all names that do not.
+	 *
+	 * @param query at least {@link #MIN_QUERY_LENGTH} letters or digits.
+	 * @param limit the maximum number of matches.
+	 * @param fuzzy whether names not containing the query match.
+	 * @return the best matches, best first.
+	 */
+	List<NameMatch> search(String query, int limit, boolean fuzzy) {
+		String normalizedQuery = normalize(query);
+		if (normalizedQuery.length() < MIN_QUERY_LENGTH) {
+			throw new IllegalArgumentException("The query must contain at least " + MIN_QUERY_LENGTH + " letters or digits");
+		}
+		Query search = new Query(normalizedQuery, limit);
+		int queryTrigrams = search.trigrams.length;
+		search.run(queryTrigrams);
+		int minShared = (queryTrigrams + 1) / 2;
+		if (fuzzy && minShared < queryTrigrams) {
+			search.run(minShared);
+		}
+		List<NameMatch> matches = new ArrayList<>(search.best);
+		matches.sort(RANKING.reversed());
+		return matches;
+	}
+
+	/**
+	 * @return the retained heap size of the index in bytes, approximated for compressed references.
+	 */
+	long sizeInBytes() {
+		// HashMap node plus boxed key per posting list, and the table slot
+		long size = names.sizeInBytes() + postings.size() * (32L + 24L + 8L);
+		for (PostingList list : postings.values()) {
+			size += list.sizeInBytes();
+		}
+		return size;
+	}
+
+	static String normalize(String name) {
+		if (name == null) {
+			return "";
+		}
+		String text = name;
+		for (int i = 0; i < name.length(); i++) {
+			if (name.charAt(i) >= 0x80) {
+				text = Normalizer.normalize(name, Normalizer.Form.NFD);
+				break;
+			}
+		}
+		StringBuilder normalized = new StringBuilder(text.length());
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (Character.isLetterOrDigit(c)) {
+				normalized.append(Character.toLowerCase(c));
+			} else if (Character.getType(c) != Character.NON_SPACING_MARK && normalized.length() > 0 && normalized.charAt(normalized.length() - 1) != ' ') {
+				normalized.append(' ');
+			}
+		}
+		int length = normalized.length();
+		if (length > 0 && normalized.charAt(length - 1) == ' ') {
+			normalized.setLength(length - 1);
+		}
+		return normalized.toString();
+	}
+
+	/**
+	 * @return the distinct trigrams of a normalized name in ascending order, each packed into the lower 48 bits of a long.
+	 */
+	static long[] trigrams(String normalized) {
+		if (normalized.length() < 3) {
+			return new long[0];
+		}
+		long[] trigrams = new long[normalized.length() - 2];
+		for (int i = 0; i < trigrams.length; i++) {
+			trigrams[i] = (long) normalized.charAt(i) << 32 | (long) normalized.charAt(i + 1) << 16 | normalized.charAt(i + 2);
+		}
+		Arrays.sort(trigrams);
+		int distinct = 0;
+		for (int i = 0; i < trigrams.length; i++) {
+			if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+				trigrams[distinct++] = trigrams[i];
+			}
+		}
+		return distinct == trigrams.length ? trigrams : Arrays.copyOf(trigrams, distinct);
+	}
+
+	private static int countShared(long[] sortedA, long[] sortedB) {
+		int shared = 0;
+		int i = 0;
+		int j = 0;
+		while (i < sortedA.length && j < sortedB.length) {
+			if (sortedA[i] < sortedB[j]) {
+				i++;
+			} else if (sortedA[i] > sortedB[j]) {
+				j++;
+			} else {
+				shared++;
+				i++;
+				j++;
+			}
+		}
+		return shared;
+	}
+
+	private static int bucket(int nameTrigrams) {
+		return Math.min(nameTrigrams / BUCKET_WIDTH, MAX_BUCKET);
+	}
+
+	private static long postingKey(long trigram, int bucket) {
+		return trigram << 8 | bucket;
+	}
+
+	/**
+	 * Bounds the score of all names in a bucket that share at most {@code maxShared} trigrams with the query. The similarity {@code shared / (query + name - shared)} is highest
+	 * for a name of exactly {@code maxShared} trigrams; names with fewer trigrams share at most all of theirs, names with more have more trigrams not in the query. Only names
+	 * sharing all query trigrams can contain it.
+	 */
+	private static double bucketBound(int bucket, int queryTrigrams, int maxShared) {
+		int fewest = bucket * BUCKET_WIDTH;
+		int most = bucket == MAX_BUCKET ? Integer.MAX_VALUE : fewest + BUCKET_WIDTH - 1;
+		int nameTrigrams = Math.max(fewest, Math.min(most, maxShared));
+		int shared = Math.min(nameTrigrams, maxShared);
+		return round((shared == queryTrigrams ? 1 : 0) + (double) shared / (queryTrigrams + nameTrigrams - shared));
+	}
+
+	/**
+	 * Bounds the score of one name from above: postings of a previous name only add shared trigrams, the trigram count of long names is saturated and containment is not
+	 * checked yet.
+	 */
+	private static double scoreBound(int shared, int queryTrigrams, int nameTrigrams) {
+		return round((shared == queryTrigrams ? 1 : 0) + (double) shared / (queryTrigrams + Math.max(nameTrigrams, shared) - shared));
+	}
+
+	private static double round(double score) {
+		return Math.round(score * 1000) / 1000.0;
+	}
+
+	private static long nextCandidate(PostingList.Cursor[] cursors, int candidateLists) {
+		long next = PostingList.NO_MORE_IDS;
+		for (int i = 0; i < candidateLists; i++) {
+			next = Math.min(next, cursors[i].id());
+		}
+		return next;
+	}
+
+	/**
+	 * Rebuilds the posting lists from the current names once half of the postings are stale. Ids are added in ascending order, so all lists end up delta encoded without buffer.
+	 */
+	private void compactIfStale() {
+		if (stalePostings * 2 <= postingCount || postingCount < 1024) {
+			return;
+		}
+		postings = new HashMap<>();
+		postingCount = 0;
+		stalePostings = 0;
+		for (long id : names.sortedIds()) {
+			addPostings(id, trigrams(normalize(names.get(id))));
+		}
+		trim();
+	}
+
+	private void addPostings(long id, long[] trigrams) {
+		int bucket = bucket(trigrams.length);
+		for (long trigram : trigrams) {
+			postings.computeIfAbsent(postingKey(trigram, bucket), key -> new PostingList()).add(id);
+		}
+		maxBucket = Math.max(maxBucket, bucket);
+		postingCount += trigrams.length;
+	}
+
+	/**
+	 * State of one lookup: the query and the best matches found so far.
+	 */
+	private final class Query {
+
+		private final String normalized;
+		private final long[] trigrams;
+		private final int limit;
+		private final PriorityQueue<NameMatch> best;
+
+		Query(String normalized, int limit) {
+			this.normalized = normalized;
+			this.trigrams = TrigramIndex.trigrams(normalized);
+			this.limit = limit;
+			this.best = new PriorityQueue<>(limit + 1, RANKING);
+		}
+
+		/**
+		 * Adds the best names sharing at least {@code minShared} query trigrams, visiting the buckets from the best to the worst bound. A run with fewer than all trigrams follows
+		 * the run with all of them and skips the names that run has seen.
+		 */
+		void run(int minShared) {
+			int maxShared = minShared == trigrams.length ? trigrams.length : trigrams.length - 1;
+			Integer[] buckets = new Integer[maxBucket + 1];
+			for (int bucket = 0; bucket <= maxBucket; bucket++) {
+				buckets[bucket] = bucket;
+			}
+			Arrays.sort(buckets, Comparator.comparingDouble((Integer bucket) -> bucketBound(bucket, trigrams.length, maxShared)).reversed());
+			for (int bucket : buckets) {
+				if (isFull() && bucketBound(bucket, trigrams.length, maxShared) < best.peek().getScore()) {
+					break;
+				}
+				scan(bucket, minShared, maxShared);
+			}
+		}
+
+		/**
+		 * Scores the names of one bucket. The posting lists are walked in id order, starting from the rarest trigrams: a name sharing {@code minShared} of the query trigrams
+		 * contains at least one of the {@code length - minShared + 1} rarest ones, the other lists are only probed for these candidates. A candidate's name is only read when the
+		 * upper bound of its score could still place it among the best matches.
+		 */
+		private void scan(int bucket, int minShared, int maxShared) {
+			int trigramCount = trigrams.length;
+			boolean exact = minShared == trigramCount;
+			int candidateLists = trigramCount - minShared + 1;
+			PostingList[] lists = new PostingList[trigramCount];
+			for (int i = 0; i < trigramCount; i++) {
+				lists[i] = postings.getOrDefault(postingKey(trigrams[i], bucket), EMPTY);
+			}
+			Arrays.sort(lists, Comparator.comparingInt(PostingList::size));
+			PostingList.Cursor[] cursors = new PostingList.Cursor[trigramCount];
+			for (int i = 0; i < trigramCount; i++) {
+				cursors[i] = lists[i].cursor();
+			}
+
+			long id = nextCandidate(cursors, candidateLists);
+			while (id != PostingList.NO_MORE_IDS) {
+				long candidate = id;
+				int shared = 0;
+				for (int i = 0; i < candidateLists; i++) {
+					if (cursors[i].id() == candidate) {
+						shared++;
+						cursors[i].next();
+					}
+				}
+				// Postings of a previous name in another bucket are skipped, the current name is scored in its own bucket. Probing the other lists is skipped if even sharing
+				// all of their trigrams could not place the candidate among the best matches.
+				int nameTrigrams = names.trigramCount(candidate);
+				int possiblyShared = Math.min(shared + trigramCount - candidateLists, maxShared);
+				if (nameTrigrams < 0 || bucket(nameTrigrams) != bucket || ranksBelowBest(scoreBound(possiblyShared, trigramCount, nameTrigrams), candidate)) {
+					id = exact ? cursors[0].id() : nextCandidate(cursors, candidateLists);
+					continue;
+				}
+				long probed = candidate;
+				for (int i = candidateLists; i < trigramCount && shared + trigramCount - i >= minShared; i++) {
+					probed = cursors[i].advance(candidate);
+					if (probed == candidate) {
+						shared++;
+					}
+				}
+				// Without typos every list must contain the candidate, so the next one is not below the id a failed probe stopped at
+				id = exact ? cursors[0].advance(probed) : nextCandidate(cursors, candidateLists);
+				if (shared < minShared || shared > maxShared || ranksBelowBest(scoreBound(shared, trigramCount, nameTrigrams), candidate)) {
+					continue;
+				}
+
+				String name = names.get(candidate);
+				String normalizedName = normalize(name);
+				long[] nameTrigramSet = TrigramIndex.trigrams(normalizedName);
+				int actualShared = countShared(trigrams, nameTrigramSet);
+				if (actualShared < minShared || actualShared > maxShared) {
+					continue;
+				}
+				double similarity = (double) actualShared / (trigramCount + nameTrigramSet.length - actualShared);
+				double score = round(normalizedName.contains(normalized) ? 1 + similarity : similarity);
+				if (!ranksBelowBest(score, candidate)) {
+					best.add(new NameMatch(candidate, name, score));
+					if (best.size() > limit) {
+						best.poll();
+					}
+				}
+			}
+		}
+
+		private boolean isFull() {
+			return best.size() == limit;
+		}
+
+		/**
+		 * @return true if a match with this score and id would not be among the best matches, ties rank the lower id first.
+		 */
+		private boolean ranksBelowBest(double score, long id) {
+			if (!isFull()) {
+				return false;
+			}
+			NameMatch worst = best.peek();
+			return score < worst.getScore() || score == worst.getScore() && id > worst.getId();
+		}
+	}
+}
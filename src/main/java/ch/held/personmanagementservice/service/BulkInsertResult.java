@@ -0,0 +1,42 @@
+package ch.held.personmanagementservice.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a bulk insert. Holds one {@link Chunk} per flushed chunk of persons.
+ */
+public class BulkInsertResult {
+
+	private final List<Chunk> chunks = new ArrayList<>();
+	private int totalPersisted;
+
+	void addChunk(int persisted, long durationNanos) {
+		chunks.add(new Chunk(chunks.size(), persisted, durationNanos));
+		totalPersisted += persisted;
+	}
+
+	public List<Chunk> getChunks() {
+		return Collections.unmodifiableList(chunks);
+	}
+
+	public int getTotalPersisted() {
+		return totalPersisted;
+	}
+
+	@Override
+	public String toString() {
+		return totalPersisted + " person/s in " + chunks.size() + " chunk/s";
+	}
+
+	/**
+	 * A single chunk that was persisted and flushed as one JDBC batch.
+	 *
+	 * @param index         position of the chunk within the bulk insert, starting at 0.
+	 * @param persisted     number of persons in the chunk.
+	 * @param durationNanos time spent converting, persisting and flushing the chunk.
+	 */
+	public record Chunk(int index, int persisted, long durationNanos) {
+	}
+}
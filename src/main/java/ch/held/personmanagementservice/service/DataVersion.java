@@ -0,0 +1,46 @@
+package ch.held.personmanagementservice.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+
+/**
+ * Version of the stored persons, advanced after every committed {@link PersonChangeEvent}. Responses built from the table can be tagged with it and revalidated without a query.
+ * <p>
+ * The version is advanced after the commit, so a version read before a query never claims changes the query did not see. It starts over with every deployment; {@link #tag()}
+ * therefore includes the start time.
+ */
+@ApplicationScoped
+public class DataVersion {
+
+	private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+	private final AtomicLong version = new AtomicLong();
+
+	void onPersonsChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) PersonChangeEvent event) {
+		version.incrementAndGet();
+	}
+
+	/**
+	 * @return the number of committed changes since startup.
+	 */
+	public long current() {
+		return version.get();
+	}
+
+	/**
+	 * @return an entity tag value for the current version, unique across restarts.
+	 */
+	public String tag() {
+		return tag(version.get());
+	}
+
+	/**
+	 * @param version a version returned by {@link #current()}.
+	 * @return the entity tag value for that version.
+	 */
+	public String tag(long version) {
+		return epoch + '-' + version;
+	}
+}
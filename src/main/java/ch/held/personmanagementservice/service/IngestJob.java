@@ -0,0 +1,80 @@
+package ch.held.personmanagementservice.service;
+
+import java.util.List;
+
+import generated.Person;
+
+/**
+ * A persons document accepted by the {@link IngestQueue} and persisted in the background. The state is updated by the writer thread and may be read from any thread.
+ */
+public class IngestJob {
+
+	/**
+	 * Lifecycle of a job.
+	 */
+	public enum State {
+		QUEUED, RUNNING, COMPLETED, FAILED
+	}
+
+	private final long id;
+	private final int totalPersons;
+	private List<Person> persons;
+	private volatile State state = State.QUEUED;
+	private volatile int persistedPersons;
+	private volatile Exception failure;
+
+	IngestJob(long id, List<Person> persons) {
+		this.id = id;
+		this.persons = persons;
+		this.totalPersons = persons.size();
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public int getTotalPersons() {
+		return totalPersons;
+	}
+
+	/**
+	 * @return the number of persons committed so far; on failure, the persons committed before the failing transaction.
+	 */
+	public int getPersistedPersons() {
+		return persistedPersons;
+	}
+
+	/**
+	 * @return the exception that failed the job, or null.
+	 */
+	public Exception getFailure() {
+		return failure;
+	}
+
+	List<Person> getPersons() {
+		return persons;
+	}
+
+	void start() {
+		state = State.RUNNING;
+	}
+
+	void addPersisted(int persisted) {
+		persistedPersons += persisted;
+	}
+
+	void complete() {
+		persons = null;
+		state = State.COMPLETED;
+	}
+
+	void fail(Exception e) {
+		persons = null;
+		failure = e;
+		state = State.FAILED;
+	}
+}
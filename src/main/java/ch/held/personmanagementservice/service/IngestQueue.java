@@ -0,0 +1,155 @@
+package ch.held.personmanagementservice.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import ch.held.personmanagementservice.util.ServiceConfiguration;
+import generated.Person;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Write-behind queue for validated persons documents. Jobs are persisted in submission order by a single writer thread, in transactions of
+ * {@link ServiceConfiguration#ingestTransactionSize()} persons so progress becomes visible while a large job runs.
+ * <p>
+ * The queue is bounded by the number of persons waiting to be persisted, not by the number of jobs. Queued jobs live in memory only and are lost when the application stops.
+ */
+@ApplicationScoped
+public class IngestQueue {
+
+	private static final Logger LOGGER = Logger.getLogger(IngestQueue.class.getName());
+
+	@Inject
+	private PersonService personService;
+
+	@Resource
+	private ManagedThreadFactory managedThreadFactory;
+
+	private final AtomicLong nextJobId = new AtomicLong();
+	private final AtomicLong pendingPersons = new AtomicLong();
+	private final BlockingQueue<QueuedJob> queue = new LinkedBlockingQueue<>();
+	private final ConcurrentMap<Long, IngestJob> jobs = new ConcurrentHashMap<>();
+	// Only touched by the writer thread
+	private final Deque<Long> finishedJobs = new ArrayDeque<>();
+
+	private Thread writer;
+
+	@PostConstruct
+	void init() {
+		ThreadFactory threadFactory = managedThreadFactory != null ? managedThreadFactory : Executors.defaultThreadFactory();
+		writer = threadFactory.newThread(this::drain);
+		writer.setName("person-ingest-writer");
+		writer.start();
+	}
+
+	@PreDestroy
+	void shutdown() {
+		writer.interrupt();
+	}
+
+	/**
+	 * Queues persons for persisting in the background.
+	 *
+	 * @param persons    the validated persons, the list must not be modified afterwards.
+	 * @param onFinished called on the writer thread once the job completed or failed.
+	 * @return the queued job, or an empty optional if the queue is full. A job larger than the whole queue is accepted when the queue is empty.
+	 */
+	public Optional<IngestJob> submit(List<Person> persons, Consumer<IngestJob> onFinished) {
+		int size = persons.size();
+		long maxPending = ServiceConfiguration.ingestMaxPendingPersons();
+		long pending;
+		do {
+			pending = pendingPersons.get();
+			if (pending > 0 && pending + size > maxPending) {
+				LOGGER.warning(() -> "Ingest queue full, rejecting " + size + " persons.");
+				return Optional.empty();
+			}
+		} while (!pendingPersons.compareAndSet(pending, pending + size));
+
+		IngestJob job = new IngestJob(nextJobId.incrementAndGet(), persons);
+		jobs.put(job.getId(), job);
+		queue.add(new QueuedJob(job, onFinished));
+		LOGGER.info(() -> "Queued ingest job " + job.getId() + " with " + size + " persons.");
+		return Optional.of(job);
+	}
+
+	/**
+	 * @param id the job id.
+	 * @return the job if it is queued, running or among the last {@link ServiceConfiguration#ingestRetainedJobs()} finished jobs.
+	 */
+	public Optional<IngestJob> getJob(long id) {
+		return Optional.ofNullable(jobs.get(id));
+	}
+
+	/**
+	 * @return the number of accepted persons that are not persisted yet.
+	 */
+	public long getPendingPersons() {
+		return pendingPersons.get();
+	}
+
+	private void drain() {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				process(queue.take());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		LOGGER.info(() -> "Ingest writer stopped with " + queue.size() + " unprocessed jobs.");
+	}
+
+	private void process(QueuedJob queued) {
+		IngestJob job = queued.job();
+		List<Person> persons = job.getPersons();
+		int transactionSize = ServiceConfiguration.ingestTransactionSize();
+		job.start();
+		try {
+			for (int from = 0; from < persons.size(); from += transactionSize) {
+				// One transaction per slice, so a running job shows progress
+				List<Person> slice = persons.subList(from, Math.min(from + transactionSize, persons.size()));
+				job.addPersisted(personService.addPersons(slice.iterator()).getTotalPersisted());
+			}
+			job.complete();
+			LOGGER.info(() -> "Ingest job " + job.getId() + " completed.");
+		} catch (Exception e) {
+			job.fail(e);
+			LOGGER.log(Level.WARNING, "Ingest job " + job.getId() + " failed after " + job.getPersistedPersons() + " persons.", e);
+		} finally {
+			pendingPersons.addAndGet(-job.getTotalPersons());
+		}
+
+		try {
+			queued.onFinished().accept(job);
+		} catch (RuntimeException e) {
+			LOGGER.log(Level.WARNING, "Completion callback of ingest job " + job.getId() + " failed.", e);
+		}
+		retire(job);
+	}
+
+	private void retire(IngestJob job) {
+		finishedJobs.addLast(job.getId());
+		while (finishedJobs.size() > ServiceConfiguration.ingestRetainedJobs()) {
+			jobs.remove(finishedJobs.removeFirst());
+		}
+	}
+
+	private record QueuedJob(IngestJob job, Consumer<IngestJob> onFinished) {
+	}
+}
@@ -0,0 +1,102 @@
+package ch.held.personmanagementservice.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The persons changed by one transaction of {@link PersonService}. Observers that keep data derived from the table in memory listen with
+ * {@code @Observes(during = TransactionPhase.AFTER_SUCCESS)}, so they never see changes that are rolled back.
+ * <p>
+ * Operations that do not know the affected persons, like a delete by criteria or an insert of more than {@link #MAX_CHANGES} persons, fire an event that is not
+ * {@link #isComplete() complete}; derived data has to be rebuilt from the table then.
+ */
+public final class PersonChangeEvent {
+
+	/**
+	 * Number of changes tracked per transaction, larger transactions fire an incomplete event instead of holding every change in memory until the commit.
+	 */
+	public static final int MAX_CHANGES = 10_000;
+
+	public enum Kind {
+		ADDED, UPDATED, DELETED
+	}
+
+	/**
+	 * One changed person: the new name, gender and age, null for {@link Kind#DELETED}, and the gender and age before the change, null for {@link Kind#ADDED}.
+	 */
+	public record Change(Kind kind, long id, String name, String gender, Integer age, String previousGender, Integer previousAge) {
+	}
+
+	private final List<Change> changes;
+	private final boolean complete;
+
+	private PersonChangeEvent(List<Change> changes, boolean complete) {
+		this.changes = changes;
+		this.complete = complete;
+	}
+
+	/**
+	 * @return the changes in the order they were made, empty if the event is not complete.
+	 */
+	public List<Change> getChanges() {
+		return changes;
+	}
+
+	/**
+	 * @return false if persons were changed that are not listed.
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Collects the changes of one transaction, gives up tracking beyond {@link #MAX_CHANGES}.
+	 */
+	static final class Builder {
+
+		private List<Change> changes = new ArrayList<>();
+
+		Builder added(long id, String name, String gender, Integer age) {
+			return add(new Change(Kind.ADDED, id, name, gender, age, null, null));
+		}
+
+		Builder updated(long id, String name, String gender, Integer age, String previousGender, Integer previousAge) {
+			return add(new Change(Kind.UPDATED, id, name, gender, age, previousGender, previousAge));
+		}
+
+		Builder deleted(long id, String previousGender, Integer previousAge) {
+			return add(new Change(Kind.DELETED, id, null, null, null, previousGender, previousAge));
+		}
+
+		/**
+		 * Marks the transaction as having changed persons that are not tracked.
+		 */
+		Builder untracked() {
+			changes = null;
+			return this;
+		}
+
+		boolean isEmpty() {
+			return changes != null && changes.isEmpty();
+		}
+
+		PersonChangeEvent build() {
+			return changes != null ? new PersonChangeEvent(List.copyOf(changes), true) : new PersonChangeEvent(List.of(), false);
+		}
+
+		private Builder add(Change change) {
+			if (changes != null) {
+				if (changes.size() == MAX_CHANGES) {
+					changes = null;
+				} else {
+					changes.add(change);
+				}
+			}
+			return this;
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package ch.held.personmanagementservice.service;
+
+/**
+ * Filter, sort order and limit of a person search. Filters that are null are not applied.
+ *
+ * @param gender     the gender, {@code f} or {@code m}.
+ * @param minAge     the minimum age (inclusive).
+ * @param maxAge     the maximum age (inclusive).
+ * @param namePrefix the start of the name, case-sensitive.
+ * @param sort       the sort key, ties are ordered by id.
+ * @param descending whether to sort in descending order.
+ * @param limit      the maximum number of persons returned.
+ */
+public record PersonSearch(String gender, Integer minAge, Integer maxAge, String namePrefix, SortKey sort, boolean descending, int limit) {
+
+	/**
+	 * Attribute a search can be sorted by.
+	 */
+	public enum SortKey {
+		ID("id"), NAME("name"), AGE("age");
+
+		private final String attribute;
+
+		SortKey(String attribute) {
+			this.attribute = attribute;
+		}
+
+		String getAttribute() {
+			return attribute;
+		}
+	}
+}
@@ -1,26 +1,67 @@
 package ch.held.personmanagementservice.service;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.action.internal.BulkOperationCleanupAction;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.jpa.HibernateHints;
+
 import ch.held.personmanagementservice.model.PersonEntity;
+import ch.held.personmanagementservice.model.PersonUpdate;
+import ch.held.personmanagementservice.statistics.impl.Phase;
+import ch.held.personmanagementservice.statistics.impl.PhaseTimer;
+import ch.held.personmanagementservice.util.ServiceConfiguration;
 import generated.Person;
+import generated.Persons;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import jakarta.transaction.Transactional;
 
 /**
- * Service class responsible for managing person entities. Provides functionality to add, update, delete, and retrieve person records.
+ * Service class responsible for managing person entities. Provides functionality to add, update, delete, and retrieve person records. Every transaction that changes persons fires
+ * a {@link PersonChangeEvent}.
  */
 @ApplicationScoped
 public class PersonService {
 
 	private static final Logger LOGGER = Logger.getLogger(PersonService.class.getName());
 
+	private static final String UPDATE_PERSON_SQL = "UPDATE PersonEntity SET name = ?, gender = ?, age = ? WHERE id = ?";
+
+	// Keeps IN lists of bulk deletes well below the bind parameter limits of common databases
+	private static final int IN_LIST_SIZE = 1000;
+
 	@PersistenceContext(unitName = "default")
 	private EntityManager em;
 
+	@Inject
+	private Event<PersonChangeEvent> personChanged;
+
 	/**
 	 * Retrieves all person entities from the database.
 	 *
@@ -31,6 +72,116 @@ public class PersonService {
 		return em.createQuery("SELECT p FROM PersonEntity p", PersonEntity.class).getResultList();
 	}
 
+	/**
+	 * Retrieves a person entity by id, from the second-level cache if it is enabled and holds the person.
+	 *
+	 * @param id the ID of the person entity.
+	 * @return the person entity, or null if there is none with that id.
+	 */
+	public PersonEntity getPerson(Long id) {
+		LOGGER.info("Retrieving person with ID: " + id);
+		return em.find(PersonEntity.class, id);
+	}
+
+	/**
+	 * Retrieves one page of person entities ordered by id using keyset pagination. Unlike an offset, the cursor stays cheap for deep pages because it is served by the primary key
+	 * index. The result is kept in the query cache, if enabled, until persons change.
+	 *
+	 * @param after the id after which the page starts, or null for the first page.
+	 * @param limit the maximum number of persons in the page.
+	 * @return up to {@code limit + 1} persons; an extra element signals that there is a next page and is not part of this page.
+	 */
+	public List<PersonEntity> getPersonsPage(Long after, int limit) {
+		LOGGER.info("Retrieving persons after ID: " + after + ", limit: " + limit);
+		return em.createQuery("SELECT p FROM PersonEntity p WHERE p.id > :after ORDER BY p.id", PersonEntity.class)
+				.setParameter("after", after != null ? after : Long.MIN_VALUE)
+				.setMaxResults(limit + 1)
+				.setHint(HibernateHints.HINT_CACHEABLE, true)
+				.getResultList();
+	}
+
+	/**
+	 * Searches persons with a Criteria query. The filters are served by the indexes declared on {@link PersonEntity}: gender and age range by {@code idx_person_gender_age}, an age
+	 * range alone by {@code idx_person_age} and the name prefix by {@code idx_person_name}. The result is kept in the query cache, if enabled, until persons
+	 * change.
+	 *
+	 * @param search the filters, sort order and limit.
+	 * @return the matching persons, at most {@code search.limit()}.
+	 */
+	public List<PersonEntity> searchPersons(PersonSearch search) {
+		LOGGER.info("Searching persons: " + search);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<PersonEntity> query = cb.createQuery(PersonEntity.class);
+		Root<PersonEntity> person = query.from(PersonEntity.class);
+		List<Predicate> predicates = new ArrayList<>();
+		if (search.gender() != null) {
+			predicates.add(cb.equal(person.get("gender"), search.gender()));
+		}
+		if (search.minAge() != null) {
+			predicates.add(cb.greaterThanOrEqualTo(person.get("age"), search.minAge()));
+		}
+		if (search.maxAge() != null) {
+			predicates.add(cb.lessThanOrEqualTo(person.get("age"), search.maxAge()));
+		}
+		if (search.namePrefix() != null) {
+			// A LIKE with a constant prefix and no leading wildcard is an index range scan
+			predicates.add(cb.like(person.get("name"), escapeLike(search.namePrefix()) + "%", '\\'));
+		}
+		Expression<?> sortKey = person.get(search.sort().getAttribute());
+		Expression<?> id = person.get("id");
+		query.select(person).where(predicates.toArray(Predicate[]::new));
+		if (search.sort() == PersonSearch.SortKey.ID) {
+			query.orderBy(search.descending() ? cb.desc(id) : cb.asc(id));
+		} else {
+			query.orderBy(search.descending() ? cb.desc(sortKey) : cb.asc(sortKey), search.descending() ? cb.desc(id) : cb.asc(id));
+		}
+		return em.createQuery(query).setMaxResults(search.limit()).setHint(HibernateHints.HINT_CACHEABLE, true).getResultList();
+	}
+
+	/**
+	 * Walks all person entities ordered by id with a forward-only cursor and hands each one to the action. The persistence context is cleared every
+	 * {@link ServiceConfiguration#streamFetchSize()} rows, so memory does not grow with the table size. The scan bypasses the second-level cache, if enabled, as it would only
+	 * displace the persons that are looked up by id.
+	 *
+	 * @param action receives the persons one by one, the entities are detached shortly after.
+	 * @return the number of persons streamed.
+	 */
+	@Transactional
+	public long streamAllPersons(Consumer<PersonEntity> action) {
+		LOGGER.info("Streaming all persons");
+		int fetchSize = ServiceConfiguration.streamFetchSize();
+		long count = 0;
+		Session session = em.unwrap(Session.class);
+		// Set on the session, the scroll does not apply the cache mode of the query to the entities it loads
+		CacheMode cacheMode = session.getCacheMode();
+		session.setCacheMode(CacheMode.IGNORE);
+		try (ScrollableResults<PersonEntity> results = session.createQuery("SELECT p FROM PersonEntity p ORDER BY p.id", PersonEntity.class)
+				.setFetchSize(fetchSize)
+				.setReadOnly(true)
+				.scroll(ScrollMode.FORWARD_ONLY)) {
+			while (results.next()) {
+				action.accept(results.get());
+				if (++count % fetchSize == 0) {
+					em.clear();
+					checkNotCancelled();
+				}
+			}
+		} finally {
+			session.setCacheMode(cacheMode);
+		}
+		return count;
+	}
+
+	/**
+	 * Counts the persons per gender and age with a single {@code GROUP BY} query, which the index on gender and age answers without reading the table rows.
+	 *
+	 * @return one row per gender and age: gender, age and count.
+	 */
+	public List<Object[]> countByGenderAndAge() {
+		LOGGER.info("Counting persons by gender and age");
+		return em.createQuery("SELECT p.gender, p.age, COUNT(p) FROM PersonEntity p GROUP BY p.gender, p.age", Object[].class).getResultList();
+	}
+
 	/**
 	 * Adds a new person entity to the database.
 	 *
@@ -41,6 +192,33 @@ public class PersonService {
 		LOGGER.info("Adding a new person");
 		PersonEntity personEntity = this.convertToEntity(person);
 		em.persist(personEntity);
+		fireChanges(PersonChangeEvent.builder().added(personEntity.getId(), personEntity.getName(), personEntity.getGender(), personEntity.getAge()));
+	}
+
+	/**
+	 * Adds all persons of a document in a single transaction. The persons are persisted in chunks of {@link ServiceConfiguration#bulkChunkSize()}; after each chunk the persistence
+	 * context is flushed (sent as one JDBC batch) and cleared, so memory stays flat regardless of the document size.
+	 *
+	 * @param persons the persons to be added.
+	 * @return the per-chunk result of the insert.
+	 */
+	@Transactional
+	public BulkInsertResult addPersons(Persons persons) {
+		LOGGER.info("Adding " + persons.getPerson().size() + " persons in bulk");
+		return persistInChunks(persons.getPerson().iterator());
+	}
+
+	/**
+	 * Adds persons as they are delivered by the iterator, e.g. a {@link ch.held.personmanagementservice.parser.PersonStreamReader}, in a single transaction. Persons are pulled and
+	 * persisted chunk by chunk, so neither the source document nor the persisted entities have to fit into memory. An exception thrown by the iterator rolls back the whole insert.
+	 *
+	 * @param persons the persons to be added.
+	 * @return the per-chunk result of the insert.
+	 */
+	@Transactional
+	public BulkInsertResult addPersons(Iterator<Person> persons) {
+		LOGGER.info("Adding streamed persons in bulk");
+		return persistInChunks(persons);
 	}
 
 	/**
@@ -58,13 +236,133 @@ public class PersonService {
 			LOGGER.warning("Person not found with ID: " + id);
 			return false;
 		}
+		String previousGender = person.getGender();
+		// Rows written outside of the service may have no age, the statistics count them as such
+		Integer previousAge = person.getAge();
 		person.setName(updatedPerson.getName());
 		person.setGender(updatedPerson.getGender());
 		person.setAge(updatedPerson.getAge());
 		em.merge(person);
+		fireChanges(PersonChangeEvent.builder().updated(id, person.getName(), person.getGender(), person.getAge(), previousGender, previousAge));
 		return true;
 	}
 
+	/**
+	 * Updates many persons in one transaction without loading them. Per chunk of {@link ServiceConfiguration#bulkChunkSize()} updates, the gender and age of the persons are
+	 * selected and locked for the {@link PersonChangeEvent}, then the updates of the existing persons are sent as one JDBC batch on the connection of the session. Like a bulk
+	 * statement, the batches invalidate the persons region of the second-level cache and the cached queries from within the transaction until it completes.
+	 *
+	 * @param updates the new values per id; of repeated ids the last update wins.
+	 * @return per id in request order, whether the person was found and updated.
+	 */
+	@Transactional
+	public Map<Long, Boolean> updatePersons(List<PersonUpdate> updates) {
+		LOGGER.info("Updating " + updates.size() + " persons in bulk");
+		Map<Long, Boolean> outcomes = new LinkedHashMap<>();
+		PersonChangeEvent.Builder changes = PersonChangeEvent.builder();
+		int chunkSize = ServiceConfiguration.bulkChunkSize();
+		SharedSessionContractImplementor session = em.unwrap(SharedSessionContractImplementor.class);
+		boolean invalidated = false;
+		for (int from = 0; from < updates.size(); from += chunkSize) {
+			List<PersonUpdate> chunk = updates.subList(from, Math.min(from + chunkSize, updates.size()));
+			List<Long> ids = chunk.stream().map(PersonUpdate::getId).distinct().toList();
+			Map<Long, Object[]> current = new HashMap<>();
+			em.createQuery("SELECT p.id, p.gender, p.age FROM PersonEntity p WHERE p.id IN :ids", Object[].class)
+					.setParameter("ids", ids)
+					.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+					.getResultList()
+					.forEach(row -> current.put((Long) row[0], new Object[] { row[1], row[2] }));
+			List<PersonUpdate> existing = chunk.stream().filter(update -> current.containsKey(update.getId())).toList();
+			if (!existing.isEmpty()) {
+				if (!invalidated) {
+					// Locks the cache region until the transaction completes, as Hibernate does for its own bulk statements
+					BulkOperationCleanupAction.schedule(session, session.getFactory().getMappingMetamodel().getEntityDescriptor(PersonEntity.class));
+					invalidated = true;
+				}
+				session.doWork(connection -> updateExisting(connection, existing));
+			}
+			for (PersonUpdate update : chunk) {
+				boolean found = current.containsKey(update.getId());
+				outcomes.merge(update.getId(), found, Boolean::logicalOr);
+				if (found) {
+					// A repeated id sees the values of its previous update as the previous values
+					Object[] previous = current.put(update.getId(), new Object[] { update.getGender(), update.getAge() });
+					changes.updated(update.getId(), update.getName(), update.getGender(), update.getAge(), (String) previous[0], (Integer) previous[1]);
+				}
+			}
+			checkNotCancelled();
+		}
+		fireChanges(changes);
+		return outcomes;
+	}
+
+	/**
+	 * Deletes many persons by id in one transaction without loading them. Per chunk of ids, the existing ids are selected and locked, then deleted with a single bulk statement.
+	 *
+	 * @param ids the ids to delete, duplicates are ignored.
+	 * @return per id in request order, whether the person existed and was deleted.
+	 */
+	@Transactional
+	public Map<Long, Boolean> deletePersons(Collection<Long> ids) {
+		LOGGER.info("Deleting " + ids.size() + " persons in bulk");
+		Map<Long, Boolean> outcomes = new LinkedHashMap<>();
+		ids.forEach(id -> outcomes.put(id, false));
+		PersonChangeEvent.Builder changes = PersonChangeEvent.builder();
+		List<Long> distinctIds = new ArrayList<>(outcomes.keySet());
+		for (int from = 0; from < distinctIds.size(); from += IN_LIST_SIZE) {
+			List<Long> chunk = distinctIds.subList(from, Math.min(from + IN_LIST_SIZE, distinctIds.size()));
+			List<Object[]> existing = em.createQuery("SELECT p.id, p.gender, p.age FROM PersonEntity p WHERE p.id IN :ids", Object[].class)
+					.setParameter("ids", chunk)
+					.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+					.getResultList();
+			if (!existing.isEmpty()) {
+				List<Long> existingIds = existing.stream().map(row -> (Long) row[0]).toList();
+				em.createQuery("DELETE FROM PersonEntity p WHERE p.id IN :ids").setParameter("ids", existingIds).executeUpdate();
+				for (Object[] row : existing) {
+					outcomes.put((Long) row[0], true);
+					changes.deleted((Long) row[0], (String) row[1], (Integer) row[2]);
+				}
+			}
+			checkNotCancelled();
+		}
+		fireChanges(changes);
+		return outcomes;
+	}
+
+	/**
+	 * Deletes all persons matching the given criteria with a single bulk statement. Criteria that are null are ignored, at least one must be given.
+	 *
+	 * @param minAge the minimum age (inclusive), optional.
+	 * @param maxAge the maximum age (inclusive), optional.
+	 * @param gender the gender, optional.
+	 * @return the number of deleted persons.
+	 */
+	@Transactional
+	public int deletePersonsMatching(Integer minAge, Integer maxAge, String gender) {
+		LOGGER.info("Deleting persons with age " + minAge + " to " + maxAge + ", gender " + gender);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaDelete<PersonEntity> delete = cb.createCriteriaDelete(PersonEntity.class);
+		Root<PersonEntity> person = delete.from(PersonEntity.class);
+		List<Predicate> predicates = new ArrayList<>();
+		if (minAge != null) {
+			predicates.add(cb.greaterThanOrEqualTo(person.get("age"), minAge));
+		}
+		if (maxAge != null) {
+			predicates.add(cb.lessThanOrEqualTo(person.get("age"), maxAge));
+		}
+		if (gender != null) {
+			predicates.add(cb.equal(person.get("gender"), gender));
+		}
+		if (predicates.isEmpty()) {
+			throw new IllegalArgumentException("At least one criterion is required");
+		}
+		int deleted = em.createQuery(delete.where(predicates.toArray(Predicate[]::new))).executeUpdate();
+		if (deleted > 0) {
+			fireChanges(PersonChangeEvent.builder().untracked());
+		}
+		return deleted;
+	}
+
 	/**
 	 * Deletes a person entity from the database.
 	 *
@@ -80,9 +378,80 @@ public class PersonService {
 			return false;
 		}
 		em.remove(person);
+		fireChanges(PersonChangeEvent.builder().deleted(id, person.getGender(), person.getAge()));
 		return true;
 	}
 
+	private BulkInsertResult persistInChunks(Iterator<Person> persons) {
+		int chunkSize = ServiceConfiguration.bulkChunkSize();
+		BulkInsertResult result = new BulkInsertResult();
+		PersonChangeEvent.Builder changes = PersonChangeEvent.builder();
+		int inChunk = 0;
+		long chunkStart = System.nanoTime();
+		while (persons.hasNext()) {
+			PersonEntity entity = convertToEntity(persons.next());
+			em.persist(entity);
+			changes.added(entity.getId(), entity.getName(), entity.getGender(), entity.getAge());
+			if (++inChunk == chunkSize) {
+				checkNotCancelled();
+				em.flush();
+				em.clear();
+				result.addChunk(inChunk, System.nanoTime() - chunkStart);
+				inChunk = 0;
+				chunkStart = System.nanoTime();
+			}
+		}
+		if (inChunk > 0) {
+			em.flush();
+			em.clear();
+			result.addChunk(inChunk, System.nanoTime() - chunkStart);
+		}
+		fireChanges(changes);
+		LOGGER.info(() -> "Bulk insert finished: " + result);
+		return result;
+	}
+
+	/**
+	 * Announces the changes of the current transaction, observers in the transaction phase AFTER_SUCCESS are notified on commit. The event is not injected when the service runs
+	 * outside of the container, e.g. in benchmarks.
+	 */
+	private void fireChanges(PersonChangeEvent.Builder changes) {
+		if (personChanged != null && !changes.isEmpty()) {
+			personChanged.fire(changes.build());
+		}
+	}
+
+	/**
+	 * Sets name, gender and age of existing persons with one JDBC batch, in the order of the updates.
+	 */
+	private static void updateExisting(Connection connection, List<PersonUpdate> updates) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(UPDATE_PERSON_SQL)) {
+			for (PersonUpdate update : updates) {
+				statement.setString(1, update.getName());
+				statement.setString(2, update.getGender());
+				statement.setInt(3, update.getAge());
+				statement.setLong(4, update.getId());
+				statement.addBatch();
+			}
+			statement.executeBatch();
+		}
+	}
+
+	private static String escapeLike(String value) {
+		return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+	}
+
+	/**
+	 * Stops a long running operation between chunks once the request thread was interrupted, the interrupt flag is kept.
+	 *
+	 * @throws RequestCancelledException if the current thread is interrupted.
+	 */
+	private static void checkNotCancelled() {
+		if (Thread.currentThread().isInterrupted()) {
+			throw new RequestCancelledException("Request was cancelled");
+		}
+	}
+
 	/**
 	 * Converts a generated Person object to a PersonEntity.
 	 *
@@ -90,11 +459,16 @@ public class PersonService {
 	 * @return a PersonEntity object.
 	 */
 	public PersonEntity convertToEntity(Person person) {
-		LOGGER.info("Converting Person to PersonEntity");
-		PersonEntity entity = new PersonEntity();
-		entity.setName(person.getName());
-		entity.setGender(person.getGender());
-		entity.setAge(person.getAge().intValue()); // Assuming conversion is always safe
-		return entity;
+		LOGGER.fine("Converting Person to PersonEntity");
+		Phase previous = PhaseTimer.enter(Phase.CONVERT);
+		try {
+			PersonEntity entity = new PersonEntity();
+			entity.setName(person.getName());
+			entity.setGender(person.getGender());
+			entity.setAge(person.getAge().intValue()); // Assuming conversion is always safe
+			return entity;
+		} finally {
+			PhaseTimer.exit(previous);
+		}
 	}
 }
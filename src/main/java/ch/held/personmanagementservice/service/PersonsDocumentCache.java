@@ -0,0 +1,232 @@
+package ch.held.personmanagementservice.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.stream.XMLStreamException;
+
+import ch.held.personmanagementservice.model.CacheStatistics;
+import ch.held.personmanagementservice.util.ServiceConfiguration;
+import ch.held.personmanagementservice.util.SingleFlight;
+import ch.held.personmanagementservice.writer.PersonXmlWriter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * The encoded XML document of all persons, as {@code GET /persons} returns it, kept in memory for the current {@link DataVersion}. Reads are served from the bytes without a
+ * query or marshalling; the first read after a change rebuilds the document while concurrent readers wait for it in a {@link SingleFlight} instead of querying themselves.
+ * <p>
+ * A document larger than {@link ServiceConfiguration#personsCacheMaxBytes()} is not kept; readers stream the persons instead until the next change.
+ */
+@ApplicationScoped
+public class PersonsDocumentCache {
+
+	private static final Logger LOGGER = Logger.getLogger(PersonsDocumentCache.class.getName());
+
+	@Inject
+	private PersonService personService;
+
+	@Inject
+	private DataVersion dataVersion;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder fallbacks = new LongAdder();
+	private final LongAdder totalRebuildNanos = new LongAdder();
+	private final SingleFlight<Long, Document> rebuilds = new SingleFlight<>("personsDocument", 0);
+
+	// Replaced under this, read without it
+	private volatile Document document;
+	private volatile long oversizedVersion = -1;
+	private volatile long lastRebuildNanos;
+
+	/**
+	 * @return the document of the current persons, rebuilt if they changed since it was built; null if it exceeds the size limit and the persons have to be streamed.
+	 */
+	public Document get() {
+		// Read before the query, a change committed during the rebuild only makes the next read rebuild again
+		long version = dataVersion.current();
+		Document cached = document;
+		if (cached != null && cached.version == version) {
+			hits.increment();
+			return cached;
+		}
+		if (oversizedVersion == version) {
+			fallbacks.increment();
+			return null;
+		}
+		return rebuilds.execute(version, () -> rebuild(version));
+	}
+
+	/**
+	 * @return the usage figures, without waiting for a rebuild in progress.
+	 */
+	public CacheStatistics getStatistics() {
+		Document cached = document;
+		return new CacheStatistics(hits.sum(), rebuilds.getCoalesced(), misses.sum(), fallbacks.sum(), TimeUnit.NANOSECONDS.toMillis(lastRebuildNanos),
+				TimeUnit.NANOSECONDS.toMillis(totalRebuildNanos.sum()), cached != null ? cached.xml.length : 0, cached != null ? cached.gzipLength() : 0);
+	}
+
+	/**
+	 * @return the flight coalescing concurrent rebuilds of the same version.
+	 */
+	public SingleFlight<Long, Document> getRebuilds() {
+		return rebuilds;
+	}
+
+	private Document rebuild(long version) {
+		synchronized (this) {
+			// Built by a flight that completed just before this one started
+			Document cached = document;
+			if (cached != null && cached.version == version) {
+				hits.increment();
+				return cached;
+			}
+			if (oversizedVersion == version) {
+				fallbacks.increment();
+				return null;
+			}
+			if (cached != null && cached.version < version) {
+				// Not served any more, release it before encoding the new one
+				document = null;
+			}
+		}
+		misses.increment();
+		long start = System.nanoTime();
+		Document rebuilt = null;
+		try {
+			rebuilt = new Document(version, encode());
+		} catch (DocumentTooLargeException e) {
+			LOGGER.info(() -> "Persons document exceeds " + ServiceConfiguration.personsCacheMaxBytes() + " bytes, it is streamed instead of cached.");
+		} finally {
+			long rebuildNanos = System.nanoTime() - start;
+			lastRebuildNanos = rebuildNanos;
+			totalRebuildNanos.add(rebuildNanos);
+		}
+		synchronized (this) {
+			// Rebuilds of different versions may overlap, the newest one wins
+			Document current = document;
+			if (rebuilt == null) {
+				oversizedVersion = Math.max(oversizedVersion, version);
+			} else if (current == null || current.version < version) {
+				document = rebuilt;
+			}
+		}
+		return rebuilt;
+	}
+
+	private byte[] encode() {
+		CappedBuffer buffer = new CappedBuffer(ServiceConfiguration.personsCacheMaxBytes());
+		try (PersonXmlWriter writer = PersonXmlWriter.open(buffer, null)) {
+			personService.streamAllPersons(person -> {
+				try {
+					writer.writePerson(person);
+				} catch (XMLStreamException e) {
+					throw new UncheckedIOException(new IOException(e));
+				}
+			});
+		} catch (XMLStreamException | IOException e) {
+			throw new UncheckedIOException(new IOException("Failed to encode the persons document", e));
+		}
+		return buffer.toByteArray();
+	}
+
+	/**
+	 * An encoded persons document and the data version it was built for. The gzip encoding is created on first use.
+	 */
+	public static final class Document {
+
+		private final long version;
+		private final byte[] xml;
+		private volatile byte[] gzip;
+
+		Document(long version, byte[] xml) {
+			this.version = version;
+			this.xml = xml;
+		}
+
+		public long version() {
+			return version;
+		}
+
+		/**
+		 * @return the UTF-8 encoded XML, must not be modified.
+		 */
+		public byte[] xml() {
+			return xml;
+		}
+
+		/**
+		 * @return the gzip-encoded XML, must not be modified.
+		 */
+		public byte[] gzip() {
+			byte[] encoded = gzip;
+			if (encoded == null) {
+				synchronized (this) {
+					encoded = gzip;
+					if (encoded == null) {
+						ByteArrayOutputStream out = new ByteArrayOutputStream(xml.length / 8 + 64);
+						try (GZIPOutputStream compressor = new GZIPOutputStream(out, 8192)) {
+							compressor.write(xml);
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+						encoded = out.toByteArray();
+						gzip = encoded;
+					}
+				}
+			}
+			return encoded;
+		}
+
+		int gzipLength() {
+			byte[] encoded = gzip;
+			return encoded != null ? encoded.length : 0;
+		}
+	}
+
+	/**
+	 * Collects the document and stops the rebuild by throwing once it exceeds the size limit.
+	 */
+	private static final class CappedBuffer extends ByteArrayOutputStream {
+
+		private final int maxBytes;
+
+		CappedBuffer(int maxBytes) {
+			super(Math.min(maxBytes, 1 << 16));
+			this.maxBytes = maxBytes;
+		}
+
+		@Override
+		public synchronized void write(int b) {
+			ensureCapacity(1);
+			super.write(b);
+		}
+
+		@Override
+		public synchronized void write(byte[] b, int off, int len) {
+			ensureCapacity(len);
+			super.write(b, off, len);
+		}
+
+		private void ensureCapacity(int length) {
+			if (count + length > maxBytes) {
+				throw new DocumentTooLargeException();
+			}
+		}
+	}
+
+	private static final class DocumentTooLargeException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		DocumentTooLargeException() {
+			super("Persons document exceeds the cache size limit", null, false, false);
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package ch.held.personmanagementservice.service;
+
+import java.util.List;
+
+import ch.held.personmanagementservice.model.PersonEntity;
+import ch.held.personmanagementservice.model.StatisticsEntity;
+import ch.held.personmanagementservice.statistics.impl.RequestStatisticsService;
+import ch.held.personmanagementservice.statistics.impl.StatisticsWindow;
+import ch.held.personmanagementservice.util.ServiceConfiguration;
+import ch.held.personmanagementservice.util.SingleFlight;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Coalesces identical reads of persons pages that arrive together, as a dashboard refresh does: one request queries, the others share its result through a
+ * {@link SingleFlight}. All persons are coalesced by the {@link PersonsDocumentCache}.
+ * <p>
+ * Pages are keyed by the {@link DataVersion}, so a request never shares a page read before a change it could have seen. With {@link ServiceConfiguration#coalescingFreshMillis()}
+ * results are also shared with requests arriving shortly after.
+ */
+@ApplicationScoped
+public class ReadCoalescer {
+
+	@Inject
+	private PersonService personService;
+
+	@Inject
+	private DataVersion dataVersion;
+
+	@Inject
+	private RequestStatisticsService statisticsService;
+
+	@Inject
+	private PersonsDocumentCache personsCache;
+
+	private final SingleFlight<PageKey, List<PersonEntity>> pages = new SingleFlight<>("personsPage", ServiceConfiguration.coalescingFreshMillis());
+	private final SingleFlight<String, TaggedStatistics> statistics = new SingleFlight<>("statistics", ServiceConfiguration.coalescingFreshMillis());
+
+	/**
+	 * Shared variant of {@link PersonService#getPersonsPage(Long, int)}.
+	 *
+	 * @return the page, shared with other requests and not to be modified.
+	 */
+	public List<PersonEntity> getPersonsPage(Long after, int limit) {
+		// Read before the query, like the ETag
+		PageKey key = new PageKey(dataVersion.current(), after, limit);
+		return pages.execute(key, () -> personService.getPersonsPage(after, limit));
+	}
+
+	/**
+	 * Shared variant of {@link RequestStatisticsService#generateStatistics(boolean, StatisticsWindow)} for non-interval reports, which have no side effects. Like pages, the
+	 * statistics are shared with requests arriving while they are generated, and within the freshness window if one is configured.
+	 *
+	 * @param window the sliding window reported as well, or null.
+	 * @return the statistics with the tag read before they were generated, shared with other requests and not to be modified.
+	 */
+	public TaggedStatistics generateStatistics(StatisticsWindow window) {
+		return statistics.execute(window != null ? window.getLabel() : "", () -> tagStatistics(window));
+	}
+
+	private TaggedStatistics tagStatistics(StatisticsWindow window) {
+		String tag = statisticsService.statisticsTag(window);
+		return new TaggedStatistics(tag, statisticsService.generateStatistics(false, window));
+	}
+
+	/**
+	 * @return the flights of the coalesced reads, for reporting.
+	 */
+	public List<SingleFlight<?, ?>> getFlights() {
+		return List.of(personsCache.getRebuilds(), pages, statistics);
+	}
+
+	/**
+	 * Statistics and the tag that describes them.
+	 */
+	public record TaggedStatistics(String tag, StatisticsEntity statistics) {
+	}
+
+	private record PageKey(long version, Long after, int limit) {
+	}
+}
@@ -0,0 +1,14 @@
+package ch.held.personmanagementservice.service;
+
+/**
+ * Thrown by long running service operations when the thread processing the request was interrupted, e.g. because the request timed out. Being a runtime exception, it rolls back
+ * the current transaction.
+ */
+public class RequestCancelledException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public RequestCancelledException(String message) {
+		super(message);
+	}
+}
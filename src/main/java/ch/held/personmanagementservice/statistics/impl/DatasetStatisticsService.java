@@ -0,0 +1,191 @@
+package ch.held.personmanagementservice.statistics.impl;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import ch.held.personmanagementservice.model.DatasetCheck;
+import ch.held.personmanagementservice.model.DatasetStatistics;
+import ch.held.personmanagementservice.service.PersonChangeEvent;
+import ch.held.personmanagementservice.service.PersonService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+
+/**
+ * Keeps {@link DatasetStatistics} about the stored persons up to date without scanning the table: every committed {@link PersonChangeEvent} adjusts the counts per gender and
+ * age in O(1) per person.
+ * <p>
+ * The counts are loaded with a {@code GROUP BY} query at startup and whenever an event does not list its changes, e.g. after a delete by criteria. {@link #check()} compares them
+ * with the same query.
+ */
+@ApplicationScoped
+public class DatasetStatisticsService {
+
+	private static final Logger LOGGER = Logger.getLogger(DatasetStatisticsService.class.getName());
+
+	// Loads that overlap with committed changes are repeated, the changes may or may not be part of the query result
+	private static final int MAX_LOAD_ATTEMPTS = 3;
+
+	@Inject
+	private PersonService personService;
+
+	@Resource
+	private ManagedThreadFactory managedThreadFactory;
+
+	private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+	private ExecutorService rebuilder;
+
+	// Guarded by this; counts is null until loaded, version counts the applied events and loads the times counts were replaced
+	private PersonCounts counts;
+	private long version;
+	private long loads;
+
+	@PostConstruct
+	void init() {
+		ThreadFactory threadFactory = managedThreadFactory != null ? managedThreadFactory : Executors.defaultThreadFactory();
+		rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = threadFactory.newThread(runnable);
+			thread.setName("dataset-statistics");
+			return thread;
+		});
+	}
+
+	@PreDestroy
+	void shutdown() {
+		rebuilder.shutdownNow();
+	}
+
+	void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+		requestRebuild();
+	}
+
+	void onPersonsChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) PersonChangeEvent event) {
+		if (!event.isComplete()) {
+			synchronized (this) {
+				version++;
+			}
+			requestRebuild();
+			return;
+		}
+		synchronized (this) {
+			version++;
+			if (counts == null) {
+				return;
+			}
+			for (PersonChangeEvent.Change change : event.getChanges()) {
+				if (change.kind() != PersonChangeEvent.Kind.ADDED) {
+					counts.remove(change.previousGender(), change.previousAge());
+				}
+				if (change.kind() != PersonChangeEvent.Kind.DELETED) {
+					counts.add(change.gender(), change.age());
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return false until the counts have been loaded after startup.
+	 */
+	public synchronized boolean isReady() {
+		return counts != null;
+	}
+
+	/**
+	 * @return the current statistics, or null until the counts have been loaded.
+	 */
+	public synchronized DatasetStatistics summarize() {
+		return counts != null ? counts.summarize() : null;
+	}
+
+	/**
+	 * @return a number that grows whenever {@link #summarize()} may return different statistics.
+	 */
+	public synchronized long getRevision() {
+		return version + loads;
+	}
+
+	/**
+	 * Compares the maintained counts with a {@code GROUP BY} query and replaces them by the queried ones if they differ.
+	 *
+	 * @return the differences found, none if the counts are consistent.
+	 * @throws IllegalStateException if the counts are not loaded yet, or persons kept changing during every comparison.
+	 */
+	public DatasetCheck check() {
+		for (int attempt = 1; attempt <= MAX_LOAD_ATTEMPTS; attempt++) {
+			long before = currentVersion();
+			PersonCounts database = query();
+			synchronized (this) {
+				if (counts == null) {
+					throw new IllegalStateException("Dataset statistics are not loaded yet");
+				}
+				if (version == before) {
+					List<String> differences = counts.differences(database);
+					if (!differences.isEmpty()) {
+						LOGGER.warning(() -> "Dataset statistics differ from the database, replacing them: " + differences);
+						counts = database;
+						loads++;
+					}
+					return new DatasetCheck(differences);
+				}
+			}
+		}
+		throw new IllegalStateException("Persons changed during every comparison");
+	}
+
+	/**
+	 * Schedules a reload of the counts; requests arriving while a reload is queued are coalesced.
+	 */
+	public void requestRebuild() {
+		if (rebuildQueued.compareAndSet(false, true)) {
+			rebuilder.execute(this::rebuild);
+		}
+	}
+
+	private void rebuild() {
+		rebuildQueued.set(false);
+		long start = System.nanoTime();
+		try {
+			for (int attempt = 1; attempt <= MAX_LOAD_ATTEMPTS; attempt++) {
+				long before = currentVersion();
+				PersonCounts loaded = query();
+				synchronized (this) {
+					if (version == before || attempt == MAX_LOAD_ATTEMPTS) {
+						if (version != before) {
+							LOGGER.warning("Persons changed while loading the dataset statistics, they may be off until the next check");
+						}
+						counts = loaded;
+						loads++;
+						break;
+					}
+				}
+			}
+		} catch (RuntimeException e) {
+			LOGGER.log(Level.WARNING, "Loading the dataset statistics failed, keeping the previous counts", e);
+			return;
+		}
+		LOGGER.info(() -> "Dataset statistics loaded in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+	}
+
+	private synchronized long currentVersion() {
+		return version;
+	}
+
+	private PersonCounts query() {
+		PersonCounts loaded = new PersonCounts();
+		for (Object[] row : personService.countByGenderAndAge()) {
+			loaded.add((String) row[0], (Integer) row[1], (Long) row[2]);
+		}
+		return loaded;
+	}
+}
@@ -0,0 +1,61 @@
+package ch.held.personmanagementservice.statistics.impl;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import ch.held.personmanagementservice.model.EndpointLatency;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Holds one latency histogram pair per endpoint. Recorders are looked up once when the endpoint is registered, so recording a request does not touch the registry.
+ */
+@ApplicationScoped
+public class EndpointLatencyRegistry {
+
+	private final ConcurrentMap<String, Recorder> recorders = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the recorder for an endpoint, creating it on first use.
+	 *
+	 * @param endpoint the name of the endpoint.
+	 * @return the recorder of the endpoint.
+	 */
+	public Recorder recorder(String endpoint) {
+		return recorders.computeIfAbsent(endpoint, name -> new Recorder());
+	}
+
+	/**
+	 * Summarizes the latencies of all endpoints, ordered by endpoint name.
+	 *
+	 * @param interval {@code false} for the latencies since startup, {@code true} for the latencies since the last interval summary. The interval histograms are reset by this call.
+	 * @return count, percentiles and maximum per endpoint.
+	 */
+	public List<EndpointLatency> summarize(boolean interval) {
+		return recorders.entrySet().stream().sorted(Comparator.comparing(entry -> entry.getKey()))
+				.map(entry -> interval ? entry.getValue().interval.summarize(entry.getKey(), true) : entry.getValue().total.summarize(entry.getKey(), false)).toList();
+	}
+
+	/**
+	 * Records the latencies of a single endpoint, both since startup and for the current interval.
+	 */
+	public static final class Recorder {
+
+		private final LatencyHistogram total = new LatencyHistogram();
+		private final LatencyHistogram interval = new LatencyHistogram();
+
+		private Recorder() {
+		}
+
+		/**
+		 * Records one request. Lock-free and allocation-free.
+		 *
+		 * @param nanos the duration of the request in nanoseconds.
+		 */
+		public void record(long nanos) {
+			total.record(nanos);
+			interval.record(nanos);
+		}
+	}
+}
@@ -1,7 +1,6 @@
 package ch.held.personmanagementservice.statistics.impl;
 
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import jakarta.xml.bind.annotation.XmlAccessType;
 import jakarta.xml.bind.annotation.XmlAccessorType;
@@ -13,9 +12,8 @@ import jakarta.xml.bind.annotation.XmlType;
 @XmlAccessorType(XmlAccessType.FIELD)
 @XmlType(propOrder = { "countForXml", "errorMessage", "stackTrace" })
 public class ErrorDetail {
-	// JAXB does not directly support AtomicInteger, so this field is transient
-	// and not directly serialized. Instead, use a regular int for XML representation.
-	private transient final AtomicInteger count = new AtomicInteger(1);
+	// Serialized through getCountForXml to keep the element name of the XML representation
+	private transient long count = 1;
 	@XmlElement(name = "errorMessage")
 	private String errorMessage;
 	@XmlElement(name = "stackTrace")
@@ -30,9 +28,14 @@ public class ErrorDetail {
 		this.stackTrace = stackTrace;
 	}
 
+	public ErrorDetail(String errorMessage, String stackTrace, long count) {
+		this(errorMessage, stackTrace);
+		this.count = count;
+	}
+
 	@XmlElement(name = "countForXml")
-	private int getCountForXml() {
-		return count.get();
+	private long getCountForXml() {
+		return count;
 	}
 
 	public String getErrorMessage() {
@@ -51,12 +54,8 @@ public class ErrorDetail {
 		this.stackTrace = stackTrace;
 	}
 
-	public int getCount() {
-		return count.get();
-	}
-
-	public void incrementCount() {
-		count.incrementAndGet();
+	public long getCount() {
+		return count;
 	}
 
 	@Override
@@ -0,0 +1,162 @@
+package ch.held.personmanagementservice.statistics.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded store of error details, keyed by a 64-bit fingerprint of exception type, message and the top stack frames.
+ * <p>
+ * Recording a known error is a map lookup and a counter increment. The stack trace is kept as frames and only rendered to a string when the statistics are read. When the store is
+ * full, a new error evicts the least frequently (LFU) or least recently (LRU) seen one; evictions are counted.
+ */
+class ErrorDetailStore {
+
+	/**
+	 * Which entry to drop when the store is full.
+	 */
+	enum EvictionPolicy {
+		LFU, LRU
+	}
+
+	private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+	private final int maxEntries;
+	private final int fingerprintFrames;
+	private final Comparator<Entry> evictionOrder;
+	private final LongAdder dropped = new LongAdder();
+
+	ErrorDetailStore(int maxEntries, int fingerprintFrames, EvictionPolicy evictionPolicy) {
+		this.maxEntries = maxEntries;
+		this.fingerprintFrames = fingerprintFrames;
+		Comparator<Entry> byLastSeen = Comparator.comparingLong(entry -> entry.lastSeen);
+		this.evictionOrder = evictionPolicy == EvictionPolicy.LFU ? Comparator.<Entry> comparingLong(entry -> entry.count.sum()).thenComparing(byLastSeen) : byLastSeen;
+	}
+
+	/**
+	 * Counts one occurrence of the error.
+	 *
+	 * @param type         the error type, usually the simple exception class name.
+	 * @param errorMessage the error message.
+	 * @param stackTrace   the stack frames of the exception.
+	 * @return true if the error was seen before and its count was incremented, false if it was added.
+	 */
+	boolean record(String type, String errorMessage, StackTraceElement[] stackTrace) {
+		long fingerprint = fingerprint(type, errorMessage, stackTrace);
+		Entry entry = entries.get(fingerprint);
+		if (entry != null && entry.matches(type, errorMessage)) {
+			entry.hit();
+			return true;
+		}
+		synchronized (this) {
+			entry = entries.get(fingerprint);
+			if (entry != null && entry.matches(type, errorMessage)) {
+				entry.hit();
+				return true;
+			}
+			if (entry == null && entries.size() >= maxEntries) {
+				evictOne();
+			}
+			// a fingerprint collision replaces the older entry, which counts as dropped
+			if (entries.put(fingerprint, new Entry(type, errorMessage, stackTrace)) != null) {
+				dropped.increment();
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Renders the stored errors, most frequent first.
+	 *
+	 * @return a detail per stored error, with the stack trace rendered like {@link Arrays#toString(Object[])}.
+	 */
+	List<ErrorDetail> snapshot() {
+		List<Entry> snapshot = new ArrayList<>(entries.values());
+		snapshot.sort(Comparator.comparingLong((Entry entry) -> entry.count.sum()).reversed());
+		List<ErrorDetail> details = new ArrayList<>(snapshot.size());
+		for (Entry entry : snapshot) {
+			details.add(new ErrorDetail(entry.errorMessage, entry.renderStackTrace(), entry.count.sum()));
+		}
+		return details;
+	}
+
+	/**
+	 * @return the number of error details that were evicted to keep the store bounded.
+	 */
+	long getDropped() {
+		return dropped.sum();
+	}
+
+	private void evictOne() {
+		Map.Entry<Long, Entry> victim = null;
+		for (Map.Entry<Long, Entry> candidate : entries.entrySet()) {
+			if (victim == null || evictionOrder.compare(candidate.getValue(), victim.getValue()) < 0) {
+				victim = candidate;
+			}
+		}
+		if (victim != null && entries.remove(victim.getKey(), victim.getValue())) {
+			dropped.increment();
+		}
+	}
+
+	private long fingerprint(String type, String errorMessage, StackTraceElement[] stackTrace) {
+		long hash = mix(Objects.hashCode(type));
+		hash = 31 * hash + mix(Objects.hashCode(errorMessage));
+		int frames = Math.min(fingerprintFrames, stackTrace.length);
+		for (int i = 0; i < frames; i++) {
+			StackTraceElement frame = stackTrace[i];
+			hash = 31 * hash + mix(frame.getClassName().hashCode() * 31L + frame.getMethodName().hashCode());
+			hash = 31 * hash + frame.getLineNumber();
+		}
+		return mix(hash);
+	}
+
+	/**
+	 * 64-bit finalizer of MurmurHash3, spreads the bits of a weak hash code.
+	 */
+	private static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		return value ^ (value >>> 33);
+	}
+
+	private static final class Entry {
+		private final String type;
+		private final String errorMessage;
+		private final StackTraceElement[] stackTrace;
+		private final LongAdder count = new LongAdder();
+		private volatile long lastSeen;
+		private volatile String renderedStackTrace;
+
+		Entry(String type, String errorMessage, StackTraceElement[] stackTrace) {
+			this.type = type;
+			this.errorMessage = errorMessage;
+			this.stackTrace = stackTrace;
+			hit();
+		}
+
+		boolean matches(String otherType, String otherMessage) {
+			return type.equals(otherType) && Objects.equals(errorMessage, otherMessage);
+		}
+
+		void hit() {
+			count.increment();
+			lastSeen = System.nanoTime();
+		}
+
+		String renderStackTrace() {
+			String rendered = renderedStackTrace;
+			if (rendered == null) {
+				rendered = Arrays.toString(stackTrace);
+				renderedStackTrace = rendered;
+			}
+			return rendered;
+		}
+	}
+}
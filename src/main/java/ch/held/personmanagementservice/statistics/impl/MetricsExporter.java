@@ -0,0 +1,187 @@
+package ch.held.personmanagementservice.statistics.impl;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import ch.held.personmanagementservice.service.ReadCoalescer;
+import ch.held.personmanagementservice.util.SingleFlight;
+import ch.held.personmanagementservice.writer.PrometheusTextWriter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnit;
+
+/**
+ * Exports the request counters, the Hibernate statistics and JVM figures for Prometheus. All values are read when scraped; nothing is recorded in addition to what the sources
+ * already count.
+ * <p>
+ * The Hibernate figures require {@code hibernate.generate_statistics} in persistence.xml and are left out if it is disabled.
+ */
+@ApplicationScoped
+public class MetricsExporter {
+
+	private static final String COUNTER = "counter";
+	private static final String GAUGE = "gauge";
+
+	@Inject
+	private RequestStatisticsService statisticsService;
+
+	@Inject
+	private ReadCoalescer readCoalescer;
+
+	@PersistenceUnit(unitName = "default")
+	private EntityManagerFactory entityManagerFactory;
+
+	private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+	private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+	/**
+	 * Writes all metrics.
+	 *
+	 * @param writer the writer to write to, it is not closed.
+	 * @throws IOException if writing fails.
+	 */
+	public void write(PrometheusTextWriter writer) throws IOException {
+		writeRequestCounters(writer);
+		writeCoalescing(writer);
+		if (entityManagerFactory != null) {
+			Statistics hibernate = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+			if (hibernate.isStatisticsEnabled()) {
+				writeHibernateStatistics(writer, hibernate);
+			}
+		}
+		writeJvmMetrics(writer);
+	}
+
+	private void writeRequestCounters(PrometheusTextWriter writer) throws IOException {
+		// Read before the snapshot, which folds the pending events
+		int queueDepth = statisticsService.eventQueueDepth();
+		writer.family("personmanagement_statistics_queue_depth", GAUGE, "Recorded requests not yet folded into the statistics.")
+				.sample("personmanagement_statistics_queue_depth", queueDepth);
+		writer.family("personmanagement_statistics_queue_capacity", GAUGE, "Capacity of the statistics event queue.")
+				.sample("personmanagement_statistics_queue_capacity", statisticsService.eventQueueCapacity());
+		writeCounter(writer, "personmanagement_statistics_dropped_events_total", "Recorded requests whose error detail and log line were dropped because the queue was full.",
+				statisticsService.droppedEvents());
+
+		long[] counters = statisticsService.counterSnapshot();
+		writer.family("personmanagement_add_requests_total", COUNTER, "Add requests since startup.")
+				.sample("personmanagement_add_requests_total", counters[RequestStatisticsService.TOTAL_ADD_REQUESTS]);
+		writer.family("personmanagement_invalid_add_requests_total", COUNTER, "Add requests rejected as invalid since startup.")
+				.sample("personmanagement_invalid_add_requests_total", counters[RequestStatisticsService.TOTAL_INVALID_ADD_REQUESTS]);
+		writer.family("personmanagement_valid_requests_total", COUNTER, "Requests answered successfully since startup.")
+				.sample("personmanagement_valid_requests_total", counters[RequestStatisticsService.TOTAL_VALID_REQUESTS]);
+		writer.family("personmanagement_added_persons_total", COUNTER, "Persons added since startup.")
+				.sample("personmanagement_added_persons_total", counters[RequestStatisticsService.TOTAL_ADDED_PERSONS]);
+		writer.family("personmanagement_add_errors_total", COUNTER, "Invalid add requests by exception type since startup.");
+		for (Map.Entry<String, Long> errorType : statisticsService.errorTypeCounts(counters).entrySet()) {
+			writer.sample("personmanagement_add_errors_total", "type", errorType.getKey(), errorType.getValue());
+		}
+	}
+
+	private void writeCoalescing(PrometheusTextWriter writer) throws IOException {
+		List<SingleFlight<?, ?>> flights = readCoalescer.getFlights();
+		writer.family("personmanagement_coalescing_executions_total", COUNTER, "Coalesced reads computed, by read.");
+		for (SingleFlight<?, ?> flight : flights) {
+			writer.sample("personmanagement_coalescing_executions_total", "read", flight.getName(), flight.getExecutions());
+		}
+		writer.family("personmanagement_coalesced_requests_total", COUNTER, "Requests that waited for a read computed by another request, by read.");
+		for (SingleFlight<?, ?> flight : flights) {
+			writer.sample("personmanagement_coalesced_requests_total", "read", flight.getName(), flight.getCoalesced());
+		}
+		writer.family("personmanagement_coalescing_reused_total", COUNTER, "Requests served a completed read within the freshness window, by read.");
+		for (SingleFlight<?, ?> flight : flights) {
+			writer.sample("personmanagement_coalescing_reused_total", "read", flight.getName(), flight.getReused());
+		}
+	}
+
+	private static void writeHibernateStatistics(PrometheusTextWriter writer, Statistics statistics) throws IOException {
+		writeCounter(writer, "hibernate_sessions_opened_total", "Sessions opened.", statistics.getSessionOpenCount());
+		writeCounter(writer, "hibernate_transactions_total", "Transactions completed.", statistics.getTransactionCount());
+		writeCounter(writer, "hibernate_connections_obtained_total", "JDBC connections obtained.", statistics.getConnectCount());
+		writeCounter(writer, "hibernate_statements_prepared_total", "JDBC statements prepared.", statistics.getPrepareStatementCount());
+		writeCounter(writer, "hibernate_flushes_total", "Flushes of a session.", statistics.getFlushCount());
+		writeCounter(writer, "hibernate_queries_executed_total", "HQL and criteria queries executed.", statistics.getQueryExecutionCount());
+		writer.family("hibernate_query_execution_max_seconds", GAUGE, "Duration of the slowest query executed.")
+				.sample("hibernate_query_execution_max_seconds", statistics.getQueryExecutionMaxTime() / 1000.0);
+		writeCounter(writer, "hibernate_entity_inserts_total", "Entities inserted.", statistics.getEntityInsertCount());
+		writeCounter(writer, "hibernate_entity_updates_total", "Entities updated.", statistics.getEntityUpdateCount());
+		writeCounter(writer, "hibernate_entity_deletes_total", "Entities deleted.", statistics.getEntityDeleteCount());
+		writeCounter(writer, "hibernate_entity_loads_total", "Entities loaded.", statistics.getEntityLoadCount());
+		writeCounter(writer, "hibernate_second_level_cache_hits_total", "Second-level cache hits.", statistics.getSecondLevelCacheHitCount());
+		writeCounter(writer, "hibernate_second_level_cache_misses_total", "Second-level cache misses.", statistics.getSecondLevelCacheMissCount());
+		writeCounter(writer, "hibernate_second_level_cache_puts_total", "Second-level cache puts.", statistics.getSecondLevelCachePutCount());
+		writeCounter(writer, "hibernate_query_cache_hits_total", "Query cache hits.", statistics.getQueryCacheHitCount());
+		writeCounter(writer, "hibernate_query_cache_misses_total", "Query cache misses.", statistics.getQueryCacheMissCount());
+		writeCounter(writer, "hibernate_query_cache_puts_total", "Query cache puts.", statistics.getQueryCachePutCount());
+
+		Map<String, CacheRegionStatistics> regions = new LinkedHashMap<>();
+		for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+			CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+			if (region != null) {
+				regions.put(regionName, region);
+			}
+		}
+		writer.family("hibernate_cache_region_hits_total", COUNTER, "Second-level and query cache hits by region.");
+		for (Map.Entry<String, CacheRegionStatistics> region : regions.entrySet()) {
+			writer.sample("hibernate_cache_region_hits_total", "region", region.getKey(), region.getValue().getHitCount());
+		}
+		writer.family("hibernate_cache_region_misses_total", COUNTER, "Second-level and query cache misses by region.");
+		for (Map.Entry<String, CacheRegionStatistics> region : regions.entrySet()) {
+			writer.sample("hibernate_cache_region_misses_total", "region", region.getKey(), region.getValue().getMissCount());
+		}
+		writer.family("hibernate_cache_region_puts_total", COUNTER, "Second-level and query cache puts by region.");
+		for (Map.Entry<String, CacheRegionStatistics> region : regions.entrySet()) {
+			writer.sample("hibernate_cache_region_puts_total", "region", region.getKey(), region.getValue().getPutCount());
+		}
+		writer.family("hibernate_cache_region_elements", GAUGE, "Entries held by region, if the cache provider reports them.");
+		for (Map.Entry<String, CacheRegionStatistics> region : regions.entrySet()) {
+			long elements = region.getValue().getElementCountInMemory();
+			if (elements >= 0) {
+				writer.sample("hibernate_cache_region_elements", "region", region.getKey(), elements);
+			}
+		}
+	}
+
+	private void writeJvmMetrics(PrometheusTextWriter writer) throws IOException {
+		List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+		writer.family("jvm_gc_collections_total", COUNTER, "Garbage collections by collector.");
+		for (GarbageCollectorMXBean collector : collectors) {
+			writer.sample("jvm_gc_collections_total", "gc", collector.getName(), Math.max(collector.getCollectionCount(), 0));
+		}
+		writer.family("jvm_gc_collection_seconds_total", COUNTER, "Time spent in garbage collections by collector.");
+		for (GarbageCollectorMXBean collector : collectors) {
+			writer.sample("jvm_gc_collection_seconds_total", "gc", collector.getName(), Math.max(collector.getCollectionTime(), 0) / 1000.0);
+		}
+
+		MemoryUsage heap = memory.getHeapMemoryUsage();
+		MemoryUsage nonHeap = memory.getNonHeapMemoryUsage();
+		writer.family("jvm_memory_used_bytes", GAUGE, "Used memory by area.")
+				.sample("jvm_memory_used_bytes", "area", "heap", heap.getUsed())
+				.sample("jvm_memory_used_bytes", "area", "nonheap", nonHeap.getUsed());
+		writer.family("jvm_memory_committed_bytes", GAUGE, "Committed memory by area.")
+				.sample("jvm_memory_committed_bytes", "area", "heap", heap.getCommitted())
+				.sample("jvm_memory_committed_bytes", "area", "nonheap", nonHeap.getCommitted());
+		writer.family("jvm_memory_max_bytes", GAUGE, "Maximum memory by area, -1 if undefined.")
+				.sample("jvm_memory_max_bytes", "area", "heap", heap.getMax())
+				.sample("jvm_memory_max_bytes", "area", "nonheap", nonHeap.getMax());
+
+		writer.family("jvm_threads_current", GAUGE, "Live threads.").sample("jvm_threads_current", threads.getThreadCount());
+		writer.family("jvm_threads_daemon", GAUGE, "Live daemon threads.").sample("jvm_threads_daemon", threads.getDaemonThreadCount());
+		writer.family("jvm_threads_peak", GAUGE, "Peak number of live threads.").sample("jvm_threads_peak", threads.getPeakThreadCount());
+	}
+
+	private static void writeCounter(PrometheusTextWriter writer, String name, String help, long value) throws IOException {
+		writer.family(name, COUNTER, help).sample(name, value);
+	}
+}
@@ -0,0 +1,128 @@
+package ch.held.personmanagementservice.statistics.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import ch.held.personmanagementservice.model.DatasetStatistics;
+
+/**
+ * Number of persons per gender and per age, from which all {@link DatasetStatistics} are derived. Adding or removing a person is O(1); ages beyond {@value #MAX_TRACKED_AGE} are
+ * counted in a sorted map instead of the array.
+ * <p>
+ * Not thread-safe, see {@link DatasetStatisticsService}.
+ */
+final class PersonCounts {
+
+	static final int MAX_TRACKED_AGE = 150;
+
+	private static final int AGE_BIN_WIDTH = 10;
+	// Ages from here on share the last, open-ended bin of the histogram
+	private static final int OPEN_AGE_BIN = 100;
+
+	private long persons;
+	// Keyed by gender, null for persons without one
+	private final Map<String, Long> genders = new HashMap<>();
+	private final long[] ageCounts = new long[MAX_TRACKED_AGE + 1];
+	private final TreeMap<Integer, Long> untrackedAges = new TreeMap<>();
+	private long personsWithAge;
+	private long ageSum;
+
+	void add(String gender, Integer age) {
+		add(gender, age, 1);
+	}
+
+	void remove(String gender, Integer age) {
+		add(gender, age, -1);
+	}
+
+	/**
+	 * Adds {@code count} persons of the given gender and age, a negative count removes them.
+	 */
+	void add(String gender, Integer age, long count) {
+		persons += count;
+		genders.merge(gender, count, (current, delta) -> current + delta == 0 ? null : current + delta);
+		if (age == null) {
+			return;
+		}
+		if (age >= 0 && age <= MAX_TRACKED_AGE) {
+			ageCounts[age] += count;
+		} else {
+			untrackedAges.merge(age, count, (current, delta) -> current + delta == 0 ? null : current + delta);
+		}
+		personsWithAge += count;
+		ageSum += age * count;
+	}
+
+	/**
+	 * Derives the statistics; the cost depends on the number of distinct ages, not on the number of persons.
+	 */
+	DatasetStatistics summarize() {
+		DatasetStatistics statistics = new DatasetStatistics();
+		statistics.setPersons(persons);
+		genders.entrySet().stream()
+				.sorted(Map.Entry.comparingByKey(Comparator.nullsLast(Comparator.naturalOrder())))
+				.forEach(gender -> statistics.addGender(gender.getKey(), gender.getValue()));
+		if (personsWithAge == 0) {
+			return statistics;
+		}
+		Map<Integer, Long> ages = ageCounts();
+		int minAge = ages.keySet().stream().min(Integer::compare).orElseThrow();
+		int maxAge = ages.keySet().stream().max(Integer::compare).orElseThrow();
+		statistics.setMinAge(minAge);
+		statistics.setMaxAge(maxAge);
+		statistics.setMeanAge(Math.round(ageSum * 100.0 / personsWithAge) / 100.0);
+
+		long[] bins = new long[OPEN_AGE_BIN / AGE_BIN_WIDTH + 1];
+		// Negative ages, which validation rejects, are counted in the first bin
+		ages.forEach((age, count) -> bins[Math.min(Math.max(age, 0), OPEN_AGE_BIN) / AGE_BIN_WIDTH] += count);
+		int lastBin = Math.min(Math.max(maxAge, 0), OPEN_AGE_BIN) / AGE_BIN_WIDTH;
+		for (int bin = 0; bin <= lastBin; bin++) {
+			int from = bin * AGE_BIN_WIDTH;
+			statistics.addAgeBin(from, from < OPEN_AGE_BIN ? from + AGE_BIN_WIDTH - 1 : null, bins[bin]);
+		}
+		return statistics;
+	}
+
+	/**
+	 * @return a description of every count that differs from the other counts, empty if they are equal.
+	 */
+	List<String> differences(PersonCounts other) {
+		List<String> differences = new ArrayList<>();
+		addDifference(differences, "persons", persons, other.persons);
+		Map<String, Long> otherGenders = other.genders;
+		genders.keySet().stream().filter(gender -> !otherGenders.containsKey(gender)).forEach(gender -> addDifference(differences, "gender " + gender, genders.get(gender), 0));
+		otherGenders.forEach((gender, count) -> addDifference(differences, "gender " + gender, genders.getOrDefault(gender, 0L), count));
+		Map<Integer, Long> ages = ageCounts();
+		Map<Integer, Long> otherAges = other.ageCounts();
+		TreeSet<Integer> allAges = new TreeSet<>(ages.keySet());
+		allAges.addAll(otherAges.keySet());
+		for (int age : allAges) {
+			addDifference(differences, "age " + age, ages.getOrDefault(age, 0L), otherAges.getOrDefault(age, 0L));
+		}
+		return differences;
+	}
+
+	/**
+	 * @return the number of persons per age, for ages with at least one person.
+	 */
+	private Map<Integer, Long> ageCounts() {
+		Map<Integer, Long> ages = new TreeMap<>(untrackedAges);
+		for (int age = 0; age <= MAX_TRACKED_AGE; age++) {
+			if (ageCounts[age] != 0) {
+				ages.put(age, ageCounts[age]);
+			}
+		}
+		return ages;
+	}
+
+	private static void addDifference(List<String> differences, String name, long maintained, long database) {
+		if (maintained != database) {
+			differences.add(name + ": maintained " + maintained + ", database " + database);
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package ch.held.personmanagementservice.statistics.impl;
+
+/**
+ * The phases of a request that are timed by {@link PhaseTimer}.
+ */
+public enum Phase {
+
+	/** Validation of the XML document against the XSD. */
+	VALIDATE_XML("validateXml"),
+	/** Unmarshalling of the XML document; includes the XSD validation when the document is streamed. */
+	PARSE_XML("parseXml"),
+	/** Parsing and validation of a JSON document while it is streamed. */
+	PARSE_JSON("parseJson"),
+	/** Decoding and validation of a binary persons document while it is streamed. */
+	PARSE_BINARY("parseBinary"),
+	/** Bean validation of the unmarshalled objects. */
+	VALIDATE_OBJECT("validateObject"),
+	/** Conversion of the unmarshalled persons into entities. */
+	CONVERT("convert"),
+	/** Database work including flush and commit. */
+	PERSIST("persist"),
+	/** Everything after the resource method returned, including writing the response entity. */
+	RESPONSE("response");
+
+	private final String metricName;
+
+	Phase(String metricName) {
+		this.metricName = metricName;
+	}
+
+	/**
+	 * @return the name used in the statistics output and the {@code Server-Timing} header.
+	 */
+	public String getMetricName() {
+		return metricName;
+	}
+}
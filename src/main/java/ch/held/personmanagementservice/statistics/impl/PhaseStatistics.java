@@ -0,0 +1,66 @@
+package ch.held.personmanagementservice.statistics.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import ch.held.personmanagementservice.model.PhaseTiming;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Cumulative time per {@link Phase} over all finished requests.
+ */
+@ApplicationScoped
+public class PhaseStatistics {
+
+	private static final Phase[] PHASES = Phase.values();
+
+	private final LongAdder[] requests = new LongAdder[PHASES.length];
+	private final LongAdder[] totalNanos = new LongAdder[PHASES.length];
+	private final LongAccumulator[] maxNanos = new LongAccumulator[PHASES.length];
+
+	public PhaseStatistics() {
+		for (int i = 0; i < PHASES.length; i++) {
+			requests[i] = new LongAdder();
+			totalNanos[i] = new LongAdder();
+			maxNanos[i] = new LongAccumulator(Math::max, 0);
+		}
+	}
+
+	/**
+	 * Adds the phases of a finished request.
+	 *
+	 * @param timer the timer of the request, it must not be used afterwards.
+	 */
+	public void record(PhaseTimer timer) {
+		timer.switchTo(null);
+		for (Phase phase : PHASES) {
+			if (timer.wasEntered(phase)) {
+				int i = phase.ordinal();
+				long nanos = timer.getNanos(phase);
+				requests[i].increment();
+				totalNanos[i].add(nanos);
+				maxNanos[i].accumulate(nanos);
+			}
+		}
+	}
+
+	/**
+	 * @return requests, total, mean and maximum time per phase.
+	 */
+	public List<PhaseTiming> summarize() {
+		List<PhaseTiming> timings = new ArrayList<>(PHASES.length);
+		for (Phase phase : PHASES) {
+			int i = phase.ordinal();
+			long count = requests[i].sum();
+			long total = totalNanos[i].sum();
+			timings.add(new PhaseTiming(phase.getMetricName(), count, toMicros(total), count > 0 ? toMicros(total / count) : 0, toMicros(maxNanos[i].get())));
+		}
+		return timings;
+	}
+
+	private static double toMicros(long nanos) {
+		return Math.round(nanos / 100.0) / 10.0;
+	}
+}
@@ -0,0 +1,166 @@
+package ch.held.personmanagementservice.statistics.impl;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-request phase timing. A timer is bound to the thread that processes the request; instrumented code switches phases with
+ * <pre>
+ * Phase previous = PhaseTimer.enter(Phase.PARSE_XML);
+ * try {
+ * 	...
+ * } finally {
+ * 	PhaseTimer.exit(previous);
+ * }
+ * </pre>
+ * Time is charged to the innermost active phase only, so nested phases (e.g. {@link Phase#CONVERT} inside {@link Phase#PERSIST}) are not counted twice. A phase switch costs one
+ * thread-local lookup and one {@link System#nanoTime()}; without a bound timer it is a no-op.
+ */
+public final class PhaseTimer {
+
+	private static final Phase[] PHASES = Phase.values();
+	private static final ThreadLocal<PhaseTimer> CURRENT = new ThreadLocal<>();
+
+	private final long[] nanos = new long[PHASES.length];
+	private int enteredMask;
+	private Phase active;
+	private long activeSince;
+
+	private PhaseTimer() {
+	}
+
+	/**
+	 * Creates a timer and binds it to the current thread.
+	 *
+	 * @return the new timer.
+	 */
+	public static PhaseTimer begin() {
+		PhaseTimer timer = new PhaseTimer();
+		CURRENT.set(timer);
+		return timer;
+	}
+
+	/**
+	 * Removes the timer from the current thread, phases entered afterwards on this thread are not timed.
+	 */
+	public static void unbind() {
+		CURRENT.remove();
+	}
+
+	/**
+	 * Removes the timer from the current thread so it can be handed to the thread that continues the request.
+	 *
+	 * @return the timer that was bound, or null.
+	 */
+	public static PhaseTimer detach() {
+		PhaseTimer timer = CURRENT.get();
+		CURRENT.remove();
+		return timer;
+	}
+
+	/**
+	 * Binds a timer obtained with {@link #detach()} to the current thread.
+	 *
+	 * @param timer the timer, may be null.
+	 */
+	public static void bind(PhaseTimer timer) {
+		if (timer != null) {
+			CURRENT.set(timer);
+		}
+	}
+
+	/**
+	 * Makes {@code phase} the active phase of the timer bound to the current thread.
+	 *
+	 * @param phase the phase to enter.
+	 * @return the previously active phase, to be passed to {@link #exit(Phase)}.
+	 */
+	public static Phase enter(Phase phase) {
+		PhaseTimer timer = CURRENT.get();
+		return timer != null ? timer.switchTo(phase) : null;
+	}
+
+	/**
+	 * Returns to the phase that was active before the matching {@link #enter(Phase)}.
+	 *
+	 * @param previous the value returned by {@link #enter(Phase)}.
+	 */
+	public static void exit(Phase previous) {
+		PhaseTimer timer = CURRENT.get();
+		if (timer != null) {
+			timer.switchTo(previous);
+		}
+	}
+
+	/**
+	 * Runs {@code work} in {@code phase}.
+	 *
+	 * @param <T>   the result type.
+	 * @param phase the phase to charge the work to.
+	 * @param work  the work to run.
+	 * @return the result of the work.
+	 */
+	public static <T> T time(Phase phase, Supplier<T> work) {
+		Phase previous = enter(phase);
+		try {
+			return work.get();
+		} finally {
+			exit(previous);
+		}
+	}
+
+	/**
+	 * Charges the elapsed time to the active phase and makes {@code phase} active, {@code null} stops timing.
+	 *
+	 * @param phase the phase to switch to, or null.
+	 * @return the previously active phase.
+	 */
+	public Phase switchTo(Phase phase) {
+		long now = System.nanoTime();
+		Phase previous = active;
+		if (previous != null) {
+			nanos[previous.ordinal()] += now - activeSince;
+		}
+		if (phase != null) {
+			enteredMask |= 1 << phase.ordinal();
+		}
+		active = phase;
+		activeSince = now;
+		return previous;
+	}
+
+	/**
+	 * @param phase the phase.
+	 * @return whether the phase was entered during the request.
+	 */
+	public boolean wasEntered(Phase phase) {
+		return (enteredMask & 1 << phase.ordinal()) != 0;
+	}
+
+	/**
+	 * @param phase the phase.
+	 * @return the time charged to the phase so far, in nanoseconds.
+	 */
+	public long getNanos(Phase phase) {
+		return nanos[phase.ordinal()];
+	}
+
+	/**
+	 * Formats the phases entered so far as {@code Server-Timing} header value with durations in milliseconds.
+	 *
+	 * @return the header value, empty if no phase was entered.
+	 */
+	public String toServerTiming() {
+		StringBuilder header = new StringBuilder(128);
+		for (Phase phase : PHASES) {
+			if (wasEntered(phase)) {
+				if (header.length() > 0) {
+					header.append(", ");
+				}
+				long micros = nanos[phase.ordinal()] / 1000;
+				header.append(phase.getMetricName()).append(";dur=").append(micros / 1000).append('.').append((char) ('0' + micros / 100 % 10))
+						.append((char) ('0' + micros / 10 % 10)).append((char) ('0' + micros % 10));
+			}
+		}
+		return header.toString();
+	}
+}
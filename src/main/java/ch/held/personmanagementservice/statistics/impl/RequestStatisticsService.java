@@ -1,56 +1,124 @@
 package ch.held.personmanagementservice.statistics.impl;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import ch.held.personmanagementservice.model.StatisticsEntity;
+import ch.held.personmanagementservice.model.WindowStatistics;
+import ch.held.personmanagementservice.parser.ParserResources;
+import ch.held.personmanagementservice.service.PersonsDocumentCache;
 import ch.held.personmanagementservice.statistics.api.StatisticsStrategy;
+import ch.held.personmanagementservice.util.ServiceConfiguration;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 
 /**
  * Service for recording and generating statistics about add requests.
+ * <p>
+ * Recording only publishes an event to a {@link StatisticsEventRing}; a background thread folds the events into the counters and error details and writes the log lines, so error
+ * bursts do not delay the responses of the request threads. Reading the statistics first folds all pending events, so it sees every request recorded before. When the queue is
+ * full the counters are updated on the request thread and only the error detail and log line of the event are dropped. The sliding windows count an event when it is folded,
+ * usually within milliseconds.
  */
 @ApplicationScoped
 public class RequestStatisticsService implements StatisticsStrategy {
 
 	private static final Logger LOGGER = Logger.getLogger(RequestStatisticsService.class.getName());
 
-	private final AtomicInteger totalAddRequests = new AtomicInteger();
-	private final AtomicInteger totalInvalidAddRequests = new AtomicInteger();
-	private final AtomicInteger totalValidRequests = new AtomicInteger();
-	private final AtomicInteger totalAddedPersons = new AtomicInteger();
-	private final ConcurrentHashMap<String, List<ErrorDetail>> errorDetailsMap = new ConcurrentHashMap<>();
+	@Inject
+	private ParserResources parserResources;
+
+	@Inject
+	private EndpointLatencyRegistry latencyRegistry;
+
+	@Inject
+	private PhaseStatistics phaseStatistics;
+
+	@Inject
+	private DatasetStatisticsService datasetStatistics;
+
+	@Inject
+	private PersonsDocumentCache personsCache;
+
+	@Resource
+	private ManagedThreadFactory managedThreadFactory;
+
+	static final int TOTAL_ADD_REQUESTS = 0;
+	static final int TOTAL_INVALID_ADD_REQUESTS = 1;
+	static final int TOTAL_VALID_REQUESTS = 2;
+	static final int TOTAL_ADDED_PERSONS = 3;
+
+	// Followed by the invalid add requests per error type, types beyond MAX_ERROR_TYPES share the last counter
+	private static final int FIRST_ERROR_TYPE = 4;
+	private static final int MAX_ERROR_TYPES = 32;
+	private static final int OTHER_ERROR_TYPES = FIRST_ERROR_TYPE + MAX_ERROR_TYPES;
+
+	// All counters live in one striped seqlock so a snapshot never shows a request counted as add request but not yet as valid or invalid
+	private final StripedCounters counters = new StripedCounters(OTHER_ERROR_TYPES + 1);
+	private final WindowedCounters windows = new WindowedCounters(OTHER_ERROR_TYPES + 1, StatisticsWindow.BUCKETS, StatisticsWindow.bucketNanos());
+	private final ConcurrentMap<String, Integer> errorTypes = new ConcurrentHashMap<>();
+	private final AtomicInteger nextErrorType = new AtomicInteger(FIRST_ERROR_TYPE);
+
+	// Event kinds
+	private static final int VALID_ADD_REQUEST = 0;
+	private static final int INVALID_ADD_REQUEST = 1;
+	private static final int VALID_REQUEST = 2;
+
+	// The consumer parks up to this long while the queue is empty
+	private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+
+	// Distinguishes the statistics tags of different deployments
+	private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+	private final StatisticsEventRing events = new StatisticsEventRing(ServiceConfiguration.statisticsQueueSize());
+	// Serializes draining between the consumer and readers flushing the queue
+	private final Object drainLock = new Object();
+	private final StatisticsEventRing.EventHandler folder = this::fold;
+	private Thread consumer;
+
+	private final ErrorDetailStore errorDetails = new ErrorDetailStore(ServiceConfiguration.errorDetailsMaxSize(), ServiceConfiguration.errorFingerprintFrames(),
+			errorDetailsEviction());
+
+	@PostConstruct
+	void init() {
+		ThreadFactory threadFactory = managedThreadFactory != null ? managedThreadFactory : Executors.defaultThreadFactory();
+		consumer = threadFactory.newThread(this::consume);
+		consumer.setName("request-statistics");
+		events.setConsumer(consumer);
+		consumer.start();
+	}
+
+	@PreDestroy
+	void shutdown() {
+		if (consumer != null) {
+			consumer.interrupt();
+		}
+	}
 
 	/**
 	 * Records the outcome of an add request.
 	 *
-	 * @param isValid Indicates if the add request was valid.
-	 * @param e       The exception associated with an invalid request, if any.
+	 * @param isValid              Indicates if the add request was valid.
+	 * @param numberOfPersonsAdded The number of persons persisted by the request, also for an invalid request that failed after committing some of them.
+	 * @param e                    The exception associated with an invalid request, if any.
 	 */
 	public void recordAddRequest(boolean isValid, int numberOfPersonsAdded, Exception e) {
-		totalAddRequests.incrementAndGet();
-		if (isValid) {
-			totalValidRequests.incrementAndGet();
-			totalAddedPersons.addAndGet(numberOfPersonsAdded);
-			LOGGER.info("Valid add request recorded.");
-		} else {
-			totalInvalidAddRequests.incrementAndGet();
-			try {
-				String key = e.getClass().getSimpleName();
-				String errorMessage = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
-				String stackTrace = Arrays.toString(e.getStackTrace());
-
-				LOGGER.info(() -> "Recording invalid add request: " + key + " - " + errorMessage);
-				addOrUpdateErrorDetail(key, errorMessage, stackTrace);
-			} catch (Exception ex) {
-				LOGGER.log(Level.SEVERE, "Internal Server Error during extraction of error details", ex);
-			}
+		int kind = isValid ? VALID_ADD_REQUEST : INVALID_ADD_REQUEST;
+		if (!events.offer(kind, numberOfPersonsAdded, e)) {
+			count(kind, numberOfPersonsAdded, e);
 		}
 	}
 
@@ -58,8 +126,32 @@ public class RequestStatisticsService implements StatisticsStrategy {
 	 * Records all valid Requests.
 	 */
 	public void recordValidRequest() {
-		totalValidRequests.incrementAndGet();
-		LOGGER.info("Valid add request recorded.");
+		if (!events.offer(VALID_REQUEST, 0, null)) {
+			count(VALID_REQUEST, 0, null);
+		}
+	}
+
+	/**
+	 * Records a successful statistics request. It is counted like {@link #recordValidRequest()}, but does not change {@link #statisticsTag(StatisticsWindow)}, so polling the
+	 * statistics does not invalidate the tag the poller holds.
+	 */
+	public void recordStatisticsRequest() {
+		count(VALID_REQUEST, 0, null);
+	}
+
+	/**
+	 * Tag for revalidating the statistics. It changes with every recorded request except statistics requests, every change of the dataset statistics and, for a window, every
+	 * bucket the window advances by. Endpoint latencies, phases, parser pools and the persons cache are not covered; they are refreshed whenever the tag changes.
+	 *
+	 * @param window the sliding window reported as well, or null.
+	 * @return the opaque tag value.
+	 */
+	public String statisticsTag(StatisticsWindow window) {
+		StringBuilder tag = new StringBuilder(40).append(epoch).append('-').append(events.offered()).append('-').append(datasetStatistics.getRevision());
+		if (window != null) {
+			tag.append('-').append(window.getLabel()).append(windows.currentSlice(window.ordinal()));
+		}
+		return tag.toString();
 	}
 
 	/**
@@ -68,48 +160,208 @@ public class RequestStatisticsService implements StatisticsStrategy {
 	 * @return StatisticsEntity with the current statistics.
 	 */
 	public StatisticsEntity generateStatistics() {
+		return generateStatistics(false);
+	}
+
+	/**
+	 * Generates a {@link StatisticsEntity} containing statistics about add requests.
+	 *
+	 * @param intervalLatencies {@code true} to report the endpoint latencies since the previous interval report instead of since startup, and to start a new interval.
+	 * @return StatisticsEntity with the current statistics.
+	 */
+	public StatisticsEntity generateStatistics(boolean intervalLatencies) {
+		return generateStatistics(intervalLatencies, null);
+	}
+
+	/**
+	 * Generates a {@link StatisticsEntity} containing statistics about add requests.
+	 *
+	 * @param intervalLatencies {@code true} to report the endpoint latencies since the previous interval report instead of since startup, and to start a new interval.
+	 * @param window            the sliding window to additionally report the request counters for, or null.
+	 * @return StatisticsEntity with the current statistics.
+	 */
+	public StatisticsEntity generateStatistics(boolean intervalLatencies, StatisticsWindow window) {
+		flush();
 		StatisticsEntity statistics = new StatisticsEntity();
-		statistics.setTotalAddRequests(totalAddRequests.get());
-		statistics.setTotalInvalidAddRequests(totalInvalidAddRequests.get());
-		statistics.setTotalValidRequests(totalValidRequests.get());
-		statistics.setTotalAddedPersons(totalAddedPersons.get());
-
-		// Populate the detailedErrors list with ErrorDetail objects from errorDetailsMap
-		errorDetailsMap.forEach((errorType, errorDetailsList) -> {
-			// Optionally filter or transform errorDetailsList if needed
-			errorDetailsList.forEach(statistics::addDetailedError);
-		});
+		long[] snapshot = counters.snapshot();
+		statistics.setTotalAddRequests(snapshot[TOTAL_ADD_REQUESTS]);
+		statistics.setTotalInvalidAddRequests(snapshot[TOTAL_INVALID_ADD_REQUESTS]);
+		statistics.setTotalValidRequests(snapshot[TOTAL_VALID_REQUESTS]);
+		statistics.setTotalAddedPersons(snapshot[TOTAL_ADDED_PERSONS]);
+		statistics.setParserPools(parserResources.getPoolStatistics());
+		statistics.setLatencies(latencyRegistry.summarize(intervalLatencies));
+		statistics.setPhases(phaseStatistics.summarize());
+		statistics.setDataset(datasetStatistics.summarize());
+		statistics.setPersonsCache(personsCache.getStatistics());
+		if (window != null) {
+			statistics.setWindow(summarize(window));
+		}
+
+		// Stack traces are rendered here, not when the error is recorded
+		errorDetails.snapshot().forEach(statistics::addDetailedError);
+		statistics.setDroppedErrorDetails(errorDetails.getDropped());
 
 		LOGGER.info("Generating detailed error statistics.");
 		return statistics;
 	}
 
 	/**
-	 * Adds a new error detail or updates an existing one based on the error key, message, and stack trace.
-	 *
-	 * @param key          The error key, usually the exception class name.
-	 * @param errorMessage The error message.
-	 * @param stackTrace   The stack trace as a string.
-	 */
-	private void addOrUpdateErrorDetail(String key, String errorMessage, String stackTrace) {
-		errorDetailsMap.computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>()));
-		List<ErrorDetail> errorDetails = errorDetailsMap.get(key);
-
-		synchronized (errorDetails) {
-			boolean found = false;
-			for (ErrorDetail detail : errorDetails) {
-				if (detail.getErrorMessage().equals(errorMessage) && detail.getStackTrace().equals(stackTrace)) {
-					detail.incrementCount();
-					found = true;
-					LOGGER.info(() -> "Existing error detail incremented: " + key);
-					break;
-				}
+	 * @return the request counters within the window, as totals and rates.
+	 */
+	private WindowStatistics summarize(StatisticsWindow window) {
+		long[] snapshot = windows.snapshot(window.ordinal());
+		WindowStatistics statistics = new WindowStatistics(window.getLabel(), Math.round(windows.coveredNanos(window.ordinal()) / 1_000_000.0) / 1000.0);
+		statistics.addCounter("addRequests", snapshot[TOTAL_ADD_REQUESTS]);
+		statistics.addCounter("invalidAddRequests", snapshot[TOTAL_INVALID_ADD_REQUESTS]);
+		statistics.addCounter("validRequests", snapshot[TOTAL_VALID_REQUESTS]);
+		statistics.addCounter("addedPersons", snapshot[TOTAL_ADDED_PERSONS]);
+		errorTypeCounts(snapshot).forEach(statistics::addError);
+		return statistics;
+	}
+
+	/**
+	 * @return the counters since startup, indexed by {@link #TOTAL_ADD_REQUESTS} etc.; the invalid add requests per error type follow, see {@link #errorTypeCounts(long[])}.
+	 */
+	long[] counterSnapshot() {
+		flush();
+		return counters.snapshot();
+	}
+
+	/**
+	 * @return the number of recorded events not yet folded into the statistics.
+	 */
+	int eventQueueDepth() {
+		return events.depth();
+	}
+
+	int eventQueueCapacity() {
+		return events.capacity();
+	}
+
+	/**
+	 * @return the number of events that found the queue full; they are counted, but their error details and log lines are lost.
+	 */
+	long droppedEvents() {
+		return events.getRejected();
+	}
+
+	/**
+	 * @return the invalid add requests per error type of a counter snapshot, ordered by type; types without requests are left out.
+	 */
+	Map<String, Long> errorTypeCounts(long[] snapshot) {
+		Map<String, Long> counts = new TreeMap<>();
+		errorTypes.forEach((type, counter) -> {
+			if (snapshot[counter] > 0) {
+				counts.put(type, snapshot[counter]);
+			}
+		});
+		if (snapshot[OTHER_ERROR_TYPES] > 0) {
+			counts.put("Other", snapshot[OTHER_ERROR_TYPES]);
+		}
+		return counts;
+	}
+
+	/**
+	 * Folds all pending events into the statistics on the calling thread.
+	 */
+	private void flush() {
+		synchronized (drainLock) {
+			events.drain(folder);
+		}
+	}
+
+	private void consume() {
+		long idleNanos = 0;
+		while (!Thread.currentThread().isInterrupted()) {
+			int drained;
+			synchronized (drainLock) {
+				drained = events.drain(folder);
+			}
+			if (drained > 0) {
+				idleNanos = 0;
+			} else {
+				// Back off while idle; producers wake the consumer as the queue fills and readers flush it anyway
+				idleNanos = Math.min(MAX_IDLE_NANOS, Math.max(2 * idleNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+				LockSupport.parkNanos(idleNanos);
 			}
+		}
+		LOGGER.info(() -> "Request statistics consumer stopped with " + events.depth() + " pending events.");
+	}
+
+	/**
+	 * Applies an event drained from the queue: counts it, records the error detail and logs it.
+	 */
+	private void fold(int kind, int personsAdded, Exception e) {
+		count(kind, personsAdded, e);
+		if (kind == INVALID_ADD_REQUEST) {
+			try {
+				String key = e.getClass().getSimpleName();
+				String errorMessage = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
 
-			if (!found) {
-				errorDetails.add(new ErrorDetail(errorMessage, stackTrace));
-				LOGGER.info(() -> "New error detail added: " + key);
+				LOGGER.info(() -> "Recording invalid add request: " + key + " - " + errorMessage);
+				addOrUpdateErrorDetail(key, errorMessage, e.getStackTrace());
+			} catch (Exception ex) {
+				LOGGER.log(Level.SEVERE, "Internal Server Error during extraction of error details", ex);
 			}
+		} else {
+			LOGGER.info("Valid add request recorded.");
+		}
+	}
+
+	/**
+	 * Adds an event to the counters since startup and the sliding windows.
+	 */
+	private void count(int kind, int personsAdded, Exception e) {
+		if (kind == VALID_ADD_REQUEST) {
+			counters.add(TOTAL_ADD_REQUESTS, 1, TOTAL_VALID_REQUESTS, 1, TOTAL_ADDED_PERSONS, personsAdded);
+			windows.add(TOTAL_ADD_REQUESTS, 1, TOTAL_VALID_REQUESTS, 1, TOTAL_ADDED_PERSONS, personsAdded);
+		} else if (kind == INVALID_ADD_REQUEST) {
+			int errorType = errorType(e != null ? e.getClass().getSimpleName() : "Unknown");
+			// A failed request may still have added persons, e.g. the committed transactions of an ingest job
+			counters.add(TOTAL_ADD_REQUESTS, 1, TOTAL_INVALID_ADD_REQUESTS, 1, errorType, 1, TOTAL_ADDED_PERSONS, personsAdded);
+			windows.add(TOTAL_ADD_REQUESTS, 1, TOTAL_INVALID_ADD_REQUESTS, 1, errorType, 1, TOTAL_ADDED_PERSONS, personsAdded);
+		} else {
+			counters.increment(TOTAL_VALID_REQUESTS);
+			windows.increment(TOTAL_VALID_REQUESTS);
+		}
+	}
+
+	/**
+	 * @return the windowed counter of the error type, assigned on first use.
+	 */
+	private int errorType(String type) {
+		Integer counter = errorTypes.computeIfAbsent(type, key -> {
+			int next = nextErrorType.getAndIncrement();
+			return next < OTHER_ERROR_TYPES ? next : null;
+		});
+		return counter != null ? counter : OTHER_ERROR_TYPES;
+	}
+
+	/**
+	 * @return the configured eviction policy of the error details, {@link ErrorDetailStore.EvictionPolicy#LFU} if the setting is not a known policy.
+	 */
+	private static ErrorDetailStore.EvictionPolicy errorDetailsEviction() {
+		String policy = ServiceConfiguration.errorDetailsEviction();
+		try {
+			return ErrorDetailStore.EvictionPolicy.valueOf(policy);
+		} catch (IllegalArgumentException e) {
+			LOGGER.warning(() -> "Unknown error detail eviction policy " + policy + ", using LFU");
+			return ErrorDetailStore.EvictionPolicy.LFU;
+		}
+	}
+
+	/**
+	 * Adds a new error detail or updates an existing one based on the error key, message, and top stack frames.
+	 *
+	 * @param key          The error key, usually the exception class name.
+	 * @param errorMessage The error message.
+	 * @param stackTrace   The stack frames of the exception.
+	 */
+	private void addOrUpdateErrorDetail(String key, String errorMessage, StackTraceElement[] stackTrace) {
+		if (errorDetails.record(key, errorMessage, stackTrace)) {
+			LOGGER.info(() -> "Existing error detail incremented: " + key);
+		} else {
+			LOGGER.info(() -> "New error detail added: " + key);
 		}
 	}
 }
@@ -0,0 +1,160 @@
+package ch.held.personmanagementservice.statistics.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free queue of statistics events from many request threads to one consumer. The events are pre-allocated slots that are overwritten in place, so publishing
+ * allocates nothing.
+ * <p>
+ * Each slot carries a sequence number (bounded MPSC queue after D. Vyukov): a producer claims the next position with one CAS and publishes its slot by advancing the sequence; the
+ * consumer frees it by advancing the sequence by the capacity. A full queue rejects the event instead of blocking the request thread. The producer of every quarter of the
+ * capacity and a rejected producer wake the consumer, so it may sleep while the queue fills up.
+ * <p>
+ * {@link #drain(EventHandler)} must not be called concurrently; callers serialize it.
+ */
+final class StatisticsEventRing {
+
+	/**
+	 * Folds a published event into the aggregates. The error reference is cleared after the call.
+	 */
+	interface EventHandler {
+		void handle(int kind, int personsAdded, Exception error);
+	}
+
+	private final int mask;
+	private final AtomicLongArray sequences;
+	private final int[] kinds;
+	private final int[] personsAdded;
+	private final Exception[] errors;
+
+	private final AtomicLong tail = new AtomicLong();
+	// Only written by the draining thread
+	private volatile long head;
+	private final LongAdder rejected = new LongAdder();
+	private volatile Thread consumer;
+
+	/**
+	 * @param capacity the number of slots, rounded up to a power of two.
+	 */
+	StatisticsEventRing(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+		this.mask = size - 1;
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+		this.kinds = new int[size];
+		this.personsAdded = new int[size];
+		this.errors = new Exception[size];
+	}
+
+	/**
+	 * @param consumer the thread to wake when the queue fills up, or null.
+	 */
+	void setConsumer(Thread consumer) {
+		this.consumer = consumer;
+	}
+
+	/**
+	 * Publishes an event.
+	 *
+	 * @return false if the queue is full and the event was not queued.
+	 */
+	boolean offer(int kind, int persons, Exception error) {
+		long position = tail.get();
+		while (true) {
+			int slot = (int) position & mask;
+			long sequence = sequences.getAcquire(slot);
+			if (sequence == position) {
+				if (tail.compareAndSet(position, position + 1)) {
+					kinds[slot] = kind;
+					personsAdded[slot] = persons;
+					errors[slot] = error;
+					sequences.setRelease(slot, position + 1);
+					if ((position & (mask >> 2)) == 0) {
+						wakeConsumer();
+					}
+					return true;
+				}
+				position = tail.get();
+			} else if (sequence < position) {
+				rejected.increment();
+				wakeConsumer();
+				return false;
+			} else {
+				position = tail.get();
+			}
+		}
+	}
+
+	private void wakeConsumer() {
+		Thread thread = consumer;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	/**
+	 * Hands all events published so far to the handler, in the order their positions were claimed. Events claimed before the call but not yet published are waited for, so every
+	 * {@link #offer(int, int, Exception)} that returned before the call is drained by it.
+	 *
+	 * @return the number of drained events.
+	 */
+	int drain(EventHandler handler) {
+		long end = tail.get();
+		long position = head;
+		int drained = 0;
+		int spins = 0;
+		while (position < end) {
+			int slot = (int) position & mask;
+			if (sequences.getAcquire(slot) != position + 1) {
+				// Claimed, the producer is still writing the slot or was descheduled while doing so
+				if (++spins % 64 == 0) {
+					Thread.yield();
+				} else {
+					Thread.onSpinWait();
+				}
+				continue;
+			}
+			Exception error = errors[slot];
+			errors[slot] = null;
+			try {
+				handler.handle(kinds[slot], personsAdded[slot], error);
+			} finally {
+				sequences.setRelease(slot, position + mask + 1);
+				position++;
+				head = position;
+			}
+			drained++;
+		}
+		return drained;
+	}
+
+	/**
+	 * @return the number of events offered so far, queued or rejected.
+	 */
+	long offered() {
+		return tail.get() + rejected.sum();
+	}
+
+	/**
+	 * @return the number of published or claimed events not yet drained.
+	 */
+	int depth() {
+		return (int) Math.max(0, tail.get() - head);
+	}
+
+	int capacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * @return the number of events rejected because the queue was full.
+	 */
+	long getRejected() {
+		return rejected.sum();
+	}
+}
@@ -0,0 +1,55 @@
+package ch.held.personmanagementservice.statistics.impl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The sliding windows the request counters are kept for, each as {@value #BUCKETS} buckets, in ascending order of their bucket length as {@link WindowedCounters} expects.
+ */
+public enum StatisticsWindow {
+
+	ONE_MINUTE("1m", TimeUnit.SECONDS.toNanos(1)),
+
+	FIVE_MINUTES("5m", TimeUnit.SECONDS.toNanos(5)),
+
+	ONE_HOUR("1h", TimeUnit.MINUTES.toNanos(1));
+
+	static final int BUCKETS = 60;
+
+	private final String label;
+	private final long bucketNanos;
+
+	StatisticsWindow(String label, long bucketNanos) {
+		this.label = label;
+		this.bucketNanos = bucketNanos;
+	}
+
+	/**
+	 * @return the value of the {@code window} query parameter, e.g. {@code 5m}.
+	 */
+	public String getLabel() {
+		return label;
+	}
+
+	static long[] bucketNanos() {
+		StatisticsWindow[] windows = values();
+		long[] bucketNanos = new long[windows.length];
+		for (int i = 0; i < windows.length; i++) {
+			bucketNanos[i] = windows[i].bucketNanos;
+		}
+		return bucketNanos;
+	}
+
+	/**
+	 * @param label e.g. {@code 5m}.
+	 * @return the window with this label.
+	 * @throws IllegalArgumentException if there is none.
+	 */
+	public static StatisticsWindow fromLabel(String label) {
+		for (StatisticsWindow window : values()) {
+			if (window.label.equals(label)) {
+				return window;
+			}
+		}
+		throw new IllegalArgumentException("window must be one of 1m, 5m and 1h");
+	}
+}
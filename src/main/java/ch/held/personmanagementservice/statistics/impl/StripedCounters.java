@@ -0,0 +1,145 @@
+package ch.held.personmanagementservice.statistics.impl;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A fixed set of long counters that are updated together, striped over padded cells like {@link java.util.concurrent.atomic.LongAdder} so concurrent writers rarely share a cache
+ * line.
+ * <p>
+ * Each stripe carries a sequence number (seqlock). An update that touches several counters makes the sequence odd while it writes, so {@link #snapshot()} can detect and retry
+ * torn reads without ever blocking writers. Every update is applied to exactly one stripe; a snapshot is therefore consistent for each update, e.g. a counter that is always
+ * incremented together with another one never runs ahead of it.
+ */
+final class StripedCounters {
+
+	private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(long[].class);
+
+	/** 16 longs = 128 bytes, keeps stripes apart even with adjacent cache line prefetching. */
+	private static final int PADDING = 16;
+	private static final int MAX_ATTEMPTS = 64;
+
+	private final int counterCount;
+	private final int stripeMask;
+	private final int stripeStride;
+	private final long[] cells;
+
+	/**
+	 * @param counterCount number of counters, addressed by index 0 to counterCount - 1.
+	 */
+	StripedCounters(int counterCount) {
+		this.counterCount = counterCount;
+		// next power of two of twice the number of processors
+		int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+		this.stripeMask = stripes - 1;
+		// slot 0 of a stripe is its sequence number, followed by the counters
+		this.stripeStride = ((counterCount + 1 + PADDING - 1) / PADDING) * PADDING;
+		this.cells = new long[PADDING + stripes * stripeStride];
+	}
+
+	void increment(int counter) {
+		int base = acquire();
+		addToCell(base, counter, 1);
+		release(base);
+	}
+
+	void add(int counter1, long delta1, int counter2, long delta2) {
+		int base = acquire();
+		addToCell(base, counter1, delta1);
+		addToCell(base, counter2, delta2);
+		release(base);
+	}
+
+	void add(int counter1, long delta1, int counter2, long delta2, int counter3, long delta3) {
+		int base = acquire();
+		addToCell(base, counter1, delta1);
+		addToCell(base, counter2, delta2);
+		addToCell(base, counter3, delta3);
+		release(base);
+	}
+
+	void add(int counter1, long delta1, int counter2, long delta2, int counter3, long delta3, int counter4, long delta4) {
+		int base = acquire();
+		addToCell(base, counter1, delta1);
+		addToCell(base, counter2, delta2);
+		addToCell(base, counter3, delta3);
+		addToCell(base, counter4, delta4);
+		release(base);
+	}
+
+	/**
+	 * Sums up all stripes. Stripes with an update in progress are re-read until they are stable.
+	 *
+	 * @return the counter values, indexed like the counters.
+	 */
+	long[] snapshot() {
+		long[] totals = new long[counterCount];
+		long[] stripe = new long[counterCount];
+		for (int s = 0; s <= stripeMask; s++) {
+			int base = PADDING + s * stripeStride;
+			int attempts = 0;
+			while (true) {
+				long before = (long) CELLS.getAcquire(cells, base);
+				if ((before & 1) == 0) {
+					for (int c = 0; c < counterCount; c++) {
+						stripe[c] = (long) CELLS.getOpaque(cells, base + 1 + c);
+					}
+					VarHandle.loadLoadFence();
+					if ((long) CELLS.getAcquire(cells, base) == before) {
+						break;
+					}
+				}
+				backOff(++attempts);
+			}
+			for (int c = 0; c < counterCount; c++) {
+				totals[c] += stripe[c];
+			}
+		}
+		return totals;
+	}
+
+	/**
+	 * Claims a stripe for the current thread by making its sequence odd. A busy stripe is skipped in favour of the next one, so writers only spin when all stripes are busy.
+	 */
+	private int acquire() {
+		int stripe = probe();
+		int attempts = 0;
+		while (true) {
+			int base = PADDING + (stripe & stripeMask) * stripeStride;
+			long sequence = (long) CELLS.getVolatile(cells, base);
+			if ((sequence & 1) == 0 && CELLS.compareAndSet(cells, base, sequence, sequence + 1)) {
+				return base;
+			}
+			stripe++;
+			if (++attempts > stripeMask) {
+				backOff(attempts);
+			}
+		}
+	}
+
+	/**
+	 * Spins briefly, then yields so a writer that was descheduled in the middle of an update can finish it.
+	 */
+	private static void backOff(int attempts) {
+		if (attempts % MAX_ATTEMPTS == 0) {
+			Thread.yield();
+		} else {
+			Thread.onSpinWait();
+		}
+	}
+
+	private void release(int base) {
+		CELLS.setRelease(cells, base, (long) CELLS.getOpaque(cells, base) + 1);
+	}
+
+	private void addToCell(int base, int counter, long delta) {
+		int index = base + 1 + counter;
+		CELLS.setOpaque(cells, index, (long) CELLS.getOpaque(cells, index) + delta);
+	}
+
+	private static int probe() {
+		long id = Thread.currentThread().getId();
+		int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,230 @@
+package ch.held.personmanagementservice.statistics.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * A fixed set of long counters over sliding time windows of different lengths. Each window is a ring of buckets, each bucket covers a fixed slice of time and holds one value per
+ * counter; memory is fixed and reading a window sums up its buckets.
+ * <p>
+ * Recording only adds to the bucket of the current slice in the finest ring, so its cost does not grow with the number of windows. When the ring comes around to a bucket again,
+ * the recorder that resets it first moves its values into the coarser rings; until then a coarser window includes them from the finest ring.
+ * <p>
+ * Recording is lock-free. The first writer of a new slice marks its bucket as being reset while it clears it; writers of the same slice wait for the reset instead of adding to
+ * values that are about to be cleared. An increment racing with the turnover can be counted in the neighbouring slice, and reads are not atomic across buckets.
+ */
+final class WindowedCounters {
+
+	// Marks a bucket while it is cleared for a new slice
+	private static final long RESETTING = -1;
+
+	private final int counterCount;
+	private final int bucketCount;
+	private final LongSupplier clock;
+	private final long origin;
+	private final Ring[] rings;
+
+	/**
+	 * @param counterCount number of counters, addressed by index 0 to counterCount - 1.
+	 * @param bucketCount  number of buckets per window, a window spans {@code bucketCount} times its bucket length.
+	 * @param bucketNanos  the bucket length per window in ascending order, each a multiple of the first.
+	 */
+	WindowedCounters(int counterCount, int bucketCount, long[] bucketNanos) {
+		this(counterCount, bucketCount, bucketNanos, System::nanoTime);
+	}
+
+	WindowedCounters(int counterCount, int bucketCount, long[] bucketNanos, LongSupplier clock) {
+		this.counterCount = counterCount;
+		this.bucketCount = bucketCount;
+		this.clock = clock;
+		this.origin = clock.getAsLong();
+		this.rings = new Ring[bucketNanos.length];
+		for (int i = 0; i < bucketNanos.length; i++) {
+			rings[i] = new Ring(bucketNanos[i]);
+		}
+	}
+
+	void increment(int counter) {
+		Ring finest = rings[0];
+		finest.values.getAndIncrement(currentBucket() + counter);
+	}
+
+	void add(int counter1, long delta1, int counter2, long delta2) {
+		AtomicLongArray values = rings[0].values;
+		int base = currentBucket();
+		values.getAndAdd(base + counter1, delta1);
+		values.getAndAdd(base + counter2, delta2);
+	}
+
+	void add(int counter1, long delta1, int counter2, long delta2, int counter3, long delta3) {
+		AtomicLongArray values = rings[0].values;
+		int base = currentBucket();
+		values.getAndAdd(base + counter1, delta1);
+		values.getAndAdd(base + counter2, delta2);
+		values.getAndAdd(base + counter3, delta3);
+	}
+
+	void add(int counter1, long delta1, int counter2, long delta2, int counter3, long delta3, int counter4, long delta4) {
+		AtomicLongArray values = rings[0].values;
+		int base = currentBucket();
+		values.getAndAdd(base + counter1, delta1);
+		values.getAndAdd(base + counter2, delta2);
+		values.getAndAdd(base + counter3, delta3);
+		values.getAndAdd(base + counter4, delta4);
+	}
+
+	/**
+	 * Sums up the current slice of a window and the {@code bucketCount - 1} slices before it, including values not yet moved out of the finest ring. Buckets being reset are
+	 * skipped.
+	 *
+	 * @param window the index of the window, like the bucket lengths passed to the constructor.
+	 * @return the counter values within the window, indexed like the counters.
+	 */
+	long[] snapshot(int window) {
+		long[] totals = new long[counterCount];
+		Ring ring = rings[window];
+		long current = ring.slice(clock.getAsLong() - origin);
+		Ring finest = rings[0];
+		for (int bucket = 0; bucket < bucketCount; bucket++) {
+			long slice = finest.slices.get(bucket);
+			if (slice > 0 && isWithin(ring.sliceOfFinest(slice), current)) {
+				finest.addTo(bucket, totals);
+			}
+			if (window > 0) {
+				slice = ring.slices.get(bucket);
+				if (slice > 0 && isWithin(slice, current)) {
+					ring.addTo(bucket, totals);
+				}
+			}
+		}
+		return totals;
+	}
+
+	/**
+	 * @return the time in nanoseconds a {@link #snapshot(int)} of the window covers: the full window, minus the part of the current slice still to come, or less shortly after
+	 *         startup.
+	 */
+	long coveredNanos(int window) {
+		long bucketNanos = rings[window].bucketNanos;
+		long elapsed = clock.getAsLong() - origin;
+		long currentSliceStart = elapsed / bucketNanos * bucketNanos;
+		return Math.min(elapsed, elapsed - currentSliceStart + (bucketCount - 1) * bucketNanos);
+	}
+
+	/**
+	 * @return the number of the current slice of a window; the window only changes without new values when it advances.
+	 */
+	long currentSlice(int window) {
+		return rings[window].slice(clock.getAsLong() - origin);
+	}
+
+	private boolean isWithin(long slice, long current) {
+		return slice > current - bucketCount && slice <= current;
+	}
+
+	/**
+	 * @return the index of the first value of the bucket of the current slice in the finest ring.
+	 */
+	private int currentBucket() {
+		Ring finest = rings[0];
+		long slice = finest.slice(clock.getAsLong() - origin);
+		while (true) {
+			int base = finest.claim(slice);
+			if (base >= 0) {
+				return base;
+			}
+			// A writer that was descheduled past the end of its slice adds to the newer one
+			long newer = finest.slices.get((int) (slice % bucketCount));
+			if (newer != RESETTING) {
+				slice = newer;
+			}
+		}
+	}
+
+	/**
+	 * The buckets of one window.
+	 */
+	private final class Ring {
+
+		private final long bucketNanos;
+		// Slice number per bucket, 0 for a bucket never used
+		private final AtomicLongArray slices;
+		private final AtomicLongArray values;
+
+		Ring(long bucketNanos) {
+			this.bucketNanos = bucketNanos;
+			this.slices = new AtomicLongArray(bucketCount);
+			this.values = new AtomicLongArray(bucketCount * counterCount);
+		}
+
+		/**
+		 * @return the slice of the time since the origin, starting at 1.
+		 */
+		long slice(long elapsedNanos) {
+			return elapsedNanos / bucketNanos + 1;
+		}
+
+		/**
+		 * @return the slice of this ring containing a slice of the finest ring.
+		 */
+		long sliceOfFinest(long finestSlice) {
+			return slice((finestSlice - 1) * rings[0].bucketNanos);
+		}
+
+		/**
+		 * Returns the bucket of a slice, resetting it first if it holds an older slice. The values of a reset bucket of the finest ring are moved to the coarser rings.
+		 *
+		 * @return the index of the first value of the bucket, or -1 if it already holds a newer slice.
+		 */
+		int claim(long slice) {
+			int bucket = (int) (slice % bucketCount);
+			int base = bucket * counterCount;
+			while (true) {
+				long held = slices.get(bucket);
+				if (held == slice) {
+					return base;
+				}
+				if (held > slice) {
+					return -1;
+				}
+				if (held == RESETTING) {
+					Thread.onSpinWait();
+				} else if (slices.compareAndSet(bucket, held, RESETTING)) {
+					if (this == rings[0] && held > 0) {
+						rollUp(held, base);
+					}
+					for (int c = 0; c < counterCount; c++) {
+						values.set(base + c, 0);
+					}
+					slices.set(bucket, slice);
+					return base;
+				}
+			}
+		}
+
+		/**
+		 * Adds the values of a bucket of the finest ring to the bucket of the same time in every coarser ring, unless that one already holds a slice beyond its window.
+		 */
+		private void rollUp(long slice, int base) {
+			for (int r = 1; r < rings.length; r++) {
+				Ring coarser = rings[r];
+				int target = coarser.claim(coarser.sliceOfFinest(slice));
+				if (target >= 0) {
+					for (int c = 0; c < counterCount; c++) {
+						long value = values.get(base + c);
+						if (value != 0) {
+							coarser.values.getAndAdd(target + c, value);
+						}
+					}
+				}
+			}
+		}
+
+		void addTo(int bucket, long[] totals) {
+			int base = bucket * counterCount;
+			for (int c = 0; c < counterCount; c++) {
+				totals[c] += values.get(base + c);
+			}
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package ch.held.personmanagementservice.util;
+
+/**
+ * Evaluates {@code If-None-Match} headers without going through the JAX-RS runtime, so a revalidated request is answered before any entity is built.
+ */
+public final class EntityTags {
+
+	private EntityTags() {
+		// static access only
+	}
+
+	/**
+	 * Compares an {@code If-None-Match} header with the current tag using the weak comparison of RFC 9110, i.e. {@code W/"a"} matches {@code "a"}.
+	 *
+	 * @param ifNoneMatch the header value, a list of quoted tags or {@code *}; may be null.
+	 * @param tag         the opaque value of the current tag, without quotes.
+	 * @return true if the header lists the tag or is {@code *}.
+	 */
+	public static boolean matches(String ifNoneMatch, String tag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		int length = ifNoneMatch.length();
+		int position = 0;
+		while (position < length) {
+			char c = ifNoneMatch.charAt(position);
+			if (c == ' ' || c == '\t' || c == ',') {
+				position++;
+			} else if (c == '*') {
+				return true;
+			} else {
+				if (ifNoneMatch.startsWith("W/", position)) {
+					position += 2;
+				}
+				if (position >= length || ifNoneMatch.charAt(position) != '"') {
+					// Malformed, ignore the header
+					return false;
+				}
+				int end = ifNoneMatch.indexOf('"', position + 1);
+				if (end < 0) {
+					return false;
+				}
+				if (end - position - 1 == tag.length() && ifNoneMatch.startsWith(tag, position + 1)) {
+					return true;
+				}
+				position = end + 1;
+			}
+		}
+		return false;
+	}
+}
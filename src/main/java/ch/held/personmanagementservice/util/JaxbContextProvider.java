@@ -1,5 +1,11 @@
 package ch.held.personmanagementservice.util;
 
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
 import jakarta.ejb.ConcurrencyManagement;
 import jakarta.ejb.ConcurrencyManagementType;
 import jakarta.ejb.Lock;
@@ -9,28 +15,32 @@ import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
 
 /**
- * A singleton class that provides JAXBContext instances for specified classes. This class ensures that JAXBContext is initialized only once for performance optimization.
+ * A singleton class that provides JAXBContext instances for specified classes. This class ensures that a JAXBContext is initialized only once per set of bound classes for
+ * performance optimization.
  */
 @Singleton
 @ConcurrencyManagement(ConcurrencyManagementType.CONTAINER)
 public class JaxbContextProvider {
 
-	private volatile JAXBContext jaxbContext = null;
+	private final ConcurrentMap<Set<Class<?>>, JAXBContext> jaxbContexts = new ConcurrentHashMap<>();
 
 	/**
-	 * Provides a singleton instance of JAXBContext for the specified classes. This method ensures that JAXBContext is initialized only once to improve performance.
+	 * Provides a cached instance of JAXBContext for the specified classes. The cache is keyed by the set of classes, so the order of the arguments does not matter.
 	 *
 	 * @param classesToBeBound the classes to be bound to the JAXBContext.
 	 * @return an instance of JAXBContext for the specified classes.
 	 * @throws JAXBException if an error occurs during the initialization of JAXBContext.
 	 */
 	@Lock(LockType.READ)
-	public JAXBContext getJaxbContext(Class... classesToBeBound) throws JAXBException {
+	public JAXBContext getJaxbContext(Class<?>... classesToBeBound) throws JAXBException {
+		Set<Class<?>> key = Arrays.stream(classesToBeBound).collect(Collectors.toUnmodifiableSet());
+		JAXBContext jaxbContext = jaxbContexts.get(key);
 		if (jaxbContext == null) {
-			synchronized (this) {
-				if (jaxbContext == null) { // Double-check locking pattern
-					jaxbContext = JAXBContext.newInstance(classesToBeBound);
-				}
+			// Creating a context is expensive but idempotent, a concurrent duplicate is simply dropped
+			JAXBContext created = JAXBContext.newInstance(classesToBeBound);
+			jaxbContext = jaxbContexts.putIfAbsent(key, created);
+			if (jaxbContext == null) {
+				jaxbContext = created;
 			}
 		}
 		return jaxbContext;
@@ -0,0 +1,79 @@
+package ch.held.personmanagementservice.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import ch.held.personmanagementservice.model.PoolStatistics;
+import jakarta.xml.bind.JAXBException;
+
+/**
+ * Bounded, thread-safe pool for JAXB objects that are expensive to create but not thread-safe, such as {@link jakarta.xml.bind.Unmarshaller} and
+ * {@link jakarta.xml.bind.Marshaller}. Borrowing never blocks: if the pool is empty a new instance is created, and instances returned to a full pool are discarded.
+ *
+ * @param <T> the pooled type.
+ */
+public class JaxbPool<T> {
+
+	/**
+	 * Creates new pool instances.
+	 */
+	@FunctionalInterface
+	public interface Factory<T> {
+		T create() throws JAXBException;
+	}
+
+	private final String name;
+	private final Factory<T> factory;
+	private final int capacity;
+	private final Queue<T> idle = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger idleCount = new AtomicInteger();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder discarded = new LongAdder();
+
+	public JaxbPool(String name, int capacity, Factory<T> factory) {
+		this.name = name;
+		this.capacity = capacity;
+		this.factory = factory;
+	}
+
+	/**
+	 * Takes an idle instance from the pool or creates a new one. The caller must hand it back with {@link #release(Object)}, typically in a finally block.
+	 *
+	 * @return an instance for exclusive use by the caller.
+	 * @throws JAXBException if a new instance cannot be created.
+	 */
+	public T borrow() throws JAXBException {
+		T instance = idle.poll();
+		if (instance != null) {
+			idleCount.decrementAndGet();
+			hits.increment();
+			return instance;
+		}
+		misses.increment();
+		return factory.create();
+	}
+
+	/**
+	 * Returns an instance to the pool.
+	 *
+	 * @param instance the borrowed instance, may be null.
+	 */
+	public void release(T instance) {
+		if (instance == null) {
+			return;
+		}
+		if (idleCount.incrementAndGet() <= capacity) {
+			idle.offer(instance);
+		} else {
+			idleCount.decrementAndGet();
+			discarded.increment();
+		}
+	}
+
+	public PoolStatistics getStatistics() {
+		return new PoolStatistics(name, hits.sum(), misses.sum(), discarded.sum(), idleCount.get());
+	}
+}
@@ -0,0 +1,80 @@
+package ch.held.personmanagementservice.util;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * The compact binary persons format, for bulk import and export. Integers are unsigned LEB128 varints (7 bits per byte, least significant group first).
+ *
+ * <pre>
+ * document = magic version nextCursor record* end
+ * magic    = 'P' 'R' 'S'
+ * version  = 0x01
+ * nextCursor = varint              ; the after value of the next page, 0 if there is none
+ * record   = varint(length) id age gender nameLength name ; length counts the bytes after it
+ * id       = varint                ; 0 if the person has none, ignored on import
+ * age      = varint
+ * gender   = 'f' | 'm'
+ * name     = nameLength bytes of UTF-8
+ * end      = 0x00                  ; a record length of 0 ends the document
+ * </pre>
+ *
+ * The end marker tells a complete document from a truncated one. Records are at most {@link #MAX_RECORD_LENGTH} bytes long.
+ */
+public final class PersonBinaryFormat {
+
+	/**
+	 * The media type of the format.
+	 */
+	public static final String MEDIA_TYPE = "application/vnd.personmanagement.persons";
+
+	public static final byte[] MAGIC = { 'P', 'R', 'S' };
+
+	public static final byte VERSION = 1;
+
+	/**
+	 * Upper bound of the record length; it bounds the buffer a reader needs and the damage a corrupt length can do.
+	 */
+	public static final int MAX_RECORD_LENGTH = 16 * 1024;
+
+	private PersonBinaryFormat() {
+		// static access only
+	}
+
+	/**
+	 * @return the number of bytes of the varint encoding of a non-negative value.
+	 */
+	public static int varintSize(long value) {
+		// 1 byte per started group of 7 bits, at least one
+		return Math.max(1, (64 - Long.numberOfLeadingZeros(value) + 6) / 7);
+	}
+
+	/**
+	 * Writes a non-negative value as varint, the buffer must have room for {@link #varintSize(long)} bytes.
+	 */
+	public static void putVarint(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * Reads a varint of at most 63 bits.
+	 *
+	 * @return the value, or -1 if the varint is longer than 9 bytes and thus out of range.
+	 * @throws BufferUnderflowException if the buffer ends within the varint.
+	 */
+	public static long getVarint(ByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0; shift < 63; shift += 7) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		return -1;
+	}
+}
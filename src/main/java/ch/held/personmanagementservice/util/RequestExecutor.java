@@ -0,0 +1,121 @@
+package ch.held.personmanagementservice.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import ch.held.personmanagementservice.statistics.impl.PhaseTimer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Executes blocking request handlers off the container worker threads, on a bounded pool of managed platform threads that rejects requests with 503 when its queue is full. With
+ * {@link ServiceConfiguration#asyncVirtualThreads()} on Java 21 and later, each request gets an unmanaged virtual thread instead.
+ * <p>
+ * A request that exceeds {@link ServiceConfiguration#asyncTimeoutMillis()} is answered with 503 and its thread is interrupted; long running service operations check the interrupt
+ * and roll back. With {@link ServiceConfiguration#asyncEnabled()} off, handlers run directly on the calling thread.
+ */
+@ApplicationScoped
+public class RequestExecutor {
+
+	private static final Logger LOGGER = Logger.getLogger(RequestExecutor.class.getName());
+
+	@Resource
+	private ManagedThreadFactory managedThreadFactory;
+
+	private ExecutorService executor;
+
+	@PostConstruct
+	void init() {
+		if (ServiceConfiguration.asyncVirtualThreads()) {
+			executor = newVirtualThreadExecutor();
+		}
+		if (executor == null) {
+			ThreadFactory threadFactory = managedThreadFactory != null ? managedThreadFactory : Executors.defaultThreadFactory();
+			int poolSize = ServiceConfiguration.asyncPoolSize();
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(ServiceConfiguration.asyncQueueSize()), threadFactory);
+			pool.allowCoreThreadTimeOut(true);
+			executor = pool;
+			LOGGER.info(() -> "Request executor uses " + poolSize + " platform threads.");
+		}
+	}
+
+	@PreDestroy
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Runs the handler and resumes the suspended response with its result.
+	 *
+	 * @param asyncResponse the suspended response of the request.
+	 * @param handler       the blocking request handler.
+	 */
+	public void execute(AsyncResponse asyncResponse, Supplier<Response> handler) {
+		if (!ServiceConfiguration.asyncEnabled()) {
+			run(asyncResponse, handler);
+			return;
+		}
+		PhaseTimer timer = PhaseTimer.detach();
+		FutureTask<Void> task = new FutureTask<>(() -> {
+			PhaseTimer.bind(timer);
+			try {
+				run(asyncResponse, handler);
+			} finally {
+				PhaseTimer.unbind();
+			}
+		}, null);
+		// Registered before the task is submitted, a fast task may resume the response before this method returns
+		asyncResponse.setTimeoutHandler(response -> {
+			task.cancel(true);
+			LOGGER.warning("Request timed out and was cancelled.");
+			response.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE).entity("Request timed out").build());
+		});
+		asyncResponse.setTimeout(ServiceConfiguration.asyncTimeoutMillis(), TimeUnit.MILLISECONDS);
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			LOGGER.warning("Request rejected, all request threads are busy.");
+			asyncResponse.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, 1).entity("Too many concurrent requests").build());
+		}
+	}
+
+	private static void run(AsyncResponse asyncResponse, Supplier<Response> handler) {
+		if (asyncResponse.isDone()) {
+			// timed out while waiting for a thread
+			return;
+		}
+		try {
+			asyncResponse.resume(handler.get());
+		} catch (RuntimeException e) {
+			asyncResponse.resume(e);
+		}
+	}
+
+	/**
+	 * Not created by the {@link ManagedThreadFactory}: the container does not manage or propagate its context to these threads.
+	 */
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			ExecutorService virtualThreads = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			LOGGER.info("Request executor uses virtual threads.");
+			return virtualThreads;
+		} catch (ReflectiveOperationException e) {
+			LOGGER.info("Virtual threads are not available, falling back to platform threads.");
+			return null;
+		}
+	}
+}
@@ -0,0 +1,209 @@
+package ch.held.personmanagementservice.util;
+
+/**
+ * Central access to the tunable settings of the service. Every value can be overridden with a system property (e.g. {@code -Dpersonmanagement.bulk.chunkSize=100}) on the server.
+ */
+public final class ServiceConfiguration {
+
+	private static final String PREFIX = "personmanagement.";
+
+	private ServiceConfiguration() {
+		// static access only
+	}
+
+	/**
+	 * Number of persons persisted before the persistence context is flushed and cleared during bulk inserts. Should match {@code hibernate.jdbc.batch_size} in persistence.xml.
+	 *
+	 * @return the bulk insert chunk size, at least 1.
+	 */
+	public static int bulkChunkSize() {
+		return positiveInt("bulk.chunkSize", 50);
+	}
+
+	/**
+	 * Maximum number of idle unmarshallers and marshallers kept per pool.
+	 *
+	 * @return the parser pool size, at least 1.
+	 */
+	public static int parserPoolSize() {
+		return positiveInt("parser.poolSize", 2 * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Page size used for keyset pagination when the client does not pass a limit.
+	 *
+	 * @return the default page size, at least 1.
+	 */
+	public static int defaultPageSize() {
+		return positiveInt("page.defaultSize", 100);
+	}
+
+	/**
+	 * Upper bound for the limit a client may request for one page.
+	 *
+	 * @return the maximum page size, at least 1.
+	 */
+	public static int maxPageSize() {
+		return positiveInt("page.maxSize", 1000);
+	}
+
+	/**
+	 * JDBC fetch size used when streaming persons, also the number of rows after which the persistence context is cleared.
+	 *
+	 * @return the streaming fetch size, at least 1.
+	 */
+	public static int streamFetchSize() {
+		return positiveInt("stream.fetchSize", 500);
+	}
+
+	/**
+	 * Maximum size of the encoded persons document kept in memory for {@code GET /persons}; larger documents are streamed from the database on every request.
+	 *
+	 * @return the document cache limit in bytes, at least 1.
+	 */
+	public static int personsCacheMaxBytes() {
+		return positiveInt("personsCache.maxBytes", 64 * 1024 * 1024);
+	}
+
+	/**
+	 * How long a coalesced read of a persons page or the statistics is shared with requests arriving after it, off by default: only requests arriving while the read runs share
+	 * its result.
+	 *
+	 * @return the freshness window in milliseconds, at least 0.
+	 */
+	public static int coalescingFreshMillis() {
+		return Math.max(0, Integer.getInteger(PREFIX + "coalescing.freshMillis", 0));
+	}
+
+	/**
+	 * Maximum number of distinct error details kept for the statistics.
+	 *
+	 * @return the error detail capacity, at least 1.
+	 */
+	public static int errorDetailsMaxSize() {
+		return positiveInt("errors.maxDetails", 256);
+	}
+
+	/**
+	 * Number of top stack frames that, together with exception type and message, identify an error detail.
+	 *
+	 * @return the number of fingerprinted frames, at least 1.
+	 */
+	public static int errorFingerprintFrames() {
+		return positiveInt("errors.fingerprintFrames", 8);
+	}
+
+	/**
+	 * Eviction policy of the error detail store, {@code LFU} (default) or {@code LRU}. Other values fall back to {@code LFU} with a warning.
+	 *
+	 * @return the configured policy name in upper case, not checked against the known policies.
+	 */
+	public static String errorDetailsEviction() {
+		return System.getProperty(PREFIX + "errors.eviction", "LFU").toUpperCase(java.util.Locale.ROOT);
+	}
+
+	/**
+	 * Number of recorded request outcomes that may wait to be folded into the statistics, rounded up to a power of two. Further outcomes are still counted, but their error details
+	 * and log lines are dropped.
+	 *
+	 * @return the statistics event queue size, at least 1.
+	 */
+	public static int statisticsQueueSize() {
+		return positiveInt("statistics.queueSize", 8192);
+	}
+
+	/**
+	 * Whether responses carry a {@code Server-Timing} header with the phase durations of the request, off by default.
+	 *
+	 * @return true if the header is enabled.
+	 */
+	public static boolean serverTiming() {
+		return Boolean.getBoolean(PREFIX + "serverTiming");
+	}
+
+	/**
+	 * Whether the person endpoints run on the {@link RequestExecutor} instead of the container worker thread, off by default.
+	 *
+	 * @return true if requests are executed asynchronously.
+	 */
+	public static boolean asyncEnabled() {
+		return Boolean.getBoolean(PREFIX + "async.enabled");
+	}
+
+	/**
+	 * Whether the {@link RequestExecutor} uses virtual threads when the JVM supports them (Java 21 and later), off by default. Jakarta EE 10 has no managed virtual threads, so
+	 * they are created outside of the container's {@code ManagedThreadFactory}: they carry no container context such as JNDI names, and they are not bounded.
+	 *
+	 * @return true if virtual threads are enabled.
+	 */
+	public static boolean asyncVirtualThreads() {
+		return Boolean.getBoolean(PREFIX + "async.virtualThreads");
+	}
+
+	/**
+	 * Number of platform threads of the {@link RequestExecutor} when virtual threads are not used.
+	 *
+	 * @return the pool size, at least 1.
+	 */
+	public static int asyncPoolSize() {
+		return positiveInt("async.poolSize", 4 * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Number of requests that may wait for a platform thread of the {@link RequestExecutor}; further requests are rejected with 503.
+	 *
+	 * @return the queue size, at least 1.
+	 */
+	public static int asyncQueueSize() {
+		return positiveInt("async.queueSize", 1000);
+	}
+
+	/**
+	 * Time after which an asynchronously executed request is cancelled and answered with 503.
+	 *
+	 * @return the timeout in milliseconds, at least 1.
+	 */
+	public static int asyncTimeoutMillis() {
+		return positiveInt("async.timeoutMillis", 30000);
+	}
+
+	/**
+	 * Maximum number of persons accepted by {@code POST /persons/add/async} that are not persisted yet; further documents are rejected with 503.
+	 *
+	 * @return the ingest queue capacity in persons, at least 1.
+	 */
+	public static int ingestMaxPendingPersons() {
+		return positiveInt("ingest.maxPendingPersons", 100000);
+	}
+
+	/**
+	 * Number of persons the ingest writer commits per transaction.
+	 *
+	 * @return the ingest transaction size, at least 1.
+	 */
+	public static int ingestTransactionSize() {
+		return positiveInt("ingest.transactionSize", 1000);
+	}
+
+	/**
+	 * Number of finished ingest jobs whose status can still be queried.
+	 *
+	 * @return the number of retained jobs, at least 1.
+	 */
+	public static int ingestRetainedJobs() {
+		return positiveInt("ingest.retainedJobs", 1000);
+	}
+
+	/**
+	 * Seconds a client is asked to wait in the {@code Retry-After} header when the ingest queue is full.
+	 *
+	 * @return the retry delay in seconds, at least 1.
+	 */
+	public static int ingestRetryAfterSeconds() {
+		return positiveInt("ingest.retryAfterSeconds", 5);
+	}
+
+	private static int positiveInt(String key, int defaultValue) {
+		return Math.max(1, Integer.getInteger(PREFIX + key, defaultValue));
+	}
+}
@@ -0,0 +1,162 @@
+package ch.held.personmanagementservice.util;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical reads: the first caller for a key computes the result, callers arriving while it runs wait for it and share the result or the exception. With a
+ * freshness window, a result is also handed to callers arriving up to that long after its computation started; the window is measured from the start, so no result is older than
+ * the window.
+ * <p>
+ * Shared results are handed to several threads and must not be modified. If the computing thread is interrupted, e.g. because its request timed out, the waiting callers do not
+ * fail with it; one of them computes the result again.
+ *
+ * @param <K> the key type, identifying reads with the same result.
+ * @param <V> the result type.
+ */
+public class SingleFlight<K, V> {
+
+	// Completed results are only swept once this many keys are held
+	private static final int SWEEP_THRESHOLD = 256;
+
+	private final String name;
+	private final long freshNanos;
+	private final ConcurrentHashMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+	private final LongAdder executions = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+	private final LongAdder reused = new LongAdder();
+
+	/**
+	 * @param name        the name the flight is reported with.
+	 * @param freshMillis how long a completed result is shared with later callers, 0 to share it only with callers arriving while it is computed.
+	 */
+	public SingleFlight(String name, long freshMillis) {
+		this.name = name;
+		this.freshNanos = TimeUnit.MILLISECONDS.toNanos(freshMillis);
+	}
+
+	/**
+	 * Returns the result of the read in flight for the key, a fresh result, or computes it.
+	 *
+	 * @param key    the key of the read, must implement equals and hashCode.
+	 * @param loader computes the result, called by at most one thread per key at a time.
+	 * @return the computed or shared result.
+	 * @throws CancellationException if the calling thread is interrupted while waiting.
+	 */
+	public V execute(K key, Supplier<V> loader) {
+		while (true) {
+			Flight<V> flight = flights.get(key);
+			if (flight == null) {
+				Flight<V> own = new Flight<>(System.nanoTime());
+				flight = flights.putIfAbsent(key, own);
+				if (flight == null) {
+					return lead(key, own, loader);
+				}
+			}
+			if (!flight.result.isDone()) {
+				coalesced.increment();
+				try {
+					return await(flight);
+				} catch (CancellationException e) {
+					if (!flight.result.isCancelled() || Thread.currentThread().isInterrupted()) {
+						// This caller was interrupted, not the computing thread
+						throw e;
+					}
+					// The computing thread was interrupted, compute again
+					continue;
+				}
+			}
+			if (isFresh(flight, System.nanoTime()) && !flight.result.isCompletedExceptionally()) {
+				reused.increment();
+				return flight.result.join();
+			}
+			flights.remove(key, flight);
+		}
+	}
+
+	private V lead(K key, Flight<V> flight, Supplier<V> loader) {
+		executions.increment();
+		V value;
+		try {
+			value = loader.get();
+		} catch (RuntimeException | Error e) {
+			flights.remove(key, flight);
+			if (Thread.currentThread().isInterrupted()) {
+				flight.result.cancel(false);
+			} else {
+				flight.result.completeExceptionally(e);
+			}
+			throw e;
+		}
+		flight.result.complete(value);
+		if (freshNanos == 0) {
+			flights.remove(key, flight);
+		} else if (flights.size() > SWEEP_THRESHOLD) {
+			long now = System.nanoTime();
+			flights.values().removeIf(other -> other.result.isDone() && !isFresh(other, now));
+		}
+		return value;
+	}
+
+	private static <V> V await(Flight<V> flight) {
+		try {
+			return flight.result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while waiting for a shared result");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (cause instanceof Error error) {
+				throw error;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	private boolean isFresh(Flight<V> flight, long now) {
+		return now - flight.startNanos < freshNanos;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the number of times a result was computed.
+	 */
+	public long getExecutions() {
+		return executions.sum();
+	}
+
+	/**
+	 * @return the number of callers that waited for a result computed by another caller.
+	 */
+	public long getCoalesced() {
+		return coalesced.sum();
+	}
+
+	/**
+	 * @return the number of callers served a completed result within the freshness window.
+	 */
+	public long getReused() {
+		return reused.sum();
+	}
+
+	private static final class Flight<V> {
+
+		private final long startNanos;
+		private final CompletableFuture<V> result = new CompletableFuture<>();
+
+		Flight(long startNanos) {
+			this.startNanos = startNanos;
+		}
+	}
+}
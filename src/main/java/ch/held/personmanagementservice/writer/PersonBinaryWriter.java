@@ -0,0 +1,158 @@
+package ch.held.personmanagementservice.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import ch.held.personmanagementservice.model.PersonEntity;
+import ch.held.personmanagementservice.util.PersonBinaryFormat;
+
+/**
+ * Writes a document in the {@link PersonBinaryFormat} person by person, so persons can be written while they are read from the database. Records are encoded straight into one
+ * reused buffer, names included, so writing a person allocates nothing.
+ * <p>
+ * Closing the writer completes the document but leaves the underlying stream open. After a person could not be written the document is left without end marker, so readers see
+ * it as truncated rather than complete. Not thread-safe.
+ */
+public class PersonBinaryWriter implements AutoCloseable {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final OutputStream out;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	private boolean failed;
+
+	private PersonBinaryWriter(OutputStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * Starts a persons document on the given stream.
+	 *
+	 * @param out        the stream to write to.
+	 * @param nextCursor the keyset cursor of the next page, or null if there is none.
+	 * @return the writer for the persons of the document.
+	 */
+	public static PersonBinaryWriter open(OutputStream out, Long nextCursor) {
+		PersonBinaryWriter writer = new PersonBinaryWriter(out);
+		writer.buffer.put(PersonBinaryFormat.MAGIC).put(PersonBinaryFormat.VERSION);
+		PersonBinaryFormat.putVarint(writer.buffer, nextCursor != null ? nextCursor : 0);
+		return writer;
+	}
+
+	/**
+	 * Appends a single person record.
+	 *
+	 * @param person the person to write.
+	 * @throws IOException              if writing to the stream fails.
+	 * @throws IllegalArgumentException if the person has no name, no valid gender, no valid age or does not fit into a record.
+	 */
+	public void writePerson(PersonEntity person) throws IOException {
+		long id = person.getId() != null ? person.getId() : 0;
+		String name = person.getName();
+		String gender = person.getGender();
+		if (name == null || !("f".equals(gender) || "m".equals(gender))) {
+			failed = true;
+			throw new IllegalArgumentException("Person " + id + " has no name or no valid gender");
+		}
+		Integer age = person.getAge();
+		// The format has no absent or negative age
+		if (age == null || age < 0) {
+			failed = true;
+			throw new IllegalArgumentException("Person " + id + " has no valid age");
+		}
+		int nameLength = utf8Length(name);
+		int length = PersonBinaryFormat.varintSize(id) + PersonBinaryFormat.varintSize(age) + 1 + PersonBinaryFormat.varintSize(nameLength) + nameLength;
+		if (length > PersonBinaryFormat.MAX_RECORD_LENGTH) {
+			failed = true;
+			throw new IllegalArgumentException("Person " + id + " is longer than " + PersonBinaryFormat.MAX_RECORD_LENGTH + " bytes");
+		}
+		if (buffer.remaining() < PersonBinaryFormat.varintSize(length) + length) {
+			flushBuffer();
+		}
+		PersonBinaryFormat.putVarint(buffer, length);
+		PersonBinaryFormat.putVarint(buffer, id);
+		PersonBinaryFormat.putVarint(buffer, age);
+		buffer.put((byte) gender.charAt(0));
+		PersonBinaryFormat.putVarint(buffer, nameLength);
+		putUtf8(name);
+	}
+
+	/**
+	 * Flushes what has been written so far to the underlying stream, e.g. to send the first bytes of a long response early.
+	 *
+	 * @throws IOException if writing to the stream fails.
+	 */
+	public void flush() throws IOException {
+		flushBuffer();
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (failed) {
+			flush();
+			return;
+		}
+		if (!buffer.hasRemaining()) {
+			flushBuffer();
+		}
+		buffer.put((byte) 0);
+		flushBuffer();
+		out.flush();
+	}
+
+	private void flushBuffer() throws IOException {
+		if (buffer.position() > 0) {
+			out.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * Encodes like {@link String#getBytes(java.nio.charset.Charset)} with UTF-8, unpaired surrogates become {@code ?}.
+	 */
+	private void putUtf8(String value) {
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				buffer.put((byte) c);
+			} else if (c < 0x800) {
+				buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				buffer.put((byte) (0xF0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3F)).put((byte) (0x80 | codePoint >> 6 & 0x3F))
+						.put((byte) (0x80 | codePoint & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				buffer.put((byte) '?');
+			} else {
+				buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+			}
+		}
+	}
+
+	/**
+	 * @return the number of bytes {@link #putUtf8(String)} writes.
+	 */
+	private static int utf8Length(String value) {
+		int length = value.length();
+		int bytes = length;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c >= 0x800) {
+				if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+					// Two chars, four bytes
+					bytes += 2;
+					i++;
+				} else if (!Character.isSurrogate(c)) {
+					bytes += 2;
+				}
+			} else if (c >= 0x80) {
+				bytes++;
+			}
+		}
+		return bytes;
+	}
+}
@@ -0,0 +1,80 @@
+package ch.held.personmanagementservice.writer;
+
+import java.io.OutputStream;
+import java.util.Map;
+
+import ch.held.personmanagementservice.model.PersonEntity;
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+
+/**
+ * Writes a {@code {"nextCursor": ..., "persons": [...]}} document person by person with a JSON-P {@link JsonGenerator}, so persons can be written while they are read from the
+ * database. The document has the shape {@link ch.held.personmanagementservice.parser.JsonPersonParser} reads, plus the ids.
+ * <p>
+ * Closing the writer completes the document but leaves the underlying stream open. Not thread-safe.
+ */
+public class PersonJsonWriter implements AutoCloseable {
+
+	private static final JsonGeneratorFactory JSON_GENERATOR_FACTORY = Json.createGeneratorFactory(Map.of());
+
+	private final JsonGenerator generator;
+
+	private PersonJsonWriter(JsonGenerator generator) {
+		this.generator = generator;
+	}
+
+	/**
+	 * Starts a persons document on the given stream.
+	 *
+	 * @param out        the stream to write to.
+	 * @param nextCursor the keyset cursor of the next page, or null if there is none.
+	 * @return the writer for the persons of the document.
+	 */
+	public static PersonJsonWriter open(OutputStream out, Long nextCursor) {
+		// Closing the generator closes its stream, the pooled buffer leaves the target open
+		PersonJsonWriter writer = new PersonJsonWriter(JSON_GENERATOR_FACTORY.createGenerator(new PooledBufferOutputStream(out)));
+		writer.generator.writeStartObject();
+		if (nextCursor != null) {
+			writer.generator.write("nextCursor", nextCursor);
+		}
+		writer.generator.writeStartArray("persons");
+		return writer;
+	}
+
+	/**
+	 * Appends a single person object.
+	 *
+	 * @param person the person to write.
+	 */
+	public void writePerson(PersonEntity person) {
+		generator.writeStartObject();
+		if (person.getId() != null) {
+			generator.write("id", person.getId());
+		}
+		if (person.getName() != null) {
+			generator.write("name", person.getName());
+		}
+		if (person.getGender() != null) {
+			generator.write("gender", person.getGender());
+		}
+		if (person.getAge() != null) {
+			generator.write("age", person.getAge());
+		}
+		generator.writeEnd();
+	}
+
+	/**
+	 * Flushes what has been written so far to the underlying stream, e.g. to send the first bytes of a long response early.
+	 */
+	public void flush() {
+		generator.flush();
+	}
+
+	@Override
+	public void close() {
+		generator.writeEnd();
+		generator.writeEnd();
+		generator.close();
+	}
+}
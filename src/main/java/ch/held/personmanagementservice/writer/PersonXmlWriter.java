@@ -0,0 +1,129 @@
+package ch.held.personmanagementservice.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import ch.held.personmanagementservice.model.PersonEntity;
+
+/**
+ * Writes a {@code <persons>} document element by element with an {@link XMLStreamWriter}, so persons can be written while they are read from the database. The output matches
+ * what JAXB produces for a {@link ch.held.personmanagementservice.model.PersonsWrapper}.
+ * <p>
+ * Closing the writer completes the document but leaves the underlying stream open. Not thread-safe.
+ */
+public class PersonXmlWriter implements AutoCloseable {
+
+	static final byte[] XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>".getBytes(StandardCharsets.UTF_8);
+
+	// The JDK implementation is used on purpose: its escaping matches JAXB, a container provided one (e.g. Woodstox) may differ
+	static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newDefaultFactory();
+
+	private final XMLStreamWriter writer;
+	private final Long nextCursor;
+	private boolean rootStarted;
+
+	private PersonXmlWriter(XMLStreamWriter writer, Long nextCursor) {
+		this.writer = writer;
+		this.nextCursor = nextCursor;
+	}
+
+	/**
+	 * Starts a persons document on the given stream.
+	 *
+	 * @param out        the stream to write to.
+	 * @param nextCursor the keyset cursor of the next page, or null if there is none.
+	 * @return the writer for the persons of the document.
+	 * @throws IOException        if the XML declaration cannot be written.
+	 * @throws XMLStreamException if the stream writer cannot be created.
+	 */
+	public static PersonXmlWriter open(OutputStream out, Long nextCursor) throws IOException, XMLStreamException {
+		out.write(XML_DECLARATION);
+		return new PersonXmlWriter(XML_OUTPUT_FACTORY.createXMLStreamWriter(out, StandardCharsets.UTF_8.name()), nextCursor);
+	}
+
+	/**
+	 * Appends a single {@code <person>} element.
+	 *
+	 * @param person the person to write.
+	 * @throws XMLStreamException if writing fails.
+	 */
+	public void writePerson(PersonEntity person) throws XMLStreamException {
+		if (!rootStarted) {
+			writer.writeStartElement("persons");
+			writeRootAttributes();
+			rootStarted = true;
+		}
+		writePersonElement(writer, person);
+	}
+
+	/**
+	 * Flushes what has been written so far to the underlying stream, e.g. to send the first bytes of a long response early.
+	 *
+	 * @throws XMLStreamException if flushing fails.
+	 */
+	public void flush() throws XMLStreamException {
+		writer.flush();
+	}
+
+	@Override
+	public void close() throws XMLStreamException {
+		if (rootStarted) {
+			writer.writeEndElement();
+		} else {
+			writer.writeEmptyElement("persons");
+			writeRootAttributes();
+		}
+		writer.writeEndDocument();
+		writer.flush();
+		writer.close();
+	}
+
+	static void writePersonElement(XMLStreamWriter writer, PersonEntity person) throws XMLStreamException {
+		writer.writeStartElement("person");
+		if (person.getId() != null) {
+			writeElement(writer, "id", person.getId().toString());
+		}
+		if (person.getName() != null) {
+			writeElement(writer, "name", person.getName());
+		}
+		if (person.getGender() != null) {
+			writeElement(writer, "gender", person.getGender());
+		}
+		if (person.getAge() != null) {
+			writeElement(writer, "age", person.getAge().toString());
+		}
+		writer.writeEndElement();
+	}
+
+	static void writeElement(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+		writer.writeStartElement(name);
+		writeText(writer, value);
+		writer.writeEndElement();
+	}
+
+	/**
+	 * Writes escaped text. Carriage returns are written as character reference like JAXB does, the stream writer would emit them literally.
+	 */
+	private static void writeText(XMLStreamWriter writer, String value) throws XMLStreamException {
+		int start = 0;
+		int carriageReturn = value.indexOf('\r');
+		while (carriageReturn >= 0) {
+			writer.writeCharacters(value.substring(start, carriageReturn));
+			writer.writeEntityRef("#13");
+			start = carriageReturn + 1;
+			carriageReturn = value.indexOf('\r', start);
+		}
+		writer.writeCharacters(value.substring(start));
+	}
+
+	private void writeRootAttributes() throws XMLStreamException {
+		if (nextCursor != null) {
+			writer.writeAttribute("nextCursor", nextCursor.toString());
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package ch.held.personmanagementservice.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import ch.held.personmanagementservice.model.PersonEntity;
+import ch.held.personmanagementservice.model.PersonsWrapper;
+import ch.held.personmanagementservice.util.PersonBinaryFormat;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Writes {@link PersonsWrapper} responses in the {@link PersonBinaryFormat} with {@link PersonBinaryWriter}.
+ */
+@Provider
+@Produces(PersonBinaryFormat.MEDIA_TYPE)
+public class PersonsBinaryMessageBodyWriter implements MessageBodyWriter<PersonsWrapper> {
+
+	@Override
+	public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+		return PersonsWrapper.class.isAssignableFrom(type);
+	}
+
+	@Override
+	public void writeTo(PersonsWrapper wrapper, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
+			OutputStream entityStream) throws IOException {
+		try (PersonBinaryWriter writer = PersonBinaryWriter.open(entityStream, wrapper.getNextCursor())) {
+			if (wrapper.getPersons() != null) {
+				for (PersonEntity person : wrapper.getPersons()) {
+					writer.writePerson(person);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package ch.held.personmanagementservice.writer;
+
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import ch.held.personmanagementservice.model.PersonEntity;
+import ch.held.personmanagementservice.model.PersonsWrapper;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Writes {@link PersonsWrapper} responses as JSON with {@link PersonJsonWriter} instead of the container's JSON-B mapping.
+ */
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+public class PersonsJsonMessageBodyWriter implements MessageBodyWriter<PersonsWrapper> {
+
+	@Override
+	public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+		return PersonsWrapper.class.isAssignableFrom(type);
+	}
+
+	@Override
+	public void writeTo(PersonsWrapper wrapper, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
+			OutputStream entityStream) {
+		try (PersonJsonWriter writer = PersonJsonWriter.open(entityStream, wrapper.getNextCursor())) {
+			if (wrapper.getPersons() != null) {
+				for (PersonEntity person : wrapper.getPersons()) {
+					writer.writePerson(person);
+				}
+			}
+		}
+	}
+}
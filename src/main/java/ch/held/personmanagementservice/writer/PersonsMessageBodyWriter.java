@@ -0,0 +1,43 @@
+package ch.held.personmanagementservice.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.xml.stream.XMLStreamException;
+
+import ch.held.personmanagementservice.model.PersonEntity;
+import ch.held.personmanagementservice.model.PersonsWrapper;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Writes {@link PersonsWrapper} responses directly to the entity stream instead of going through reflective JAXB marshalling. The bytes are identical to the JAXB output.
+ */
+@Provider
+@Produces({ MediaType.APPLICATION_XML, MediaType.TEXT_XML })
+public class PersonsMessageBodyWriter implements MessageBodyWriter<PersonsWrapper> {
+
+	@Override
+	public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+		return PersonsWrapper.class.isAssignableFrom(type);
+	}
+
+	@Override
+	public void writeTo(PersonsWrapper wrapper, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
+			OutputStream entityStream) throws IOException {
+		try (PooledBufferOutputStream out = new PooledBufferOutputStream(entityStream); PersonXmlWriter writer = PersonXmlWriter.open(out, wrapper.getNextCursor())) {
+			if (wrapper.getPersons() != null) {
+				for (PersonEntity person : wrapper.getPersons()) {
+					writer.writePerson(person);
+				}
+			}
+		} catch (XMLStreamException e) {
+			throw new IOException("Failed to write persons", e);
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package ch.held.personmanagementservice.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Buffering output stream that borrows its buffer from a shared pool instead of allocating one per response. The XML stream writer emits small chunks of bytes; collecting them
+ * here keeps the number of writes to the container's entity stream low.
+ * <p>
+ * Closing the stream flushes the buffer, returns it to the pool and leaves the target stream open. Not thread-safe.
+ */
+class PooledBufferOutputStream extends OutputStream {
+
+	static final int BUFFER_SIZE = 16 * 1024;
+	private static final int MAX_POOLED_BUFFERS = 4 * Runtime.getRuntime().availableProcessors();
+
+	private static final Queue<byte[]> POOL = new ConcurrentLinkedQueue<>();
+	private static final AtomicInteger POOLED = new AtomicInteger();
+
+	private final OutputStream target;
+	private byte[] buffer;
+	private int count;
+
+	PooledBufferOutputStream(OutputStream target) {
+		this.target = target;
+		this.buffer = acquire();
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (count == buffer.length) {
+			flushBuffer();
+		}
+		buffer[count++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int length) throws IOException {
+		if (length >= buffer.length) {
+			flushBuffer();
+			target.write(bytes, offset, length);
+			return;
+		}
+		if (length > buffer.length - count) {
+			flushBuffer();
+		}
+		System.arraycopy(bytes, offset, buffer, count, length);
+		count += length;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		flushBuffer();
+		target.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (buffer == null) {
+			return;
+		}
+		try {
+			flushBuffer();
+		} finally {
+			release(buffer);
+			buffer = null;
+		}
+	}
+
+	private void flushBuffer() throws IOException {
+		if (count > 0) {
+			target.write(buffer, 0, count);
+			count = 0;
+		}
+	}
+
+	private static byte[] acquire() {
+		byte[] pooled = POOL.poll();
+		if (pooled != null) {
+			POOLED.decrementAndGet();
+			return pooled;
+		}
+		return new byte[BUFFER_SIZE];
+	}
+
+	private static void release(byte[] buffer) {
+		if (POOLED.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+			POOL.offer(buffer);
+		} else {
+			POOLED.decrementAndGet();
+		}
+	}
+}
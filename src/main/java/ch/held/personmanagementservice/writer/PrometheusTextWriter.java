@@ -0,0 +1,138 @@
+package ch.held.personmanagementservice.writer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes metrics in the Prometheus text exposition format (version 0.0.4). Names, labels and numbers are written byte by byte into a pooled buffer, so a scrape allocates little
+ * beyond the values it exports.
+ * <p>
+ * Metric and label names must be ASCII; label values are escaped and written as UTF-8. Closing the writer flushes it and leaves the target stream open. Not thread-safe.
+ */
+public final class PrometheusTextWriter implements Closeable {
+
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private final PooledBufferOutputStream out;
+	// Digits of a long, written backwards
+	private final byte[] digits = new byte[20];
+
+	public PrometheusTextWriter(OutputStream target) {
+		this.out = new PooledBufferOutputStream(target);
+	}
+
+	/**
+	 * Starts a metric family with its {@code HELP} and {@code TYPE} lines.
+	 *
+	 * @param name the metric name, counters end with {@code _total}.
+	 * @param type {@code counter} or {@code gauge}.
+	 * @param help a description without line breaks.
+	 */
+	public PrometheusTextWriter family(String name, String type, String help) throws IOException {
+		writeAscii("# HELP ");
+		writeAscii(name);
+		out.write(' ');
+		writeAscii(help);
+		writeAscii("\n# TYPE ");
+		writeAscii(name);
+		out.write(' ');
+		writeAscii(type);
+		out.write('\n');
+		return this;
+	}
+
+	public PrometheusTextWriter sample(String name, long value) throws IOException {
+		writeAscii(name);
+		out.write(' ');
+		writeLong(value);
+		out.write('\n');
+		return this;
+	}
+
+	public PrometheusTextWriter sample(String name, double value) throws IOException {
+		writeAscii(name);
+		out.write(' ');
+		writeDouble(value);
+		out.write('\n');
+		return this;
+	}
+
+	public PrometheusTextWriter sample(String name, String labelName, String labelValue, long value) throws IOException {
+		writeLabeledName(name, labelName, labelValue);
+		writeLong(value);
+		out.write('\n');
+		return this;
+	}
+
+	public PrometheusTextWriter sample(String name, String labelName, String labelValue, double value) throws IOException {
+		writeLabeledName(name, labelName, labelValue);
+		writeDouble(value);
+		out.write('\n');
+		return this;
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	private void writeLabeledName(String name, String labelName, String labelValue) throws IOException {
+		writeAscii(name);
+		out.write('{');
+		writeAscii(labelName);
+		writeAscii("=\"");
+		String escaped = labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+		if (isAscii(escaped)) {
+			writeAscii(escaped);
+		} else {
+			out.write(escaped.getBytes(StandardCharsets.UTF_8));
+		}
+		writeAscii("\"} ");
+	}
+
+	private static boolean isAscii(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) >= 0x80) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void writeAscii(String text) throws IOException {
+		for (int i = 0; i < text.length(); i++) {
+			out.write(text.charAt(i));
+		}
+	}
+
+	private void writeLong(long value) throws IOException {
+		if (value == Long.MIN_VALUE) {
+			writeAscii(Long.toString(value));
+			return;
+		}
+		if (value < 0) {
+			out.write('-');
+			value = -value;
+		}
+		int position = digits.length;
+		do {
+			digits[--position] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value != 0);
+		out.write(digits, position, digits.length - position);
+	}
+
+	private void writeDouble(double value) throws IOException {
+		if (value == (long) value && Math.abs(value) < 1e15) {
+			writeLong((long) value);
+		} else if (Double.isNaN(value)) {
+			writeAscii("NaN");
+		} else if (Double.isInfinite(value)) {
+			writeAscii(value > 0 ? "+Inf" : "-Inf");
+		} else {
+			writeAscii(Double.toString(value));
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package ch.held.personmanagementservice.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.xml.stream.XMLStreamException;
+
+import ch.held.personmanagementservice.model.StatisticsEntity;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Writes {@link StatisticsEntity} responses directly to the entity stream instead of going through reflective JAXB marshalling. The bytes are identical to the JAXB output.
+ */
+@Provider
+@Produces({ MediaType.APPLICATION_XML, MediaType.TEXT_XML })
+public class StatisticsMessageBodyWriter implements MessageBodyWriter<StatisticsEntity> {
+
+	@Override
+	public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+		return StatisticsEntity.class.isAssignableFrom(type);
+	}
+
+	@Override
+	public void writeTo(StatisticsEntity statistics, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
+			OutputStream entityStream) throws IOException {
+		try (PooledBufferOutputStream out = new PooledBufferOutputStream(entityStream)) {
+			StatisticsXmlWriter.write(statistics, out);
+		} catch (XMLStreamException e) {
+			throw new IOException("Failed to write statistics", e);
+		}
+	}
+}
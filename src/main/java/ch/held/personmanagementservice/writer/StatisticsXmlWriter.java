@@ -0,0 +1,250 @@
+package ch.held.personmanagementservice.writer;
+
+import static ch.held.personmanagementservice.writer.PersonXmlWriter.writeElement;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import ch.held.personmanagementservice.model.CacheStatistics;
+import ch.held.personmanagementservice.model.DatasetStatistics;
+import ch.held.personmanagementservice.model.EndpointLatency;
+import ch.held.personmanagementservice.model.PhaseTiming;
+import ch.held.personmanagementservice.model.PoolStatistics;
+import ch.held.personmanagementservice.model.StatisticsEntity;
+import ch.held.personmanagementservice.model.WindowStatistics;
+import ch.held.personmanagementservice.statistics.impl.ErrorDetail;
+
+/**
+ * Writes a {@link StatisticsEntity} with an {@link XMLStreamWriter}. The element names and order mirror the JAXB annotations of the entity and have to be kept in sync with them.
+ */
+public final class StatisticsXmlWriter {
+
+	private StatisticsXmlWriter() {
+		// static access only
+	}
+
+	/**
+	 * Writes the statistics as a complete XML document.
+	 *
+	 * @param statistics the statistics to write.
+	 * @param out        the stream to write to, it is not closed.
+	 * @throws IOException        if writing to the stream fails.
+	 * @throws XMLStreamException if the stream writer fails.
+	 */
+	public static void write(StatisticsEntity statistics, OutputStream out) throws IOException, XMLStreamException {
+		out.write(PersonXmlWriter.XML_DECLARATION);
+		XMLStreamWriter writer = PersonXmlWriter.XML_OUTPUT_FACTORY.createXMLStreamWriter(out, StandardCharsets.UTF_8.name());
+		writer.writeStartElement("statistics");
+		writeElement(writer, "totalAddRequests", Long.toString(statistics.getTotalAddRequests()));
+		writeElement(writer, "totalValidRequests", Long.toString(statistics.getTotalValidRequests()));
+		writeElement(writer, "totalAddedPersons", Long.toString(statistics.getTotalAddedPersons()));
+		writeElement(writer, "totalInvalidAddRequests", Long.toString(statistics.getTotalInvalidAddRequests()));
+		writeDetailedErrors(writer, statistics.getDetailedErrors());
+		writeElement(writer, "droppedErrorDetails", Long.toString(statistics.getDroppedErrorDetails()));
+		writeParserPools(writer, statistics.getParserPools());
+		writeLatencies(writer, statistics.getLatencies());
+		writePhases(writer, statistics.getPhases());
+		writeDataset(writer, statistics.getDataset());
+		writeWindow(writer, statistics.getWindow());
+		writeCache(writer, "personsCache", statistics.getPersonsCache());
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		writer.flush();
+		writer.close();
+	}
+
+	private static void writeDetailedErrors(XMLStreamWriter writer, List<ErrorDetail> errors) throws XMLStreamException {
+		if (errors == null) {
+			return;
+		}
+		if (errors.isEmpty()) {
+			writer.writeEmptyElement("detailedErrors");
+			return;
+		}
+		writer.writeStartElement("detailedErrors");
+		for (ErrorDetail error : errors) {
+			writer.writeStartElement("error");
+			writeElement(writer, "countForXml", Long.toString(error.getCount()));
+			writeOptionalElement(writer, "errorMessage", error.getErrorMessage());
+			writeOptionalElement(writer, "stackTrace", error.getStackTrace());
+			writer.writeEndElement();
+		}
+		writer.writeEndElement();
+	}
+
+	private static void writeParserPools(XMLStreamWriter writer, List<PoolStatistics> pools) throws XMLStreamException {
+		if (pools == null) {
+			return;
+		}
+		if (pools.isEmpty()) {
+			writer.writeEmptyElement("parserPools");
+			return;
+		}
+		writer.writeStartElement("parserPools");
+		for (PoolStatistics pool : pools) {
+			writer.writeStartElement("pool");
+			writeOptionalElement(writer, "name", pool.getName());
+			writeElement(writer, "hits", Long.toString(pool.getHits()));
+			writeElement(writer, "misses", Long.toString(pool.getMisses()));
+			writeElement(writer, "discarded", Long.toString(pool.getDiscarded()));
+			writeElement(writer, "idle", Integer.toString(pool.getIdle()));
+			writer.writeEndElement();
+		}
+		writer.writeEndElement();
+	}
+
+	private static void writeLatencies(XMLStreamWriter writer, List<EndpointLatency> latencies) throws XMLStreamException {
+		if (latencies == null) {
+			return;
+		}
+		if (latencies.isEmpty()) {
+			writer.writeEmptyElement("latencies");
+			return;
+		}
+		writer.writeStartElement("latencies");
+		for (EndpointLatency latency : latencies) {
+			writer.writeStartElement("latency");
+			writeOptionalElement(writer, "endpoint", latency.getEndpoint());
+			writeElement(writer, "count", Long.toString(latency.getCount()));
+			writeElement(writer, "p50", Double.toString(latency.getP50()));
+			writeElement(writer, "p90", Double.toString(latency.getP90()));
+			writeElement(writer, "p99", Double.toString(latency.getP99()));
+			writeElement(writer, "p999", Double.toString(latency.getP999()));
+			writeElement(writer, "max", Double.toString(latency.getMax()));
+			writer.writeEndElement();
+		}
+		writer.writeEndElement();
+	}
+
+	private static void writePhases(XMLStreamWriter writer, List<PhaseTiming> phases) throws XMLStreamException {
+		if (phases == null) {
+			return;
+		}
+		if (phases.isEmpty()) {
+			writer.writeEmptyElement("phases");
+			return;
+		}
+		writer.writeStartElement("phases");
+		for (PhaseTiming phase : phases) {
+			writer.writeStartElement("phase");
+			writeOptionalElement(writer, "name", phase.getName());
+			writeElement(writer, "requests", Long.toString(phase.getRequests()));
+			writeElement(writer, "total", Double.toString(phase.getTotal()));
+			writeElement(writer, "mean", Double.toString(phase.getMean()));
+			writeElement(writer, "max", Double.toString(phase.getMax()));
+			writer.writeEndElement();
+		}
+		writer.writeEndElement();
+	}
+
+	private static void writeDataset(XMLStreamWriter writer, DatasetStatistics dataset) throws XMLStreamException {
+		if (dataset == null) {
+			return;
+		}
+		writer.writeStartElement("dataset");
+		writeElement(writer, "persons", Long.toString(dataset.getPersons()));
+		if (dataset.getGenders().isEmpty()) {
+			writer.writeEmptyElement("genders");
+		} else {
+			writer.writeStartElement("genders");
+			for (DatasetStatistics.GenderCount gender : dataset.getGenders()) {
+				writer.writeStartElement("gender");
+				if (gender.getCode() != null) {
+					writer.writeAttribute("code", gender.getCode());
+				}
+				writer.writeCharacters(Long.toString(gender.getCount()));
+				writer.writeEndElement();
+			}
+			writer.writeEndElement();
+		}
+		if (dataset.getMinAge() != null) {
+			writeElement(writer, "minAge", dataset.getMinAge().toString());
+		}
+		if (dataset.getMaxAge() != null) {
+			writeElement(writer, "maxAge", dataset.getMaxAge().toString());
+		}
+		if (dataset.getMeanAge() != null) {
+			writeElement(writer, "meanAge", dataset.getMeanAge().toString());
+		}
+		if (dataset.getAgeHistogram().isEmpty()) {
+			writer.writeEmptyElement("ageHistogram");
+		} else {
+			writer.writeStartElement("ageHistogram");
+			for (DatasetStatistics.AgeBin bin : dataset.getAgeHistogram()) {
+				writer.writeStartElement("bin");
+				writer.writeAttribute("from", Integer.toString(bin.getFrom()));
+				if (bin.getTo() != null) {
+					writer.writeAttribute("to", bin.getTo().toString());
+				}
+				writer.writeCharacters(Long.toString(bin.getCount()));
+				writer.writeEndElement();
+			}
+			writer.writeEndElement();
+		}
+		writer.writeEndElement();
+	}
+
+	private static void writeWindow(XMLStreamWriter writer, WindowStatistics window) throws XMLStreamException {
+		if (window == null) {
+			return;
+		}
+		boolean empty = window.getCounters().isEmpty() && window.getErrors().isEmpty();
+		if (empty) {
+			writer.writeEmptyElement("window");
+		} else {
+			writer.writeStartElement("window");
+		}
+		writeOptionalAttribute(writer, "length", window.getLength());
+		writer.writeAttribute("seconds", Double.toString(window.getSeconds()));
+		for (WindowStatistics.Rate counter : window.getCounters()) {
+			writeRate(writer, "counter", counter);
+		}
+		for (WindowStatistics.Rate error : window.getErrors()) {
+			writeRate(writer, "error", error);
+		}
+		if (!empty) {
+			writer.writeEndElement();
+		}
+	}
+
+	private static void writeCache(XMLStreamWriter writer, String element, CacheStatistics cache) throws XMLStreamException {
+		if (cache == null) {
+			return;
+		}
+		writer.writeStartElement(element);
+		writeElement(writer, "hits", Long.toString(cache.getHits()));
+		writeElement(writer, "coalesced", Long.toString(cache.getCoalesced()));
+		writeElement(writer, "misses", Long.toString(cache.getMisses()));
+		writeElement(writer, "fallbacks", Long.toString(cache.getFallbacks()));
+		writeElement(writer, "hitRate", Double.toString(cache.getHitRate()));
+		writeElement(writer, "lastRebuildMillis", Long.toString(cache.getLastRebuildMillis()));
+		writeElement(writer, "totalRebuildMillis", Long.toString(cache.getTotalRebuildMillis()));
+		writeElement(writer, "bytes", Long.toString(cache.getBytes()));
+		writeElement(writer, "gzipBytes", Long.toString(cache.getGzipBytes()));
+		writer.writeEndElement();
+	}
+
+	private static void writeRate(XMLStreamWriter writer, String element, WindowStatistics.Rate rate) throws XMLStreamException {
+		writer.writeEmptyElement(element);
+		writeOptionalAttribute(writer, "name", rate.getName());
+		writer.writeAttribute("total", Long.toString(rate.getTotal()));
+		writer.writeAttribute("perSecond", Double.toString(rate.getPerSecond()));
+	}
+
+	private static void writeOptionalAttribute(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+		if (value != null) {
+			writer.writeAttribute(name, value);
+		}
+	}
+
+	static void writeOptionalElement(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+		if (value != null) {
+			writeElement(writer, name, value);
+		}
+	}
+}
@@ -0,0 +1,199 @@
+package ch.held.personmanagementservice.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import ch.held.personmanagementservice.util.PersonBinaryFormat;
+import generated.Person;
+
+/**
+ * Reading documents in the {@link PersonBinaryFormat} with {@link BinaryPersonStreamReader}, malformed documents and invalid persons in particular. Round trips with the writer are
+ * covered by {@code PersonBinaryWriterTest}.
+ */
+class BinaryPersonStreamReaderTest {
+
+	// nextCursor 0, one record of 5 bytes: id 1, age 3, gender 'f', name "A", then the end marker
+	private static final byte[] SINGLE_PERSON = { 'P', 'R', 'S', 1, 0, 5, 1, 3, 'f', 1, 'A', 0 };
+
+	// Nine bytes with the continuation bit set, one more than a varint of 63 bits takes
+	private static final byte[] OVERLONG_VARINT = { (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 1 };
+
+	@Test
+	void readsPersons() {
+		try (BinaryPersonStreamReader reader = reader(SINGLE_PERSON)) {
+			assertTrue(reader.hasNext());
+			Person person = reader.next();
+			assertEquals("A", person.getName());
+			assertEquals("f", person.getGender());
+			assertEquals(BigInteger.valueOf(3), person.getAge());
+			assertFalse(reader.hasNext());
+			assertEquals(1, reader.getPersonsRead());
+		}
+	}
+
+	@Test
+	void readsDocumentDeliveredByteByByte() throws Exception {
+		try (BinaryPersonStreamReader reader = new BinaryPersonStreamReader(new ByteByByteStream(SINGLE_PERSON))) {
+			assertTrue(reader.nextRecord());
+			assertEquals(1, reader.getId());
+			assertEquals("A", reader.getName().toString());
+			assertFalse(reader.nextRecord());
+		}
+	}
+
+	@Test
+	void readsRecordOfMaximumLength() throws Exception {
+		int nameLength = PersonBinaryFormat.MAX_RECORD_LENGTH - 5;
+		byte[] name = new byte[nameLength];
+		Arrays.fill(name, (byte) 'x');
+		byte[] document = concat(new byte[] { 'P', 'R', 'S', 1, 0 }, varint(PersonBinaryFormat.MAX_RECORD_LENGTH), new byte[] { 0, 0, 'm' }, varint(nameLength), name,
+				new byte[] { 0 });
+		try (BinaryPersonStreamReader reader = reader(document)) {
+			assertTrue(reader.nextRecord());
+			assertEquals(nameLength, reader.getName().length());
+			assertFalse(reader.nextRecord());
+		}
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("malformedDocuments")
+	void rejectsMalformedDocument(String malformation, byte[] document, String message) {
+		try (BinaryPersonStreamReader reader = reader(document)) {
+			PersonStreamException e = assertThrows(PersonStreamException.class, () -> {
+				while (reader.hasNext()) {
+					reader.next();
+				}
+			});
+			BinaryFormatException cause = assertInstanceOf(BinaryFormatException.class, e.getOriginalException());
+			assertTrue(cause.getMessage().startsWith(message), cause::getMessage);
+		}
+	}
+
+	static Stream<Arguments> malformedDocuments() {
+		return Stream.of(
+				Arguments.of("bad magic", withByte(SINGLE_PERSON, 0, 'X'), "Not a persons document"),
+				Arguments.of("unknown version", withByte(SINGLE_PERSON, 3, 2), "Unsupported version 2"),
+				Arguments.of("over-long next cursor", concat(new byte[] { 'P', 'R', 'S', 1 }, OVERLONG_VARINT), "Varint out of range"),
+				Arguments.of("over-long record length", concat(new byte[] { 'P', 'R', 'S', 1, 0 }, OVERLONG_VARINT), "Varint out of range"),
+				Arguments.of("record length beyond its fields", withByte(SINGLE_PERSON, 5, 6), "Name length does not match the record length"),
+				Arguments.of("record length within its fields", withByte(SINGLE_PERSON, 5, 3), "Record shorter than its fields"),
+				Arguments.of("record length above the maximum", concat(new byte[] { 'P', 'R', 'S', 1, 0 }, varint(PersonBinaryFormat.MAX_RECORD_LENGTH + 1)),
+						"Record longer than " + PersonBinaryFormat.MAX_RECORD_LENGTH + " bytes"),
+				Arguments.of("over-long id", record(concat(OVERLONG_VARINT, new byte[] { 3, 'f', 1, 'A' })), "Id out of range"),
+				Arguments.of("over-long age", record(concat(new byte[] { 1 }, OVERLONG_VARINT, new byte[] { 'f', 1, 'A' })), "Age is out of range"),
+				Arguments.of("age beyond int", record(new byte[] { 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 'f', 1, 'A' }), "Age is out of range"),
+				Arguments.of("unknown gender", withByte(SINGLE_PERSON, 8, 'x'), "Gender must be 'f' or 'm'"),
+				Arguments.of("blank name", withByte(SINGLE_PERSON, 10, ' '), "Name cannot be blank"),
+				Arguments.of("invalid UTF-8", withByte(SINGLE_PERSON, 10, 0xC3), "Name is not valid UTF-8"),
+				Arguments.of("unpaired surrogate in CESU-8", record(new byte[] { 1, 3, 'f', 3, (byte) 0xED, (byte) 0xA0, (byte) 0xBD }), "Name is not valid UTF-8"),
+				Arguments.of("content after the end", Arrays.copyOf(SINGLE_PERSON, SINGLE_PERSON.length + 1), "Unexpected content after the end of the document"),
+				Arguments.of("no persons", new byte[] { 'P', 'R', 'S', 1, 0, 0 }, "Document must contain at least one person"),
+				Arguments.of("no end marker", Arrays.copyOf(SINGLE_PERSON, SINGLE_PERSON.length - 1), "Unexpected end of document"));
+	}
+
+	@ParameterizedTest(name = "truncated to {0} bytes")
+	@MethodSource("truncatedLengths")
+	void rejectsTruncatedDocument(int length) {
+		try (BinaryPersonStreamReader reader = reader(Arrays.copyOf(SINGLE_PERSON, length))) {
+			PersonStreamException e = assertThrows(PersonStreamException.class, () -> {
+				while (reader.hasNext()) {
+					reader.next();
+				}
+			});
+			assertInstanceOf(BinaryFormatException.class, e.getOriginalException());
+		}
+	}
+
+	static IntStream truncatedLengths() {
+		return IntStream.range(0, SINGLE_PERSON.length);
+	}
+
+	@Test
+	void nextRecordThrowsFormatExceptionWithOffset() {
+		try (BinaryPersonStreamReader reader = reader(withByte(SINGLE_PERSON, 8, 'x'))) {
+			BinaryFormatException e = assertThrows(BinaryFormatException.class, reader::nextRecord);
+			// The record starts after the header and its length
+			assertEquals("Gender must be 'f' or 'm' at byte 6", e.getMessage());
+		}
+	}
+
+	/**
+	 * @return a document with a single record of the given fields.
+	 */
+	private static byte[] record(byte[] fields) {
+		return concat(new byte[] { 'P', 'R', 'S', 1, 0 }, varint(fields.length), fields, new byte[] { 0 });
+	}
+
+	private static byte[] varint(long value) {
+		ByteBuffer buffer = ByteBuffer.allocate(PersonBinaryFormat.varintSize(value));
+		PersonBinaryFormat.putVarint(buffer, value);
+		return buffer.array();
+	}
+
+	private static byte[] concat(byte[]... parts) {
+		byte[] result = new byte[Arrays.stream(parts).mapToInt(part -> part.length).sum()];
+		int offset = 0;
+		for (byte[] part : parts) {
+			System.arraycopy(part, 0, result, offset, part.length);
+			offset += part.length;
+		}
+		return result;
+	}
+
+	private static byte[] withByte(byte[] document, int index, int value) {
+		byte[] changed = document.clone();
+		changed[index] = (byte) value;
+		return changed;
+	}
+
+	private static BinaryPersonStreamReader reader(byte[] document) {
+		return new BinaryPersonStreamReader(new ByteArrayInputStream(document));
+	}
+
+	/**
+	 * Hands out one byte per read, so every field crosses a read boundary.
+	 */
+	private static class ByteByByteStream extends InputStream {
+
+		private final byte[] bytes;
+		private int position;
+
+		ByteByByteStream(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		@Override
+		public int read() {
+			return position < bytes.length ? bytes[position++] & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] target, int offset, int length) {
+			if (length == 0) {
+				return 0;
+			}
+			int b = read();
+			if (b < 0) {
+				return -1;
+			}
+			target[offset] = (byte) b;
+			return 1;
+		}
+	}
+}
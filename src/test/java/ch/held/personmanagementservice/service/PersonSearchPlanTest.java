@@ -0,0 +1,177 @@
+package ch.held.personmanagementservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ch.held.personmanagementservice.model.PersonEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+
+/**
+ * Checks that H2 plans the statements {@link PersonService#searchPersons(PersonSearch)} generates with the indexes declared on {@link PersonEntity}. The statements are recorded
+ * with their parameters as Hibernate prepares and binds them, and explained with the same bindings.
+ */
+class PersonSearchPlanTest {
+
+	private static final int ROWS = 100_000;
+
+	private static final List<RecordedStatement> STATEMENTS = new ArrayList<>();
+
+	private static JdbcDataSource dataSource;
+	private static EntityManagerFactory entityManagerFactory;
+	private EntityManager em;
+	private PersonService personService;
+
+	@BeforeAll
+	static void setUpDatabase() throws SQLException {
+		dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:personsearchplan;DB_CLOSE_DELAY=-1");
+		dataSource.setUser("sa");
+		entityManagerFactory = Persistence.createEntityManagerFactory("default", Map.of(
+				"jakarta.persistence.transactionType", "RESOURCE_LOCAL",
+				"jakarta.persistence.nonJtaDataSource", recording(dataSource),
+				"hibernate.hbm2ddl.auto", "create-drop"));
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+			// Two pseudo-random letters make name prefixes selective, ages are spread evenly over 0 to 99
+			statement.executeUpdate("INSERT INTO PersonEntity (id, name, gender, age) SELECT X, CONCAT(CHAR(65 + MOD(X * 7919, 26)), CHAR(97 + MOD(X * 104729, 26)), ' ', X),"
+					+ " CASEWHEN(MOD(X, 2) = 0, 'f', 'm'), MOD(X, 100) FROM SYSTEM_RANGE(1, " + ROWS + ")");
+			statement.execute("ANALYZE");
+		}
+	}
+
+	@AfterAll
+	static void tearDownDatabase() {
+		entityManagerFactory.close();
+	}
+
+	@BeforeEach
+	void setUp() throws ReflectiveOperationException {
+		em = entityManagerFactory.createEntityManager();
+		personService = new PersonService();
+		Field field = PersonService.class.getDeclaredField("em");
+		field.setAccessible(true);
+		field.set(personService, em);
+		synchronized (STATEMENTS) {
+			STATEMENTS.clear();
+		}
+	}
+
+	@Test
+	void genderAndAgeRangeUsesGenderAgeIndex() throws SQLException {
+		assertSearchUses(new PersonSearch("f", 20, 22, null, PersonSearch.SortKey.AGE, false, 100), "IDX_PERSON_GENDER_AGE");
+	}
+
+	@Test
+	void ageRangeUsesAgeIndex() throws SQLException {
+		assertSearchUses(new PersonSearch(null, 30, 30, null, PersonSearch.SortKey.ID, false, 100), "IDX_PERSON_AGE");
+	}
+
+	@Test
+	void namePrefixUsesNameIndex() throws SQLException {
+		assertSearchUses(new PersonSearch(null, null, null, "Ab", PersonSearch.SortKey.NAME, false, 100), "IDX_PERSON_NAME");
+	}
+
+	@Test
+	void escapedNamePrefixUsesNameIndex() throws SQLException {
+		assertSearchUses(new PersonSearch(null, null, null, "A_%", PersonSearch.SortKey.NAME, false, 100), "IDX_PERSON_NAME");
+	}
+
+	private void assertSearchUses(PersonSearch search, String index) throws SQLException {
+		personService.searchPersons(search);
+		em.close();
+		RecordedStatement recorded;
+		synchronized (STATEMENTS) {
+			assertEquals(1, STATEMENTS.size(), () -> "Expected one statement, got " + STATEMENTS);
+			recorded = STATEMENTS.get(0);
+		}
+		assertTrue(recorded.sql().toLowerCase().startsWith("select"), recorded::sql);
+		try (Connection connection = dataSource.getConnection(); PreparedStatement explain = connection.prepareStatement("EXPLAIN " + recorded.sql())) {
+			for (Map.Entry<Integer, Object> parameter : recorded.parameters().entrySet()) {
+				explain.setObject(parameter.getKey(), parameter.getValue());
+			}
+			try (ResultSet plan = explain.executeQuery()) {
+				assertTrue(plan.next());
+				String text = plan.getString(1);
+				assertTrue(text.contains("PUBLIC." + index + ":"), () -> "Expected index " + index + " in query plan of " + recorded + ":\n" + text);
+			}
+		}
+	}
+
+	/**
+	 * Wraps the data source so that every statement prepared on its connections is recorded with the parameters bound to it.
+	 */
+	private static DataSource recording(DataSource target) {
+		return proxy(DataSource.class, target, (method, args, result) -> method.getName().equals("getConnection") ? recording((Connection) result) : result);
+	}
+
+	private static Connection recording(Connection target) {
+		return proxy(Connection.class, target, (method, args, result) -> {
+			if (!method.getName().equals("prepareStatement")) {
+				return result;
+			}
+			RecordedStatement statement = new RecordedStatement((String) args[0], new TreeMap<>());
+			synchronized (STATEMENTS) {
+				STATEMENTS.add(statement);
+			}
+			return recording((PreparedStatement) result, statement);
+		});
+	}
+
+	private static PreparedStatement recording(PreparedStatement target, RecordedStatement statement) {
+		return proxy(PreparedStatement.class, target, (method, args, result) -> {
+			// setString(1, value), setInt(2, value), setNull(3, type), ...
+			if (method.getName().startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+				statement.parameters().put(index, method.getName().equals("setNull") ? null : args[1]);
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * Creates a proxy that calls the target and passes the result through the interception.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, T target, Interception interception) {
+		return (T) Proxy.newProxyInstance(PersonSearchPlanTest.class.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+			Object result;
+			try {
+				result = method.invoke(target, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+			return interception.after(method, args, result);
+		});
+	}
+
+	@FunctionalInterface
+	private interface Interception {
+
+		Object after(Method method, Object[] args, Object result);
+	}
+
+	private record RecordedStatement(String sql, Map<Integer, Object> parameters) {
+	}
+}
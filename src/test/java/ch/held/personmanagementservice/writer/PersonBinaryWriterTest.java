@@ -0,0 +1,215 @@
+package ch.held.personmanagementservice.writer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import ch.held.personmanagementservice.model.PersonEntity;
+import ch.held.personmanagementservice.parser.BinaryFormatException;
+import ch.held.personmanagementservice.parser.BinaryPersonStreamReader;
+import ch.held.personmanagementservice.util.PersonBinaryFormat;
+
+/**
+ * Round trips through {@link PersonBinaryWriter} and {@link BinaryPersonStreamReader}, and the persons the writer rejects.
+ */
+class PersonBinaryWriterTest {
+
+	// Id 1, age 1, gender and a two byte name length leave this many bytes for the name of the longest record
+	private static final int MAX_NAME_LENGTH = PersonBinaryFormat.MAX_RECORD_LENGTH - 5;
+
+	@Test
+	void roundTripsPersonsAndNextCursor() throws IOException {
+		List<PersonEntity> persons = List.of(person(1L, "Anna", "f", 31), person(2L, "Ben", "m", 0), person(3L, "Clara", "f", 99));
+		assertRoundTrip(write(persons, 42L), persons, 42L);
+	}
+
+	@Test
+	void roundTripsDocumentLargerThanTheBuffers() throws IOException {
+		List<PersonEntity> persons = new ArrayList<>();
+		for (int id = 1; id <= 20_000; id++) {
+			persons.add(person((long) id, "Person " + id, id % 2 == 0 ? "f" : "m", id % 100));
+		}
+		assertRoundTrip(write(persons, null), persons, null);
+	}
+
+	@Test
+	void roundTripsLargestValues() throws IOException {
+		List<PersonEntity> persons = List.of(person(Long.MAX_VALUE, "Max", "m", Integer.MAX_VALUE));
+		assertRoundTrip(write(persons, Long.MAX_VALUE), persons, Long.MAX_VALUE);
+	}
+
+	@Test
+	void writesZeroForPersonWithoutId() throws IOException {
+		try (BinaryPersonStreamReader reader = reader(write(List.of(person(null, "New", "f", 20)), null))) {
+			assertTrue(reader.nextRecord());
+			assertEquals(0, reader.getId());
+		}
+	}
+
+	// The last two are the first and last chars of two and three bytes
+	@ParameterizedTest
+	@ValueSource(strings = { "Zoë Ærø", "中文名", "Emoji \uD83D\uDE00", "\uD83D\uDE00\uD83D\uDC4D", "\u0080\u07FF", "\u0800\uFFFF" })
+	void writesMultiByteNamesAsUtf8(String name) throws IOException {
+		byte[] document = write(List.of(person(1L, name, "f", 30)), null);
+		byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+		// The name is the last field of the only record, before the end marker
+		assertArrayEquals(utf8, Arrays.copyOfRange(document, document.length - 1 - utf8.length, document.length - 1));
+		assertRoundTrip(document, List.of(person(1L, name, "f", 30)), null);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "a\uD83Db", "a\uDE00b", "ab\uD83D", "\uDE00\uD83D" })
+	void writesUnpairedSurrogatesLikeStringGetBytes(String name) throws IOException {
+		try (BinaryPersonStreamReader reader = reader(write(List.of(person(1L, name, "f", 30)), null))) {
+			assertTrue(reader.nextRecord());
+			assertEquals(new String(name.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8), reader.getName().toString());
+		}
+	}
+
+	@Test
+	void writesRecordOfMaximumLength() throws IOException {
+		List<PersonEntity> persons = List.of(person(1L, "x".repeat(MAX_NAME_LENGTH), "f", 1));
+		byte[] document = write(persons, null);
+		assertEquals(PersonBinaryFormat.MAX_RECORD_LENGTH, document.length - 5 - 3 - 1);
+		assertRoundTrip(document, persons, null);
+	}
+
+	@Test
+	void writesMultiByteNameOfMaximumLength() throws IOException {
+		// Four bytes per surrogate pair
+		String name = "\uD83D\uDE00".repeat(MAX_NAME_LENGTH / 4) + "x".repeat(MAX_NAME_LENGTH % 4);
+		List<PersonEntity> persons = List.of(person(1L, name, "f", 1));
+		assertRoundTrip(write(persons, null), persons, null);
+	}
+
+	@Test
+	void rejectsRecordLongerThanMaximum() {
+		assertRejected(person(1L, "x".repeat(MAX_NAME_LENGTH + 1), "f", 1));
+	}
+
+	@Test
+	void rejectsMultiByteNameLongerThanMaximum() {
+		// Two bytes per char, one byte too long
+		assertRejected(person(1L, "é".repeat(MAX_NAME_LENGTH / 2) + "x".repeat(MAX_NAME_LENGTH % 2 + 1), "f", 1));
+	}
+
+	@Test
+	void rejectsPersonWithoutAge() {
+		assertRejected(person(2L, "Ben", "m", null));
+	}
+
+	@Test
+	void rejectsPersonWithNegativeAge() {
+		assertRejected(person(2L, "Ben", "m", -1));
+	}
+
+	@Test
+	void rejectsPersonWithoutName() {
+		assertRejected(person(2L, null, "m", 20));
+	}
+
+	@Test
+	void rejectsPersonWithInvalidGender() {
+		assertRejected(person(2L, "Ben", "x", 20));
+	}
+
+	@Test
+	void closeKeepsStreamOpen() throws IOException {
+		ClosingAwareStream out = new ClosingAwareStream();
+		try (PersonBinaryWriter writer = PersonBinaryWriter.open(out, null)) {
+			writer.writePerson(person(1L, "Anna", "f", 31));
+		}
+		assertFalse(out.closed);
+	}
+
+	/**
+	 * A rejected person fails the writer: the persons before it are written, but the document is left without end marker, so readers see it as truncated.
+	 */
+	private static void assertRejected(PersonEntity invalid) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertThrows(IllegalArgumentException.class, () -> {
+			try (PersonBinaryWriter writer = PersonBinaryWriter.open(out, null)) {
+				writer.writePerson(person(1L, "Anna", "f", 31));
+				writer.writePerson(invalid);
+			}
+		});
+		try (BinaryPersonStreamReader reader = reader(out.toByteArray())) {
+			BinaryFormatException e = assertThrows(BinaryFormatException.class, () -> {
+				while (reader.nextRecord()) {
+					assertEquals("Anna", reader.getName().toString());
+				}
+			});
+			assertTrue(e.getMessage().startsWith("Unexpected end of document"), e::getMessage);
+			assertEquals(1, reader.getPersonsRead());
+		}
+	}
+
+	private static void assertRoundTrip(byte[] document, List<PersonEntity> expected, Long nextCursor) throws IOException {
+		try (BinaryPersonStreamReader reader = reader(document)) {
+			for (PersonEntity person : expected) {
+				assertTrue(reader.nextRecord());
+				assertEquals((long) person.getId(), reader.getId());
+				assertEquals(person.getName(), reader.getName().toString());
+				assertEquals(person.getGender().charAt(0), reader.getGender());
+				assertEquals((int) person.getAge(), reader.getAge());
+			}
+			assertFalse(reader.nextRecord());
+			assertEquals(nextCursor, reader.getNextCursor());
+		}
+	}
+
+	private static byte[] write(List<PersonEntity> persons, Long nextCursor) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (PersonBinaryWriter writer = PersonBinaryWriter.open(out, nextCursor)) {
+			for (PersonEntity person : persons) {
+				writer.writePerson(person);
+			}
+		}
+		return out.toByteArray();
+	}
+
+	private static BinaryPersonStreamReader reader(byte[] document) {
+		return new BinaryPersonStreamReader(new ByteArrayInputStream(document));
+	}
+
+	private static PersonEntity person(Long id, String name, String gender, Integer age) {
+		PersonEntity person = new PersonEntity();
+		try {
+			// Assigned by Hibernate otherwise
+			Field field = PersonEntity.class.getDeclaredField("id");
+			field.setAccessible(true);
+			field.set(person, id);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+		person.setName(name);
+		person.setGender(gender);
+		person.setAge(age);
+		return person;
+	}
+
+	private static class ClosingAwareStream extends ByteArrayOutputStream {
+
+		private boolean closed;
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+}